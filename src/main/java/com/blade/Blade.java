@@ -39,6 +39,7 @@ import com.blade.mvc.ui.template.TemplateEngine;
 import com.blade.security.web.cors.CorsConfiger;
 import com.blade.security.web.cors.CorsMiddleware;
 import com.blade.server.Server;
+import com.blade.server.netty.Compressor;
 import com.blade.server.netty.NettyServer;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -156,6 +157,11 @@ public class Blade {
 
     private CorsMiddleware corsMiddleware;
 
+    /**
+     * Response compressors registered by the application, e.g. br
+     */
+    private List<Compressor> compressors = new ArrayList<>();
+
     /**
      * Used to identify whether the web server has started
      */
@@ -550,6 +556,24 @@ public class Blade {
         return corsMiddleware;
     }
 
+    /**
+     * Register a response compressor, e.g. a Brotli encoder for "br",
+     * it replaces the built in compressor of the same encoding.
+     * It is preferred to the built in encodings, unless http.compression.encodings is set:
+     * then only the listed encodings are used, in the listed order.
+     *
+     * @param compressor compressor instance
+     * @return blade
+     */
+    public Blade compressor(@NonNull Compressor compressor) {
+        this.compressors.add(compressor);
+        return this;
+    }
+
+    public List<Compressor> compressors() {
+        return this.compressors;
+    }
+
     /**
      * Get blade statics list.
      * e.g: "/favicon.ico", "/robots.txt", "/static/", "/upload/", "/webjars/"
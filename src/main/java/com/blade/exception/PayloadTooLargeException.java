@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2018, biezhi 王爵 nice (biezhi.me@gmail.com)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.exception;
+
+/**
+ * HTTP 413 Payload Too Large
+ */
+public class PayloadTooLargeException extends BladeException {
+
+    public static final  int    STATUS = 413;
+    private static final String NAME   = "Payload Too Large";
+
+    public PayloadTooLargeException(String message) {
+        super(STATUS, NAME, message);
+    }
+
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2018, biezhi 王爵 nice (biezhi.me@gmail.com)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blade.exception;
+
+/**
+ * HTTP 503 Service Unavailable
+ */
+public class ServiceUnavailableException extends BladeException {
+
+    public static final  int    STATUS = 503;
+    private static final String NAME   = "Service Unavailable";
+
+    public ServiceUnavailableException(String message) {
+        super(STATUS, NAME, message);
+    }
+
+}
@@ -7,6 +7,7 @@ import com.blade.mvc.WebContext;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The default IOC container implementation
@@ -0,0 +1,22 @@
+package com.blade.kit.invoke;
+
+/**
+ * Invoker of a method
+ * <p>
+ * The invokers made by {@link Invokers#create} call the method directly, an exception thrown by
+ * the method is thrown as it is, it is not wrapped in an InvocationTargetException.
+ */
+@FunctionalInterface
+public interface Invoker {
+
+    /**
+     * Call the method on a target
+     *
+     * @param target method target, ignored when the method is static
+     * @param args   method arguments, may be null when the method has no parameter
+     * @return return the value returned by the method, boxed when it is primitive, null when it is void
+     * @throws Exception the exception thrown by the method
+     */
+    Object invoke(Object target, Object[] args) throws Exception;
+
+}
@@ -0,0 +1,263 @@
+package com.blade.kit.invoke;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.experimental.UtilityClass;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Invoker factory
+ * <p>
+ * A public method with public parameter types gets an invoker class generated with asm, which casts
+ * the arguments and calls the method with a plain invokevirtual, so the JIT sees one receiver type at
+ * the call and can inline the method into the invoker. The other methods are called by reflection.
+ * <p>
+ * The invoker classes are defined in a child class loader of the method class loader,
+ * they are unloaded with the classes they call.
+ */
+@Slf4j
+@UtilityClass
+public class Invokers {
+
+    private static final String INVOKER_NAME = Type.getInternalName(Invoker.class);
+    private static final String INVOKE_DESC  = "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private static final Map<ClassLoader, WeakReference<InvokerClassLoader>> LOADERS = new WeakHashMap<>();
+
+    /**
+     * Create the invoker of a method, generated when it can be, by reflection when it can not
+     *
+     * @param method method
+     * @return return method invoker
+     */
+    public static Invoker create(Method method) {
+        if (canGenerate(method)) {
+            try {
+                return generate(method);
+            } catch (RuntimeException | LinkageError e) {
+                log.debug("Generate invoker of {} failed, call it by reflection: {}", method, e.toString());
+            }
+        }
+        return reflect(method);
+    }
+
+    /**
+     * Whether an invoker can be generated for the method: the method, its class, its parameter types
+     * and return type are all public, and its class is not loaded by the bootstrap class loader
+     *
+     * @param method method
+     * @return return whether the invoker can be generated
+     */
+    public static boolean canGenerate(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        if (null == declaringClass.getClassLoader() || !Modifier.isPublic(method.getModifiers())
+                || !isPublic(declaringClass) || !isPublic(method.getReturnType())) {
+            return false;
+        }
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isPublic(parameterType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPublic(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        return type.isPrimitive() || Modifier.isPublic(type.getModifiers());
+    }
+
+    /**
+     * Create the reflection invoker of a method
+     *
+     * @param method method
+     * @return return method invoker
+     */
+    public static Invoker reflect(Method method) {
+        try {
+            method.setAccessible(true);
+        } catch (SecurityException e) {
+            log.debug("Method {} is not accessible: {}", method, e.toString());
+        }
+        return (target, args) -> {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Generate the invoker class of a method and create its instance
+     *
+     * @param method method, see {@link #canGenerate(Method)}
+     * @return return method invoker
+     */
+    public static Invoker generate(Method method) {
+        if (!canGenerate(method)) {
+            throw new IllegalArgumentException("Can not generate invoker of " + method);
+        }
+        Class<?> declaringClass = method.getDeclaringClass();
+        String   className      = declaringClass.getName() + "$$Invoker$" + method.getName() + "$" + COUNTER.incrementAndGet();
+        byte[]   bytes          = generateClass(className.replace('.', '/'), method);
+        try {
+            Class<?> invokerClass = loader(declaringClass).define(className, bytes, declaringClass);
+            return (Invoker) invokerClass.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static InvokerClassLoader loader(Class<?> type) {
+        ClassLoader parent = type.getClassLoader();
+        synchronized (LOADERS) {
+            WeakReference<InvokerClassLoader> ref    = LOADERS.get(parent);
+            InvokerClassLoader                loader = null != ref ? ref.get() : null;
+            if (null == loader) {
+                loader = new InvokerClassLoader(parent);
+                LOADERS.put(parent, new WeakReference<>(loader));
+            }
+            return loader;
+        }
+    }
+
+    private static byte[] generateClass(String internalName, Method method) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, internalName,
+                null, "java/lang/Object", new String[]{INVOKER_NAME});
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        Class<?> owner    = method.getDeclaringClass();
+        String   ownerName = Type.getInternalName(owner);
+        boolean  isStatic  = Modifier.isStatic(method.getModifiers());
+
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "invoke", INVOKE_DESC, null, new String[]{"java/lang/Exception"});
+        mv.visitCode();
+        if (!isStatic) {
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, ownerName);
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            mv.visitVarInsn(Opcodes.ALOAD, 2);
+            pushInt(mv, i);
+            mv.visitInsn(Opcodes.AALOAD);
+            unbox(mv, Type.getType(parameterTypes[i]));
+        }
+        int opcode = isStatic ? Opcodes.INVOKESTATIC : owner.isInterface() ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL;
+        mv.visitMethodInsn(opcode, ownerName, method.getName(), Type.getMethodDescriptor(method), owner.isInterface());
+        box(mv, Type.getType(method.getReturnType()));
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        }
+    }
+
+    private static void unbox(MethodVisitor mv, Type type) {
+        String wrapper = wrapperName(type);
+        if (null == wrapper) {
+            mv.visitTypeInsn(Opcodes.CHECKCAST, type.getSort() == Type.ARRAY ? type.getDescriptor() : type.getInternalName());
+            return;
+        }
+        mv.visitTypeInsn(Opcodes.CHECKCAST, wrapper);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapper, type.getClassName() + "Value", "()" + type.getDescriptor(), false);
+    }
+
+    private static void box(MethodVisitor mv, Type type) {
+        if (type.getSort() == Type.VOID) {
+            mv.visitInsn(Opcodes.ACONST_NULL);
+            return;
+        }
+        String wrapper = wrapperName(type);
+        if (null != wrapper) {
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, wrapper, "valueOf", "(" + type.getDescriptor() + ")L" + wrapper + ";", false);
+        }
+    }
+
+    private static String wrapperName(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                return "java/lang/Boolean";
+            case Type.CHAR:
+                return "java/lang/Character";
+            case Type.BYTE:
+                return "java/lang/Byte";
+            case Type.SHORT:
+                return "java/lang/Short";
+            case Type.INT:
+                return "java/lang/Integer";
+            case Type.FLOAT:
+                return "java/lang/Float";
+            case Type.LONG:
+                return "java/lang/Long";
+            case Type.DOUBLE:
+                return "java/lang/Double";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Defines the invoker classes, the {@link Invoker} interface is always the one of this class loader
+     */
+    private static final class InvokerClassLoader extends ClassLoader {
+
+        InvokerClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (Invoker.class.getName().equals(name)) {
+                return Invoker.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        Class<?> define(String name, byte[] bytes, Class<?> target) {
+            return defineClass(name, bytes, 0, bytes.length, target.getProtectionDomain());
+        }
+    }
+
+}
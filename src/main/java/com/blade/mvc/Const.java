@@ -58,6 +58,12 @@ public interface Const {
     String ENV_KEY_TASK_THREAD_COUNT         = "app.task.thread-count";
     String ENV_KEY_CONTEXT_PATH              = "app.context-path";
     String ENV_KEY_GZIP_ENABLE               = "http.gzip.enable";
+    String ENV_KEY_COMPRESSION_ENABLE        = "http.compression.enable";
+    String ENV_KEY_COMPRESSION_ENCODINGS     = "http.compression.encodings";
+    String ENV_KEY_COMPRESSION_LEVEL         = "http.compression.level";
+    String ENV_KEY_COMPRESSION_ZSTD_LEVEL    = "http.compression.zstd-level";
+    String ENV_KEY_COMPRESSION_MIN_SIZE      = "http.compression.min-size";
+    String ENV_KEY_COMPRESSION_CONTENT_TYPES = "http.compression.content-types";
     String ENV_KEY_CORS_ENABLE               = "http.cors.enable";
     String ENV_KEY_SESSION_KEY               = "http.session.key";
     String ENV_KEY_SESSION_TIMEOUT           = "http.session.timeout";
@@ -68,15 +74,50 @@ public interface Const {
     String ENV_KEY_STATIC_DIRS               = "mvc.statics";
     String ENV_KEY_STATIC_LIST               = "mvc.statics.show-list";
     String ENV_KEY_TEMPLATE_PATH             = "mvc.template.path";
+    String ENV_KEY_ROUTE_CACHE_SIZE          = "mvc.route.cache-size";
     String ENV_KEY_SERVER_ADDRESS            = "server.address";
     String ENV_KEY_SERVER_PORT               = "server.port";
+    String ENV_KEY_UNIX_SOCKET_PATH          = "server.unix-socket.path";
+    String ENV_KEY_UNIX_SOCKET_ONLY          = "server.unix-socket.only";
+    String ENV_KEY_UNIX_SOCKET_TRUST_FORWARD = "server.unix-socket.trust-forwarded";
+    String ENV_KEY_TRUSTED_PROXIES           = "server.trusted-proxies";
     String ENV_KEY_PERFORMANCE               = "server.performance";
+    String ENV_KEY_SERVER_EXECUTOR           = "server.executor";
     String ENV_KEY_SSL                       = "server.ssl.enable";
     String ENV_KEY_SSL_CERT                  = "server.ssl.cert-path";
     String ENE_KEY_SSL_PRIVATE_KEY           = "server.ssl.private-key-path";
     String ENE_KEY_SSL_PRIVATE_KEY_PASS      = "server.ssl.private-key-pass";
+    String ENV_KEY_SSL_PROVIDER              = "server.ssl.provider";
+    String ENV_KEY_SSL_SESSION_CACHE_SIZE    = "server.ssl.session-cache-size";
+    String ENV_KEY_SSL_SESSION_TIMEOUT       = "server.ssl.session-timeout";
+    String ENV_KEY_SSL_TICKET_KEY_ROTATION   = "server.ssl.ticket-key-rotation";
+    String ENV_KEY_SSL_RELOAD_INTERVAL       = "server.ssl.reload-interval";
+    String ENV_KEY_HTTP2_ENABLE              = "server.http2.enable";
+    String ENV_KEY_HTTP2_MAX_STREAMS         = "server.http2.max-concurrent-streams";
+    String ENV_KEY_HTTP2_WINDOW_SIZE         = "server.http2.initial-window-size";
+    String ENV_KEY_HTTP2_HEADER_TABLE_SIZE   = "server.http2.header-table-size";
     String ENC_KEY_NETTY_ACCEPT_THREAD_COUNT = "server.netty.accept-thread-count";
     String ENV_KEY_NETTY_IO_THREAD_COUNT     = "server.netty.io-thread-count";
+    String ENV_KEY_NETTY_HANDLER_MODE        = "server.netty.handler-mode";
+    String ENV_KEY_NETTY_HANDLER_THREADS     = "server.netty.handler-thread-count";
+    String ENV_KEY_NETTY_HANDLER_QUEUE_SIZE  = "server.netty.handler-queue-size";
+    String ENV_KEY_NETTY_MAX_CONTENT_LENGTH  = "server.netty.max-content-length";
+    String ENV_KEY_NETTY_LEAK_DETECTION      = "server.netty.leak-detection";
+    String ENV_KEY_NETTY_TRANSPORT           = "server.netty.transport";
+    String ENV_KEY_NETTY_REUSE_PORT          = "server.netty.reuse-port";
+    String ENV_KEY_NETTY_FLUSH_CONSOLIDATION = "server.netty.flush-consolidation";
+    String ENV_KEY_NETTY_MAX_PIPELINED       = "server.netty.max-pipelined-requests";
+    String ENV_KEY_LIMITER_ENABLE            = "server.limiter.enable";
+    String ENV_KEY_LIMITER_INITIAL_LIMIT     = "server.limiter.initial-limit";
+    String ENV_KEY_LIMITER_MIN_LIMIT         = "server.limiter.min-limit";
+    String ENV_KEY_LIMITER_MAX_LIMIT         = "server.limiter.max-limit";
+    String ENV_KEY_LIMITER_ROUTE             = "server.limiter.route";
+    String ENV_KEY_LIMITER_EXCLUDE           = "server.limiter.exclude";
+    String ENV_KEY_LIMITER_RETRY_AFTER       = "server.limiter.retry-after";
+    String ENV_KEY_ASYNC_TIMEOUT             = "server.async.timeout";
+    String ENV_KEY_SSE_HEARTBEAT             = "server.sse.heartbeat";
+    String ENV_KEY_SSE_MAX_PENDING           = "server.sse.max-pending-events";
+    String ENV_KEY_SSE_OVERFLOW              = "server.sse.overflow-policy";
 
     String ENV_KEY_BOOT_CONF        = "boot_conf";
     String ENV_KEY_AUTO_REFRESH_DIR = "app.auto.refresh.dir";
@@ -84,6 +125,41 @@ public interface Const {
     // netty default config
     int DEFAULT_ACCEPT_THREAD_COUNT = 1;
     int DEFAULT_IO_THREAD_COUNT     = 0;
+    int DEFAULT_HANDLER_THREADS     = Runtime.getRuntime().availableProcessors() * 4;
+    int DEFAULT_HANDLER_QUEUE_SIZE  = 1024;
+    int DEFAULT_FLUSH_CONSOLIDATION = 256;
+    int DEFAULT_MAX_PIPELINED       = 16;
+    int DEFAULT_ASYNC_TIMEOUT       = 30000;
+
+    // http2 default settings
+    int DEFAULT_HTTP2_MAX_STREAMS       = 100;
+    int DEFAULT_HTTP2_WINDOW_SIZE       = 65535;
+    int DEFAULT_HTTP2_HEADER_TABLE_SIZE = 4096;
+
+    // ssl default settings, in seconds
+    int DEFAULT_SSL_SESSION_CACHE_SIZE  = 20480;
+    int DEFAULT_SSL_SESSION_TIMEOUT     = 300;
+    int DEFAULT_SSL_TICKET_KEY_ROTATION = 3600;
+    int DEFAULT_SSL_RELOAD_INTERVAL     = 60;
+
+    // response compression default settings
+    String DEFAULT_COMPRESSION_ENCODINGS     = "zstd,gzip,deflate";
+    int    DEFAULT_COMPRESSION_LEVEL         = 6;
+    int    DEFAULT_COMPRESSION_ZSTD_LEVEL    = 3;
+    int    DEFAULT_COMPRESSION_MIN_SIZE      = 1024;
+    String DEFAULT_COMPRESSION_CONTENT_TYPES = "text/,application/json,application/javascript,application/xml,application/xhtml+xml,image/svg+xml";
+
+    // concurrency limiter default settings
+    int    DEFAULT_LIMITER_INITIAL_LIMIT = 20;
+    int    DEFAULT_LIMITER_MIN_LIMIT     = 4;
+    int    DEFAULT_LIMITER_MAX_LIMIT     = 1000;
+    String DEFAULT_LIMITER_EXCLUDE       = "/health";
+    int    DEFAULT_LIMITER_RETRY_AFTER   = 1;
+
+    // server-sent events default settings
+    int    DEFAULT_SSE_HEARTBEAT   = 15;
+    int    DEFAULT_SSE_MAX_PENDING = 1024;
+    String DEFAULT_SSE_OVERFLOW    = "close";
 
     /**
      * A request processing ends the elapsed time, in milliseconds.
@@ -19,13 +19,17 @@ import com.blade.mvc.http.Body;
 import com.blade.mvc.http.Request;
 import com.blade.mvc.http.Response;
 import com.blade.mvc.http.Session;
+import com.blade.mvc.http.SseBody;
+import com.blade.mvc.http.SseEmitter;
 import com.blade.mvc.route.Route;
+import com.blade.mvc.route.RouteMatch;
 import com.blade.mvc.ui.ModelAndView;
-import lombok.var;
 
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 import static com.blade.mvc.handler.RouteActionArguments.getRouteActionParameters;
 
@@ -46,7 +50,9 @@ public class RouteContext {
     private Object[] routeActionParameters;
     private boolean  abort;
 
-    private static final String LAMBDA_IDENTIFY = "$$Lambda$";
+    private CompletionStage<?> asyncResult;
+    private long               asyncTimeout;
+
 
     public RouteContext() {
     }
@@ -465,6 +471,59 @@ public class RouteContext {
         return this;
     }
 
+    /**
+     * Answer with a server-sent event stream, it stays open until the emitter or the client closes it.
+     * The handler is called once the response head is written, the emitter can be kept to send from any thread.
+     *
+     * @param handler receives the emitter of this connection
+     * @return RouteContext
+     */
+    public RouteContext sse(Consumer<SseEmitter> handler) {
+        this.response.body(new SseBody(handler));
+        return this;
+    }
+
+    /**
+     * Complete the request asynchronously, the thread is released while the stage runs
+     * and the response is written when it completes.
+     * <p>
+     * The completed value becomes the response: a {@link Body} is sent as it is, any other object as json,
+     * null keeps what the route set. A failed stage goes to the exception handler.
+     * The WebContext is bound to the completing thread while the response is written,
+     * after the timeout the request is answered with 503 and the stage must not use this context any more.
+     *
+     * @param stage result of the route
+     * @return RouteContext
+     */
+    public RouteContext async(CompletionStage<?> stage) {
+        return this.async(stage, null != route ? route.getAsyncTimeout() : 0);
+    }
+
+    /**
+     * Complete the request asynchronously, see {@link #async(CompletionStage)}
+     *
+     * @param stage   result of the route
+     * @param timeout timeout in milliseconds, 0 means server.async.timeout
+     * @return RouteContext
+     */
+    public RouteContext async(CompletionStage<?> stage, long timeout) {
+        this.asyncResult = stage;
+        this.asyncTimeout = timeout;
+        return this;
+    }
+
+    public boolean isAsync() {
+        return null != this.asyncResult;
+    }
+
+    public CompletionStage<?> asyncResult() {
+        return this.asyncResult;
+    }
+
+    public long asyncTimeout() {
+        return this.asyncTimeout;
+    }
+
     /**
      * Add Cookie
      *
@@ -574,14 +633,44 @@ public class RouteContext {
         return this.abort;
     }
 
+    /**
+     * Rebind this context to another request, used by the pooled {@link WebContext}
+     *
+     * @param request  current request, null when the context is recycled
+     * @param response current response, null when the context is recycled
+     */
+    void reset(Request request, Response response) {
+        this.request = request;
+        this.response = response;
+        this.route = null;
+        this.routeActionParameters = null;
+        this.abort = false;
+        this.asyncResult = null;
+        this.asyncTimeout = 0;
+    }
+
+    /**
+     * @param route route
+     * @deprecated use {@link #initRoute(RouteMatch)}, the path params of the request are not in the route
+     */
+    @Deprecated
     public void initRoute(Route route) {
         this.request.initPathParams(route);
         this.route = route;
     }
 
+    /**
+     * Bind the matched route and its path params to this request
+     *
+     * @param match route match of this request
+     */
+    public void initRoute(RouteMatch match) {
+        this.request.initPathParams(match);
+        this.route = match.getRoute();
+    }
+
     public void injectParameters() {
-        var action = routeAction();
-        if (null != action && !action.getDeclaringClass().getName().contains(LAMBDA_IDENTIFY)) {
+        if (this.route.getPlan().isInjectParameters()) {
             this.routeActionParameters = getRouteActionParameters(this);
         }
     }
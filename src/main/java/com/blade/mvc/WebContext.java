@@ -17,10 +17,14 @@ package com.blade.mvc;
 
 import com.blade.Blade;
 import com.blade.Environment;
+import com.blade.mvc.http.HttpRequest;
+import com.blade.mvc.http.HttpResponse;
 import com.blade.mvc.http.Request;
 import com.blade.mvc.http.Response;
 import com.blade.mvc.route.Route;
+import com.blade.mvc.route.RouteMatch;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Recycler;
 import lombok.NoArgsConstructor;
 import lombok.var;
 
@@ -66,10 +70,26 @@ public class WebContext {
      */
     private Response response;
 
-    private Route route;
+    private RouteMatch routeMatch;
 
     private ChannelHandlerContext channelHandlerContext;
 
+    /**
+     * Route context of this request, kept with the pooled WebContext
+     */
+    private RouteContext routeContext;
+
+    private Recycler.Handle<WebContext> handle;
+
+    private static final Recycler<WebContext> RECYCLER = new Recycler<WebContext>() {
+        @Override
+        protected WebContext newObject(Handle<WebContext> handle) {
+            WebContext webContext = new WebContext();
+            webContext.handle = handle;
+            return webContext;
+        }
+    };
+
     public WebContext(Request request, Response response,
                       ChannelHandlerContext channelHandlerContext) {
 
@@ -124,11 +144,68 @@ public class WebContext {
     }
 
     public Route getRoute() {
-        return route;
+        return null != routeMatch ? routeMatch.getRoute() : null;
     }
 
     public void setRoute(Route route) {
-        this.route = route;
+        this.routeMatch = null != route ? RouteMatch.of(route) : null;
+    }
+
+    /**
+     * Get the route of this request with its path params
+     *
+     * @return return RouteMatch, null if the route is not found yet
+     */
+    public RouteMatch getRouteMatch() {
+        return routeMatch;
+    }
+
+    public void setRouteMatch(RouteMatch routeMatch) {
+        this.routeMatch = routeMatch;
+    }
+
+    /**
+     * Get the route context of this request, created once per pooled WebContext
+     *
+     * @return return RouteContext
+     */
+    public RouteContext routeContext() {
+        if (null == this.routeContext) {
+            this.routeContext = new RouteContext(this.request, this.response);
+        }
+        return this.routeContext;
+    }
+
+    /**
+     * Whether the route completes the request asynchronously, see {@link RouteContext#async(java.util.concurrent.CompletionStage)}
+     *
+     * @return return the response is written when the route result completes
+     */
+    public boolean isAsync() {
+        return null != this.routeContext && this.routeContext.isAsync();
+    }
+
+    /**
+     * Reset the request, response and route context and return them to their pools,
+     * called when the response has been written. Nothing of this request may be used after it.
+     */
+    public void recycle() {
+        if (this.request instanceof HttpRequest) {
+            ((HttpRequest) this.request).recycle();
+        }
+        if (this.response instanceof HttpResponse) {
+            ((HttpResponse) this.response).recycle();
+        }
+        if (null != this.routeContext) {
+            this.routeContext.reset(null, null);
+        }
+        this.request = null;
+        this.response = null;
+        this.routeMatch = null;
+        this.channelHandlerContext = null;
+        if (null != this.handle) {
+            this.handle.recycle(this);
+        }
     }
 
     /**
@@ -173,10 +250,13 @@ public class WebContext {
     }
 
     public static WebContext create(Request request, Response response, ChannelHandlerContext ctx) {
-        WebContext webContext = new WebContext();
+        WebContext webContext = RECYCLER.get();
         webContext.request = request;
         webContext.response = response;
         webContext.channelHandlerContext = ctx;
+        if (null != webContext.routeContext) {
+            webContext.routeContext.reset(request, response);
+        }
         WEB_CONTEXT_THREAD_LOCAL.set(webContext);
         return webContext;
     }
@@ -0,0 +1,27 @@
+package com.blade.mvc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limit how long an asynchronous route method (or every route of a controller) may take to complete,
+ * it overrides server.async.timeout (default 30000).
+ * <p>
+ * A route is asynchronous when it returns a {@link java.util.concurrent.CompletionStage}
+ * or calls {@link com.blade.mvc.RouteContext#async(java.util.concurrent.CompletionStage)},
+ * when the stage does not complete in time the request is answered with 503.
+ *
+ * @since 2.0.15
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface AsyncTimeout {
+
+    /**
+     * @return timeout in milliseconds
+     */
+    long value();
+
+}
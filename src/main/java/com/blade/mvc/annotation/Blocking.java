@@ -0,0 +1,20 @@
+package com.blade.mvc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a route method (or every route of a controller) as blocking,
+ * the route will be executed on the handler thread pool instead of the netty event loop.
+ * <p>
+ * Takes effect when server.netty.handler-mode is blocking (the default).
+ *
+ * @since 2.0.15
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Blocking {
+
+}
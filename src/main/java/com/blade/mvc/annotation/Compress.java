@@ -0,0 +1,30 @@
+package com.blade.mvc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Response compression of a route method (or every route of a controller),
+ * it overrides http.compression.min-size, or turns compression off for the route.
+ * <p>
+ * The content type allowlist (http.compression.content-types) still applies.
+ *
+ * @since 2.0.15
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Compress {
+
+    /**
+     * @return whether the responses of the route are compressed
+     */
+    boolean value() default true;
+
+    /**
+     * @return min response body bytes to compress, -1 means http.compression.min-size
+     */
+    int minSize() default -1;
+
+}
@@ -0,0 +1,26 @@
+package com.blade.mvc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limit the request body size of a route method (or every route of a controller),
+ * it overrides server.netty.max-content-length.
+ * <p>
+ * A request whose Content-Length exceeds the limit is answered with 413 before the body is read,
+ * a chunked request is answered with 413 as soon as the received bytes exceed the limit.
+ *
+ * @since 2.0.15
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface MaxContentLength {
+
+    /**
+     * @return max request body bytes
+     */
+    long value();
+
+}
@@ -11,9 +11,10 @@ import com.blade.mvc.http.Request;
 import com.blade.mvc.http.Response;
 import com.blade.mvc.http.Session;
 import com.blade.mvc.multipart.FileItem;
+import com.blade.mvc.route.RoutePlan;
 import com.blade.mvc.ui.ModelAndView;
-import com.blade.reflectasm.ASMUtils;
 
+import java.io.InputStream;
 import java.lang.reflect.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -30,13 +31,12 @@ import java.util.stream.Collectors;
 public final class RouteActionArguments {
 
     public static Object[] getRouteActionParameters(RouteContext context) {
-        Method  actionMethod = context.routeAction();
-        Request request      = context.request();
-        actionMethod.setAccessible(true);
+        RoutePlan plan    = context.route().getPlan();
+        Request   request = context.request();
 
-        Parameter[] parameters     = actionMethod.getParameters();
+        Parameter[] parameters     = plan.parameters();
         Object[]    args           = new Object[parameters.length];
-        String[]    parameterNames = ASMUtils.findMethodParmeterNames(actionMethod);
+        String[]    parameterNames = plan.parameterNames();
 
         for (int i = 0, len = parameters.length; i < len; i++) {
             Parameter parameter = parameters[i];
@@ -72,6 +72,8 @@ public final class RouteActionArguments {
             return context.request();
         } else if (argType == Response.class) {
             return context.response();
+        } else if (argType == InputStream.class) {
+            return context.request().bodyStream();
         } else if (argType == Session.class || argType == HttpSession.class) {
             return context.request().session();
         } else if (argType == FileItem.class) {
@@ -2,6 +2,8 @@ package com.blade.mvc.handler;
 
 import com.blade.Blade;
 import com.blade.kit.ReflectKit;
+import com.blade.kit.invoke.Invoker;
+import com.blade.kit.invoke.Invokers;
 import com.blade.mvc.annotation.OnClose;
 import com.blade.mvc.annotation.OnMessage;
 import com.blade.mvc.annotation.OnOpen;
@@ -10,7 +12,6 @@ import io.netty.util.concurrent.FastThreadLocal;
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.List;
@@ -27,7 +28,7 @@ import java.util.stream.Stream;
 public final class WebSocketHandlerWrapper implements WebSocketHandler {
 
     private final Map<String,Class<?>> handlers = new HashMap<>(4);
-    private final Map<String, Map<Class<? extends Annotation>, Method>> methodCache = new HashMap<>(4);
+    private final Map<String, Map<Class<? extends Annotation>, EventMethod>> methodCache = new HashMap<>(4);
     private final FastThreadLocal<String> path = new FastThreadLocal<>();
     private final Blade blade;
 
@@ -51,7 +52,7 @@ public final class WebSocketHandlerWrapper implements WebSocketHandler {
      */
     public void wrapHandler(String path, Class<?> handler) {
         Method[] methods = handler.getMethods();
-        Map<Class<? extends Annotation>, Method> cache = new HashMap<>(3);
+        Map<Class<? extends Annotation>, EventMethod> cache = new HashMap<>(3);
         cacheMethod(cache, methods, OnOpen.class);
         cacheMethod(cache, methods, OnMessage.class);
         cacheMethod(cache, methods, OnClose.class);
@@ -63,12 +64,12 @@ public final class WebSocketHandlerWrapper implements WebSocketHandler {
         }
     }
 
-    private static void cacheMethod(Map<Class<? extends Annotation>, Method> cache, Method[] methods, Class<? extends Annotation> filter) {
+    private static void cacheMethod(Map<Class<? extends Annotation>, EventMethod> cache, Method[] methods, Class<? extends Annotation> filter) {
         List<Method> methodList = Stream.of(methods)
                 .filter(method -> method.isAnnotationPresent(filter))
                 .collect(Collectors.toList());
         if (methodList.size() == 1) {
-            cache.put(filter, methodList.get(0));
+            cache.put(filter, new EventMethod(methodList.get(0)));
         } else if (methodList.size() > 1) {
             throw new RuntimeException("Duplicate annotation @" + filter.getSimpleName() + " in class: " + methodList.get(0).getDeclaringClass().getName());
         }
@@ -96,11 +97,11 @@ public final class WebSocketHandlerWrapper implements WebSocketHandler {
      * @param event WebSocket event type
      */
     private void invoke(WebSocketContext ctx, Class<? extends Annotation> event) {
-        Map<Class<? extends Annotation>, Method> methodCache = this.methodCache.get(path.get());
+        Map<Class<? extends Annotation>, EventMethod> methodCache = this.methodCache.get(path.get());
         if (methodCache != null) {
-            Method method = methodCache.get(event);
+            EventMethod method = methodCache.get(event);
             if (method != null) {
-                Class<?>[] paramTypes = method.getParameterTypes();
+                Class<?>[] paramTypes = method.paramTypes;
                 Object[] param = new Object[paramTypes.length];
                 try {
                     for (int i = 0; i < paramTypes.length; i++) {
@@ -116,11 +117,27 @@ public final class WebSocketHandlerWrapper implements WebSocketHandler {
                             }
                         }
                     }
-                    method.invoke(blade.getBean(handlers.get(path.get())), param);
-                } catch (IllegalAccessException | InvocationTargetException e) {
+                    method.invoker.invoke(blade.getBean(handlers.get(path.get())), param);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
                     throw new RuntimeException(e);
                 }
             }
         }
     }
+
+    /**
+     * An event method and its invoker, made when the handler is wrapped
+     */
+    private static final class EventMethod {
+
+        private final Class<?>[] paramTypes;
+        private final Invoker    invoker;
+
+        EventMethod(Method method) {
+            this.paramTypes = method.getParameterTypes();
+            this.invoker = Invokers.create(method);
+        }
+    }
 }
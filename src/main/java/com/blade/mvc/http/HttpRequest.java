@@ -25,9 +25,11 @@ import com.blade.mvc.handler.SessionHandler;
 import com.blade.mvc.http.session.SessionManager;
 import com.blade.mvc.multipart.FileItem;
 import com.blade.mvc.route.Route;
+import com.blade.mvc.route.RouteMatch;
 import com.blade.server.netty.HttpConst;
 import com.blade.server.netty.HttpServerHandler;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -45,17 +47,20 @@ import io.netty.handler.codec.http.multipart.HttpDataFactory;
 import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
 import io.netty.handler.codec.http.multipart.InterfaceHttpData;
 import io.netty.util.CharsetUtil;
+import io.netty.util.Recycler;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import lombok.var;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -76,7 +81,12 @@ public class HttpRequest implements Request {
     private static final HttpDataFactory HTTP_DATA_FACTORY =
             new DefaultHttpDataFactory(true); // Disk if size exceed
 
-    private static final ByteBuf EMPTY_BUF = Unpooled.copiedBuffer("", CharsetUtil.UTF_8);
+    private static final Recycler<HttpRequest> RECYCLER = new Recycler<HttpRequest>() {
+        @Override
+        protected HttpRequest newObject(Handle<HttpRequest> handle) {
+            return new HttpRequest(handle);
+        }
+    };
 
     private static final SessionHandler SESSION_HANDLER = new SessionHandler(WebContext.blade());
 
@@ -87,7 +97,7 @@ public class HttpRequest implements Request {
         DiskAttribute.baseDirectory = null;              // system temp directory
     }
 
-    private ByteBuf body = EMPTY_BUF;
+    private ByteBuf body = Unpooled.EMPTY_BUFFER;
     private String remoteAddress;
     private String uri;
     private String url;
@@ -110,19 +120,26 @@ public class HttpRequest implements Request {
 
     private Queue<HttpContent> contents = new LinkedList<>();
 
+    private RequestBodyStream bodyStream;
+    private boolean           payloadTooLarge;
+
     private Map<String, String> headers = null;
     private Map<String, Object> attributes = null;
     private Map<String, String> pathParams = null;
-    private Map<String, List<String>> parameters = new HashMap<>(8);
-    private Map<String, Cookie> cookies = new HashMap<>(8);
-    private Map<String, FileItem> fileItems = new HashMap<>(8);
+    private RouteMatch routeMatch;
+    private Map<String, List<String>> parameters = null;
+    private Map<String, Cookie> cookies = null;
+    private Map<String, FileItem> fileItems = null;
+
+    private Recycler.Handle<HttpRequest> handle;
 
     public HttpRequest(Request request) {
         this.pathParams = request.pathParams();
-        this.cookies = request.cookies();
+        this.cookies = new HashMap<>(request.cookies());
+        this.initCookie = true;
         this.attributes = request.attributes();
         this.body = request.body();
-        this.fileItems = request.fileItems();
+        this.fileItems = new HashMap<>(request.fileItems());
         this.headers = request.headers();
         this.keepAlive = request.keepAlive();
         this.method = request.method();
@@ -133,17 +150,47 @@ public class HttpRequest implements Request {
             this.uri = pathEndPos < 0 ? this.url : this.url.substring(0, pathEndPos);
         }
 
-        this.parameters = request.parameters();
+        this.parameters = new HashMap<>(request.parameters());
+        this.initQueryParam = true;
         this.protocol = request.protocol();
     }
 
+    private HttpRequest(Recycler.Handle<HttpRequest> handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * Get a pooled request, it goes back to the pool by {@link #recycle()}
+     * once its response has been written.
+     *
+     * @return return HttpRequest instance
+     */
+    public static HttpRequest newInstance() {
+        return RECYCLER.get();
+    }
+
     @Override
+    @Deprecated
     public Request initPathParams(@NonNull Route route) {
         if (null != route.getPathParams())
             this.pathParams = route.getPathParams();
         return this;
     }
 
+    @Override
+    public Request initPathParams(@NonNull RouteMatch match) {
+        this.routeMatch = match;
+        this.pathParams = null;
+        return this;
+    }
+
+    /**
+     * @return return the route match found before the request is merged, null if it was not looked up or not found
+     */
+    public RouteMatch routeMatch() {
+        return this.routeMatch;
+    }
+
     @Override
     public String host() {
         return this.header("Host");
@@ -171,9 +218,20 @@ public class HttpRequest implements Request {
 
     @Override
     public Map<String, String> pathParams() {
+        if (null == this.pathParams && null != this.routeMatch) {
+            this.pathParams = this.routeMatch.pathParams();
+        }
         return this.pathParams;
     }
 
+    @Override
+    public String pathString(@NonNull String name) {
+        if (null == this.pathParams && null != this.routeMatch) {
+            return this.routeMatch.pathParam(name);
+        }
+        return this.pathParams().get(name);
+    }
+
     @Override
     public String queryString() {
         if (null == url || !url.contains("?")) {
@@ -189,14 +247,19 @@ public class HttpRequest implements Request {
         }
 
         initQueryParam = true;
-        if (!url.contains("?")) {
+        if (url.indexOf('?') < 0) {
+            if (null == this.parameters) {
+                this.parameters = Collections.emptyMap();
+            }
             return this.parameters;
         }
 
         var parameters =
                 new QueryStringDecoder(url, CharsetUtil.UTF_8).parameters();
 
-        if (null != parameters) {
+        if (null == this.parameters) {
+            this.parameters = parameters;
+        } else {
             this.parameters.putAll(parameters);
         }
         return this.parameters;
@@ -204,12 +267,12 @@ public class HttpRequest implements Request {
 
     @Override
     public Set<String> parameterNames() {
-        return this.parameters.keySet();
+        return this.parameters().keySet();
     }
 
     @Override
     public List<String> parameterValues(String paramName) {
-        return this.parameters.get(paramName);
+        return this.parameters().get(paramName);
     }
 
     @Override
@@ -264,7 +327,7 @@ public class HttpRequest implements Request {
                 ServerCookieDecoder.LAX.decode(cookie).forEach(this::parseCookie);
             }
         }
-        return this.cookies;
+        return null != this.cookies ? this.cookies : Collections.emptyMap();
     }
 
     @Override
@@ -274,7 +337,8 @@ public class HttpRequest implements Request {
 
     @Override
     public Request cookie(@NonNull Cookie cookie) {
-        this.cookies().put(cookie.name(), cookie);
+        this.cookies();
+        this.putCookie(cookie);
         return this;
     }
 
@@ -304,7 +368,7 @@ public class HttpRequest implements Request {
 
     @Override
     public Map<String, FileItem> fileItems() {
-        return fileItems;
+        return null != this.fileItems ? this.fileItems : Collections.emptyMap();
     }
 
     @Override
@@ -322,10 +386,100 @@ public class HttpRequest implements Request {
         return isMultipart;
     }
 
+    @Override
+    public InputStream bodyStream() {
+        return null != this.bodyStream ? this.bodyStream : Request.super.bodyStream();
+    }
+
+    public io.netty.handler.codec.http.HttpRequest nettyRequest() {
+        return this.nettyRequest;
+    }
+
     public void setNettyRequest(io.netty.handler.codec.http.HttpRequest nettyRequest) {
         this.nettyRequest = nettyRequest;
     }
 
+    public void setBodyStream(RequestBodyStream bodyStream) {
+        this.bodyStream = bodyStream;
+    }
+
+    /**
+     * The body exceeds the size limit, the request is answered with 413 in its turn and not routed
+     *
+     * @return return whether the body of the request is rejected
+     */
+    public boolean isPayloadTooLarge() {
+        return this.payloadTooLarge;
+    }
+
+    public void setPayloadTooLarge(boolean payloadTooLarge) {
+        this.payloadTooLarge = payloadTooLarge;
+    }
+
+    /**
+     * Release the contents received so far, the body of the request will not be read
+     */
+    public void releaseContents() {
+        HttpContent content;
+        while (null != (content = this.contents.poll())) {
+            content.release();
+        }
+    }
+
+    /**
+     * Release the body and the decoder buffers,
+     * called once the response of this request has been written.
+     */
+    public void release() {
+        this.releaseContents();
+        if (null != this.decoder) {
+            this.decoder.destroy();
+            this.decoder = null;
+        }
+        if (this.body.refCnt() > 0 && this.body != Unpooled.EMPTY_BUFFER) {
+            this.body.release();
+        }
+        this.body = Unpooled.EMPTY_BUFFER;
+    }
+
+    /**
+     * Reset this request and return it to the pool,
+     * it must not be used after the call.
+     */
+    public void recycle() {
+        this.release();
+        // a streaming body nobody is going to read, its queued chunks are released
+        if (null != this.bodyStream) {
+            this.bodyStream.close();
+        }
+        this.remoteAddress = null;
+        this.uri = null;
+        this.url = null;
+        this.protocol = null;
+        this.method = null;
+        this.keepAlive = false;
+        this.session = null;
+        this.isMultipart = false;
+        this.isEnd = false;
+        this.initCookie = false;
+        this.initQueryParam = false;
+        this.partialContent = null;
+        this.httpHeaders = null;
+        this.nettyRequest = null;
+        this.bodyStream = null;
+        this.payloadTooLarge = false;
+        this.headers = null;
+        this.attributes = null;
+        this.pathParams = null;
+        this.routeMatch = null;
+        this.parameters = null;
+        this.cookies = null;
+        this.fileItems = null;
+        if (null != this.handle) {
+            this.handle.recycle(this);
+        }
+    }
+
     public void appendContent(HttpContent msg) {
         this.contents.add(msg.retain());
         if (msg instanceof LastHttpContent) {
@@ -334,7 +488,7 @@ public class HttpRequest implements Request {
     }
 
     public void init(String remoteAddress) {
-        this.remoteAddress = remoteAddress.substring(1);
+        this.remoteAddress = remoteAddress;
         this.keepAlive = HttpUtil.isKeepAlive(nettyRequest);
         this.url = nettyRequest.uri();
 
@@ -358,27 +512,35 @@ public class HttpRequest implements Request {
             }
         }
 
-        if ("GET".equals(this.method())) {
+        // the streaming body is read by the route itself
+        if ("GET".equals(this.method()) || null != this.bodyStream) {
             return;
         }
 
         try {
-            HttpPostRequestDecoder decoder = new HttpPostRequestDecoder(HTTP_DATA_FACTORY, nettyRequest);
+            // the body is a view over the received chunks, nothing is copied,
+            // it is released together with the request after the response is written
+            CompositeByteBuf compositeBody = null;
+            this.decoder = new HttpPostRequestDecoder(HTTP_DATA_FACTORY, nettyRequest);
             this.isMultipart = decoder.isMultipart();
 
-            List<ByteBuf> byteBuffs = new ArrayList<>(this.contents.size());
-
-            for (HttpContent content : this.contents) {
-                if (!isMultipart) {
-                    byteBuffs.add(content.content().copy());
+            HttpContent content;
+            while (null != (content = this.contents.poll())) {
+                try {
+                    if (!isMultipart && content.content().isReadable()) {
+                        if (null == compositeBody) {
+                            compositeBody = content.content().alloc().compositeBuffer(Integer.MAX_VALUE);
+                        }
+                        compositeBody.addComponent(true, content.content().retainedDuplicate());
+                    }
+                    decoder.offer(content);
+                    this.readHttpDataChunkByChunk(decoder);
+                } finally {
+                    content.release();
                 }
-
-                decoder.offer(content);
-                this.readHttpDataChunkByChunk(decoder);
-                content.release();
             }
-            if (!byteBuffs.isEmpty()) {
-                this.body = Unpooled.copiedBuffer(byteBuffs.toArray(new ByteBuf[0]));
+            if (null != compositeBody) {
+                this.body = compositeBody;
             }
         } catch (Exception e) {
             throw new HttpParseException("build decoder fail", e);
@@ -434,15 +596,11 @@ public class HttpRequest implements Request {
         var name = attribute.getName();
         var value = attribute.getValue();
 
-        List<String> values;
-        if (this.parameters.containsKey(name)) {
-            values = this.parameters.get(name);
-            values.add(value);
-        } else {
-            values = new ArrayList<>();
-            values.add(value);
-            this.parameters.put(name, values);
+        // the query parameters may be an immutable empty map
+        if (null == this.parameters || this.parameters.isEmpty()) {
+            this.parameters = new HashMap<>(8);
         }
+        this.parameters.computeIfAbsent(name, k -> new ArrayList<>(1)).add(value);
     }
 
     /**
@@ -472,7 +630,10 @@ public class HttpRequest implements Request {
         fileItem.setContentType(fileUpload.getContentType());
         fileItem.setLength(fileUpload.length());
 
-        fileItems.put(fileItem.getName(), fileItem);
+        if (null == this.fileItems) {
+            this.fileItems = new HashMap<>(4);
+        }
+        this.fileItems.put(fileItem.getName(), fileItem);
     }
 
     /**
@@ -488,6 +649,13 @@ public class HttpRequest implements Request {
         cookie.path(nettyCookie.path());
         cookie.domain(nettyCookie.domain());
         cookie.maxAge(nettyCookie.maxAge());
+        this.putCookie(cookie);
+    }
+
+    private void putCookie(Cookie cookie) {
+        if (null == this.cookies) {
+            this.cookies = new HashMap<>(4);
+        }
         this.cookies.put(cookie.name(), cookie);
     }
 
@@ -2,16 +2,21 @@ package com.blade.mvc.http;
 
 import com.blade.exception.NotFoundException;
 import com.blade.kit.StringKit;
+import com.blade.mvc.WebContext;
 import com.blade.mvc.ui.ModelAndView;
 import com.blade.mvc.wrapper.OutputStreamWrapper;
+import com.blade.server.netty.ChannelOutputStream;
 import com.blade.server.netty.HttpConst;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.DefaultCookie;
+import io.netty.util.Recycler;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
-import java.nio.file.Files;
 import java.util.*;
 
 /**
@@ -23,12 +28,24 @@ import java.util.*;
 @Slf4j
 public class HttpResponse implements Response {
 
-    private Map<String, String> headers = new HashMap<>();
-    private Set<Cookie>         cookies = new HashSet<>();
+    private static final Recycler<HttpResponse> RECYCLER = new Recycler<HttpResponse>() {
+        @Override
+        protected HttpResponse newObject(Handle<HttpResponse> handle) {
+            return new HttpResponse(handle);
+        }
+    };
+
+    private final Recycler.Handle<HttpResponse> handle;
+
+    private final HttpHeaders         headers    = new DefaultHttpHeaders();
+    private final Map<String, String> headersView = new HeadersView(headers);
+    private       Set<Cookie>         cookies     = null;
 
     private int    statusCode  = 200;
     private Body   body;
 
+    private ChannelOutputStream outputStream;
+
     @Override
     public int statusCode() {
         return this.statusCode;
@@ -42,23 +59,28 @@ public class HttpResponse implements Response {
 
     @Override
     public Response contentType(@NonNull String contentType) {
-        this.headers.put("Content-Type", contentType);
+        this.headers.set(HttpConst.CONTENT_TYPE, HttpConst.contentTypeValue(contentType));
         return this;
     }
 
     @Override
     public String contentType() {
-        return this.headers.get("Content-Type");
+        return this.headers.get(HttpConst.CONTENT_TYPE);
     }
 
     @Override
     public Map<String, String> headers() {
+        return this.headersView;
+    }
+
+    @Override
+    public HttpHeaders httpHeaders() {
         return this.headers;
     }
 
     @Override
     public Response header(String name, String value) {
-        this.headers.put(name, value);
+        this.headers.set(name, value);
         return this;
     }
 
@@ -74,13 +96,13 @@ public class HttpResponse implements Response {
         nettyCookie.setPath(cookie.path());
         nettyCookie.setHttpOnly(cookie.httpOnly());
         nettyCookie.setSecure(cookie.secure());
-        this.cookies.add(nettyCookie);
+        this.cookieSet().add(nettyCookie);
         return this;
     }
 
     @Override
     public Response cookie(String name, String value) {
-        this.cookies.add(new io.netty.handler.codec.http.cookie.DefaultCookie(name, value));
+        this.cookieSet().add(new io.netty.handler.codec.http.cookie.DefaultCookie(name, value));
         return this;
     }
 
@@ -89,7 +111,7 @@ public class HttpResponse implements Response {
         Cookie nettyCookie = new io.netty.handler.codec.http.cookie.DefaultCookie(name, value);
         nettyCookie.setPath("/");
         nettyCookie.setMaxAge(maxAge);
-        this.cookies.add(nettyCookie);
+        this.cookieSet().add(nettyCookie);
         return this;
     }
 
@@ -99,7 +121,7 @@ public class HttpResponse implements Response {
         nettyCookie.setPath("/");
         nettyCookie.setMaxAge(maxAge);
         nettyCookie.setSecure(secured);
-        this.cookies.add(nettyCookie);
+        this.cookieSet().add(nettyCookie);
         return this;
     }
 
@@ -109,25 +131,28 @@ public class HttpResponse implements Response {
         nettyCookie.setMaxAge(maxAge);
         nettyCookie.setSecure(secured);
         nettyCookie.setPath(path);
-        this.cookies.add(nettyCookie);
+        this.cookieSet().add(nettyCookie);
         return this;
     }
 
     @Override
     public Response removeCookie(@NonNull String name) {
-        Optional<Cookie> cookieOpt = this.cookies.stream().filter(cookie -> cookie.name().equals(name)).findFirst();
+        Optional<Cookie> cookieOpt = this.cookiesRaw().stream().filter(cookie -> cookie.name().equals(name)).findFirst();
         cookieOpt.ifPresent(cookie -> {
             cookie.setValue("");
             cookie.setMaxAge(-1);
         });
         Cookie nettyCookie = new io.netty.handler.codec.http.cookie.DefaultCookie(name, "");
         nettyCookie.setMaxAge(-1);
-        this.cookies.add(nettyCookie);
+        this.cookieSet().add(nettyCookie);
         return this;
     }
 
     @Override
     public Map<String, String> cookies() {
+        if (null == this.cookies) {
+            return Collections.emptyMap();
+        }
         Map<String, String> map = new HashMap<>(8);
         this.cookies.forEach(cookie -> map.put(cookie.name(), cookie.value()));
         return map;
@@ -135,6 +160,13 @@ public class HttpResponse implements Response {
 
     @Override
     public Set<Cookie> cookiesRaw() {
+        return null != this.cookies ? this.cookies : Collections.emptySet();
+    }
+
+    private Set<Cookie> cookieSet() {
+        if (null == this.cookies) {
+            this.cookies = new HashSet<>(4);
+        }
         return this.cookies;
     }
 
@@ -144,17 +176,30 @@ public class HttpResponse implements Response {
             throw new NotFoundException("Not found file: " + file.getPath());
         }
         String contentType = StringKit.mimeType(file.getName());
-        headers.put("Content-Disposition", "attachment; filename=" + new String(fileName.getBytes("UTF-8"), "ISO8859_1"));
-        headers.put(HttpConst.CONTENT_LENGTH.toString(), String.valueOf(file.length()));
-        headers.put(HttpConst.CONTENT_TYPE_STRING, contentType);
+        headers.set(HttpHeaderNames.CONTENT_DISPOSITION, "attachment; filename=" + new String(fileName.getBytes("UTF-8"), "ISO8859_1"));
+        headers.set(HttpConst.CONTENT_LENGTH, file.length());
+        headers.set(HttpConst.CONTENT_TYPE, contentType);
         this.body = new StreamBody(new FileInputStream(file));
     }
 
     @Override
     public OutputStreamWrapper outputStream() throws IOException {
-        File         file         = Files.createTempFile("blade", ".temp").toFile();
-        OutputStream outputStream = new FileOutputStream(file);
-        return new OutputStreamWrapper(outputStream, file);
+        if (null == this.outputStream) {
+            WebContext webContext = WebContext.get();
+            if (null == webContext) {
+                throw new IllegalStateException("Response outputStream is only available while handling a request");
+            }
+            this.outputStream = new ChannelOutputStream(webContext);
+        }
+        this.body = this.outputStream.body();
+        return new OutputStreamWrapper(this.outputStream);
+    }
+
+    /**
+     * @return return the stream opened by {@link #outputStream()}, null if it was not opened
+     */
+    public ChannelOutputStream channelOutputStream() {
+        return this.outputStream;
     }
 
     @Override
@@ -164,7 +209,7 @@ public class HttpResponse implements Response {
 
     @Override
     public void redirect(@NonNull String newUri) {
-        headers.put(HttpConst.LOCATION.toString(), newUri);
+        headers.set(HttpConst.LOCATION, newUri);
         this.status(302);
     }
 
@@ -177,17 +222,47 @@ public class HttpResponse implements Response {
     }
 
     public HttpResponse(Response response) {
+        this.handle = null;
         this.statusCode = response.statusCode();
         if (null != response.headers()) {
-            response.headers().forEach(this.headers::put);
+            response.headers().forEach(this.headers::set);
         }
         if (null != response.cookies()) {
-            response.cookies().forEach((k, v) -> this.cookies.add(new DefaultCookie(k, v)));
+            response.cookies().forEach((k, v) -> this.cookieSet().add(new DefaultCookie(k, v)));
         }
     }
 
     public HttpResponse() {
+        this.handle = null;
+    }
 
+    private HttpResponse(Recycler.Handle<HttpResponse> handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * Get a pooled response, it goes back to the pool by {@link #recycle()}
+     * once it has been written.
+     *
+     * @return return HttpResponse instance
+     */
+    public static HttpResponse newInstance() {
+        return RECYCLER.get();
+    }
+
+    /**
+     * Reset this response and return it to the pool,
+     * the headers are cleared and kept for the next request.
+     */
+    public void recycle() {
+        this.headers.clear();
+        this.cookies = null;
+        this.statusCode = 200;
+        this.body = null;
+        this.outputStream = null;
+        if (null != this.handle) {
+            this.handle.recycle(this);
+        }
     }
 
     @Override
@@ -204,4 +279,68 @@ public class HttpResponse implements Response {
         return this;
     }
 
-}
\ No newline at end of file
+    /**
+     * Live String map view over the netty headers, names are case insensitive
+     */
+    private static class HeadersView extends AbstractMap<String, String> {
+
+        private final HttpHeaders headers;
+
+        HeadersView(HttpHeaders headers) {
+            this.headers = headers;
+        }
+
+        @Override
+        public String get(Object name) {
+            return name instanceof CharSequence ? headers.get((CharSequence) name) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object name) {
+            return name instanceof CharSequence && headers.contains((CharSequence) name);
+        }
+
+        @Override
+        public String put(String name, String value) {
+            String old = headers.get(name);
+            headers.set(name, value);
+            return old;
+        }
+
+        @Override
+        public String remove(Object name) {
+            if (!(name instanceof CharSequence)) {
+                return null;
+            }
+            String old = headers.get((CharSequence) name);
+            headers.remove((CharSequence) name);
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return headers.size();
+        }
+
+        @Override
+        public void clear() {
+            headers.clear();
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return headers.iteratorAsString();
+                }
+
+                @Override
+                public int size() {
+                    return headers.size();
+                }
+            };
+        }
+    }
+
+}
@@ -7,11 +7,14 @@ import com.blade.mvc.WebContext;
 import com.blade.mvc.handler.RouteActionArguments;
 import com.blade.mvc.multipart.FileItem;
 import com.blade.mvc.route.Route;
+import com.blade.mvc.route.RouteMatch;
 import com.blade.server.netty.HttpConst;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.util.CharsetUtil;
 import lombok.NonNull;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -32,9 +35,29 @@ public interface Request {
      *
      * @param route route object
      * @return Return request
+     * @deprecated use {@link #initPathParams(RouteMatch)}, the path params of the request are not in the route
      */
+    @Deprecated
     Request initPathParams(Route route);
 
+    /**
+     * init request path parameters
+     * <p>
+     * The default implementation passes a copy of the matched route carrying the path params
+     * to {@link #initPathParams(Route)}, the shared route is left untouched.
+     *
+     * @param match route match of this request
+     * @return Return request
+     */
+    @SuppressWarnings("deprecation")
+    default Request initPathParams(RouteMatch match) {
+        Route matched = match.getRoute();
+        Route route   = new Route(matched.getHttpMethod(), matched.getPath(),
+                matched.getTarget(), matched.getTargetType(), matched.getAction());
+        route.setPathParams(match.pathParams());
+        return this.initPathParams(route);
+    }
+
     /**
      * Get client host.
      *
@@ -538,4 +561,14 @@ public interface Request {
         return this.body().toString(CharsetUtil.UTF_8);
     }
 
+    /**
+     * Get current request body as InputStream,
+     * on a route that takes an InputStream parameter the body is read while it is still arriving.
+     *
+     * @return return request body stream
+     */
+    default InputStream bodyStream() {
+        return new ByteBufInputStream(this.body().duplicate());
+    }
+
 }
@@ -0,0 +1,193 @@
+package com.blade.mvc.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request body which is read while it is still arriving.
+ * <p>
+ * The chunks are offered by the event loop and read by the route on the handler thread.
+ * When more than {@link #HIGH_WATER_MARK} bytes wait to be read the channel stops reading the socket,
+ * it resumes when the reader has drained them below {@link #LOW_WATER_MARK}.
+ */
+public class RequestBodyStream extends InputStream {
+
+    public static final int HIGH_WATER_MARK = 256 * 1024;
+    public static final int LOW_WATER_MARK  = 64 * 1024;
+
+    private static final ByteBuf END = Unpooled.EMPTY_BUFFER;
+
+    private final Channel                channel;
+    private final BlockingQueue<ByteBuf> queue   = new LinkedBlockingQueue<>();
+    private final AtomicLong             pending = new AtomicLong();
+
+    private volatile boolean   paused;
+    private volatile boolean   closed;
+    private volatile boolean   ended;
+    private volatile Exception error;
+
+    private ByteBuf current;
+    private boolean eof;
+
+    public RequestBodyStream(Channel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Offer a chunk of the body, called on the event loop.
+     *
+     * @param buf retained chunk, released by the stream
+     */
+    public void offer(ByteBuf buf) {
+        if (closed || !buf.isReadable()) {
+            buf.release();
+            return;
+        }
+        // pause before the chunk is visible, so the reader that takes it also sees the pause
+        if (pending.addAndGet(buf.readableBytes()) > HIGH_WATER_MARK && !paused) {
+            paused = true;
+            channel.config().setAutoRead(false);
+        }
+        queue.add(buf);
+        if (closed) {
+            this.drain();
+        }
+    }
+
+    /**
+     * The last chunk has been offered
+     */
+    public void end() {
+        ended = true;
+        queue.add(END);
+    }
+
+    /**
+     * @return return whether the whole body has arrived
+     */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * The body can not be completed, the reader gets the cause on its next read.
+     * The chunks not read yet are released, the reader may never come for them.
+     *
+     * @param cause IOException or RuntimeException
+     */
+    public void fail(Exception cause) {
+        this.error = cause;
+        this.drain();
+        queue.add(END);
+        channel.eventLoop().execute(this::unpause);
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuf buf = this.next();
+        return null == buf ? -1 : buf.readByte() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuf buf = this.next();
+        if (null == buf) {
+            return -1;
+        }
+        int size = Math.min(len, buf.readableBytes());
+        buf.readBytes(b, off, size);
+        return size;
+    }
+
+    @Override
+    public int available() {
+        return null == current ? 0 : current.readableBytes();
+    }
+
+    /**
+     * Stop reading, the chunks not read yet and the ones still to come are released
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (null != current) {
+            current.release();
+            current = null;
+        }
+        this.drain();
+        channel.eventLoop().execute(this::unpause);
+    }
+
+    private ByteBuf next() throws IOException {
+        while (null == current || !current.isReadable()) {
+            if (null != current) {
+                current.release();
+                current = null;
+            }
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (eof) {
+                return null;
+            }
+            ByteBuf buf;
+            try {
+                buf = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if (buf == END) {
+                eof = true;
+                if (error instanceof IOException) {
+                    throw (IOException) error;
+                }
+                if (null != error) {
+                    throw (RuntimeException) error;
+                }
+                return null;
+            }
+            if (pending.addAndGet(-buf.readableBytes()) < LOW_WATER_MARK && paused) {
+                channel.eventLoop().execute(this::resume);
+            }
+            current = buf;
+        }
+        return current;
+    }
+
+    private void resume() {
+        if (paused && pending.get() < LOW_WATER_MARK) {
+            paused = false;
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    private void unpause() {
+        if (paused) {
+            paused = false;
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    private void drain() {
+        ByteBuf buf;
+        while (null != (buf = queue.poll())) {
+            buf.release();
+        }
+    }
+
+}
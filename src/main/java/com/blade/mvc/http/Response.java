@@ -7,6 +7,8 @@ import com.blade.mvc.Const;
 import com.blade.mvc.WebContext;
 import com.blade.mvc.ui.ModelAndView;
 import com.blade.mvc.wrapper.OutputStreamWrapper;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
 
 import java.io.File;
 import java.io.IOException;
@@ -86,6 +88,20 @@ public interface Response {
      */
     Map<String, String> headers();
 
+    /**
+     * Get current response headers as netty HttpHeaders,
+     * they are written to the channel as they are.
+     *
+     * @return return response headers
+     */
+    default HttpHeaders httpHeaders() {
+        HttpHeaders httpHeaders = new DefaultHttpHeaders();
+        if (null != this.headers()) {
+            this.headers().forEach(httpHeaders::set);
+        }
+        return httpHeaders;
+    }
+
     /**
      * Set current response header
      *
@@ -240,13 +256,14 @@ public interface Response {
     void download(String fileName, File file) throws Exception;
 
     /**
-     * create temp file outputStream
+     * Open the response body as an outputStream, the bytes are written to the connection.
+     * A body up to 8KB gets a Content-Length, a larger one is sent with chunked transfer encoding,
+     * then the status and headers can no longer change. Closing the stream ends the response.
      *
      * @return return OutputStreamWrapper
      * @throws IOException throw IOException
      * @since 2.0.1-alpha3
      */
-    @Deprecated
     OutputStreamWrapper outputStream() throws IOException;
 
     /**
@@ -0,0 +1,34 @@
+package com.blade.mvc.http;
+
+import io.netty.handler.codec.http.FullHttpResponse;
+
+import java.util.function.Consumer;
+
+/**
+ * text/event-stream response body, the connection stays open after the response head
+ */
+public class SseBody implements Body {
+
+    private final Consumer<SseEmitter> handler;
+
+    public SseBody(Consumer<SseEmitter> handler) {
+        this.handler = handler;
+    }
+
+    public static SseBody of(Consumer<SseEmitter> handler) {
+        return new SseBody(handler);
+    }
+
+    /**
+     * @return return the handler called with the emitter once the response head is written
+     */
+    public Consumer<SseEmitter> handler() {
+        return handler;
+    }
+
+    @Override
+    public FullHttpResponse write(BodyWriter writer) {
+        throw new IllegalStateException("Event stream is written by writeResponse");
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.blade.mvc.http;
+
+import java.io.Closeable;
+
+/**
+ * Server-sent events connection, see {@link com.blade.mvc.RouteContext#sse(java.util.function.Consumer)}
+ * <p>
+ * The methods can be called from any thread. Events wait in a bounded queue while the client reads slowly,
+ * when more than server.sse.max-pending-events (default 1024) are waiting,
+ * server.sse.overflow-policy decides:
+ * <ul>
+ * <li>close: the connection is closed, the client reconnects with Last-Event-ID (default)</li>
+ * <li>drop:  the new event is dropped</li>
+ * </ul>
+ * An idle connection gets a comment line every server.sse.heartbeat seconds (default 15, 0 disables),
+ * it keeps proxies from timing the connection out.
+ */
+public interface SseEmitter extends Closeable {
+
+    /**
+     * Send an unnamed event
+     *
+     * @param data event data
+     * @return return false if the event is dropped or the connection is closed
+     */
+    boolean send(String data);
+
+    /**
+     * Send an event
+     *
+     * @param event event
+     * @return return false if the event is dropped or the connection is closed
+     */
+    boolean send(SseEvent event);
+
+    /**
+     * Send a comment, ignored by the browser
+     *
+     * @param comment comment
+     * @return return false if the comment is dropped or the connection is closed
+     */
+    boolean comment(String comment);
+
+    /**
+     * The id of the last event the client received before it reconnected,
+     * the events after it are to be sent again.
+     *
+     * @return return Last-Event-ID header, null on the first connection
+     */
+    String lastEventId();
+
+    boolean isOpen();
+
+    /**
+     * @param callback called once, when the emitter or the client closes the stream
+     * @return return this emitter
+     */
+    SseEmitter onClose(Runnable callback);
+
+    /**
+     * End the event stream, the events already sent are written first
+     */
+    @Override
+    void close();
+
+}
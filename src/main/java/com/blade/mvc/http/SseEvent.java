@@ -0,0 +1,65 @@
+package com.blade.mvc.http;
+
+/**
+ * Server-sent event
+ * <p>
+ * Each line of the data is sent as its own "data:" field,
+ * the browser joins them back with a line feed.
+ */
+public class SseEvent {
+
+    private String id;
+    private String event;
+    private String data;
+    private long   retry = -1;
+
+    public static SseEvent of(String data) {
+        SseEvent sseEvent = new SseEvent();
+        sseEvent.data = data;
+        return sseEvent;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * @param id event id, the client sends it back as Last-Event-ID when it reconnects
+     * @return return this event
+     */
+    public SseEvent id(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public String event() {
+        return event;
+    }
+
+    /**
+     * @param event event name, dispatched to the addEventListener(event) listeners instead of onmessage
+     * @return return this event
+     */
+    public SseEvent event(String event) {
+        this.event = event;
+        return this;
+    }
+
+    public String data() {
+        return data;
+    }
+
+    public long retry() {
+        return retry;
+    }
+
+    /**
+     * @param retry reconnection delay of the client, in milliseconds
+     * @return return this event
+     */
+    public SseEvent retry(long retry) {
+        this.retry = retry;
+        return this;
+    }
+
+}
@@ -1,24 +1,215 @@
 package com.blade.mvc.http;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedNioStream;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
 
-public class StreamBody implements Body {
+/**
+ * Response body sent with chunked transfer encoding
+ * <p>
+ * The source is pulled one chunk at a time on the netty event loop and only while the channel is writable,
+ * a slow client holds the reading back instead of piling the stream up in the outbound buffer.
+ * The source is closed when the response ends or the connection is closed.
+ *
+ * @author biezhi
+ * @date 2018/10/25
+ */
+public class StreamBody implements Body, Closeable {
 
-    private final InputStream content;
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
 
-    public StreamBody(final InputStream content) {
+    private final ChunkedInput<ByteBuf> content;
+
+    private StreamBody(ChunkedInput<ByteBuf> content) {
         this.content = content;
     }
 
-    public static StreamBody of(InputStream inputStream){
+    public StreamBody(final InputStream content) {
+        this(new ChunkedInputStream(content, DEFAULT_CHUNK_SIZE));
+    }
+
+    public static StreamBody of(InputStream inputStream) {
         return new StreamBody(inputStream);
     }
 
+    public static StreamBody of(InputStream inputStream, int chunkSize) {
+        return new StreamBody(new ChunkedInputStream(inputStream, chunkSize));
+    }
+
+    public static StreamBody of(ReadableByteChannel channel) {
+        return new StreamBody(new ChunkedNioStream(channel, DEFAULT_CHUNK_SIZE));
+    }
+
+    public static StreamBody of(ReadableByteChannel channel, int chunkSize) {
+        return new StreamBody(new ChunkedNioStream(channel, chunkSize));
+    }
+
+    /**
+     * @param chunks chunks to send, each one is released once it is written,
+     *               an iterator that is also Closeable is closed at the end
+     * @return return stream body
+     */
+    public static StreamBody of(Iterator<ByteBuf> chunks) {
+        return new StreamBody(new ChunkedIterator(chunks));
+    }
+
+    /**
+     * @return return the source as HTTP chunks ending with the last content
+     */
+    public HttpChunkedInput httpChunkedInput() {
+        return new HttpChunkedInput(content);
+    }
+
     @Override
     public FullHttpResponse write(BodyWriter writer) {
-//        writer.onStream(content);
-        return writer.onByteBuf(content);
+        return writer.onStream(this);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void close() throws IOException {
+        try {
+            content.close();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Unlike netty's ChunkedStream the chunk size does not follow InputStream#available(),
+     * which is 0 for most generated streams and would cut the body into 1 byte chunks.
+     */
+    private static class ChunkedInputStream implements ChunkedInput<ByteBuf> {
+
+        private final InputStream in;
+        private final int         chunkSize;
+        private       long        progress;
+        private       boolean     endOfInput;
+
+        ChunkedInputStream(InputStream in, int chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("chunkSize: " + chunkSize + " (expected: > 0)");
+            }
+            this.in = in;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public boolean isEndOfInput() {
+            return endOfInput;
+        }
+
+        @Override
+        public void close() throws Exception {
+            in.close();
+        }
+
+        @Deprecated
+        @Override
+        public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+            return this.readChunk(ctx.alloc());
+        }
+
+        @Override
+        public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+            if (endOfInput) {
+                return null;
+            }
+            ByteBuf buffer  = allocator.buffer(chunkSize);
+            boolean release = true;
+            try {
+                int written = buffer.writeBytes(in, chunkSize);
+                if (written < 0) {
+                    // the end is only known after reading it, the last chunk may be empty
+                    endOfInput = true;
+                    buffer.release();
+                    release = false;
+                    return Unpooled.EMPTY_BUFFER;
+                }
+                progress += written;
+                release = false;
+                return buffer;
+            } finally {
+                if (release) {
+                    buffer.release();
+                }
+            }
+        }
+
+        @Override
+        public long length() {
+            return -1;
+        }
+
+        @Override
+        public long progress() {
+            return progress;
+        }
+    }
+
+    private static class ChunkedIterator implements ChunkedInput<ByteBuf> {
+
+        private final Iterator<ByteBuf> chunks;
+        private       long              progress;
+
+        ChunkedIterator(Iterator<ByteBuf> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public boolean isEndOfInput() {
+            return !chunks.hasNext();
+        }
+
+        @Override
+        public void close() {
+            // the iterator may be endless, it is not drained
+            if (chunks instanceof Closeable) {
+                try {
+                    ((Closeable) chunks).close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+
+        @Deprecated
+        @Override
+        public ByteBuf readChunk(ChannelHandlerContext ctx) {
+            return this.readChunk(ctx.alloc());
+        }
+
+        @Override
+        public ByteBuf readChunk(ByteBufAllocator allocator) {
+            if (!chunks.hasNext()) {
+                return null;
+            }
+            ByteBuf chunk = chunks.next();
+            progress += chunk.readableBytes();
+            return chunk;
+        }
+
+        @Override
+        public long length() {
+            return -1;
+        }
+
+        @Override
+        public long progress() {
+            return progress;
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.blade.mvc.route;
 
 import com.blade.kit.PathKit;
+import com.blade.mvc.annotation.Compress;
 import com.blade.mvc.http.HttpMethod;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -53,11 +54,42 @@ public class Route {
 
     private int sort;
 
+    /**
+     * Whether the route is executed on the handler thread pool
+     */
+    private boolean blocking;
+
+    /**
+     * Max request body bytes, 0 means the server default
+     */
+    private long maxContentLength;
+
+    /**
+     * Whether the route reads the request body as a stream while it is arriving
+     */
+    private boolean streamingBody;
+
+    /**
+     * Response compression setting of the route, null means the server default
+     */
+    private Compress compress;
+
+    /**
+     * Complete timeout of an asynchronous route in milliseconds, 0 means the server default
+     */
+    private long asyncTimeout;
+
     /**
      * Url path params
      */
     private Map<String, String> pathParams = new HashMap<>(8);
 
+    /**
+     * Invocation plan, built when the route is registered
+     */
+    @EqualsAndHashCode.Exclude
+    private RoutePlan plan;
+
     public Route() {
         this.sort = Integer.MAX_VALUE;
     }
@@ -148,7 +180,9 @@ public class Route {
      * Get route path parameters
      *
      * @return return path params
+     * @deprecated a route is shared by the requests, the path params of a request are in {@link RouteMatch}
      */
+    @Deprecated
     public Map<String, String> getPathParams() {
         return pathParams;
     }
@@ -157,11 +191,34 @@ public class Route {
      * Set path params
      *
      * @param pathParams path params map
+     * @deprecated a route is shared by the requests, the path params of a request are in {@link RouteMatch}
      */
+    @Deprecated
     public void setPathParams(Map<String, String> pathParams) {
         this.pathParams = pathParams;
     }
 
+    /**
+     * Get the invocation plan of the route
+     *
+     * @return return RoutePlan
+     */
+    public RoutePlan getPlan() {
+        RoutePlan plan = this.plan;
+        if (null == plan) {
+            plan = RoutePlan.of(this);
+            this.plan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Build the invocation plan with the current target and action
+     */
+    public void initPlan() {
+        this.plan = RoutePlan.of(this);
+    }
+
     /**
      * Get route execution sort, default is Integer.MAX_VALUE
      *
@@ -180,6 +237,97 @@ public class Route {
         this.sort = sort;
     }
 
+    /**
+     * Whether the route leaves the netty event loop, see {@link com.blade.mvc.annotation.Blocking}
+     *
+     * @return return route is blocking
+     */
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    /**
+     * Set route is blocking
+     *
+     * @param blocking blocking route
+     */
+    public void setBlocking(boolean blocking) {
+        this.blocking = blocking;
+    }
+
+    /**
+     * Max request body bytes, see {@link com.blade.mvc.annotation.MaxContentLength}
+     *
+     * @return return max content length, 0 means the server default
+     */
+    public long getMaxContentLength() {
+        return maxContentLength;
+    }
+
+    /**
+     * Set max request body bytes
+     *
+     * @param maxContentLength max content length
+     */
+    public void setMaxContentLength(long maxContentLength) {
+        this.maxContentLength = maxContentLength;
+    }
+
+    /**
+     * Whether the route action takes an InputStream parameter,
+     * such a route is dispatched when the request headers arrive and reads the body while it is arriving.
+     *
+     * @return return route streams the request body
+     */
+    public boolean isStreamingBody() {
+        return streamingBody;
+    }
+
+    /**
+     * Set route streams the request body
+     *
+     * @param streamingBody streaming body route
+     */
+    public void setStreamingBody(boolean streamingBody) {
+        this.streamingBody = streamingBody;
+    }
+
+    /**
+     * Response compression setting, see {@link Compress}
+     *
+     * @return return compress setting, null means the server default
+     */
+    public Compress getCompress() {
+        return compress;
+    }
+
+    /**
+     * Set response compression setting
+     *
+     * @param compress compress setting
+     */
+    public void setCompress(Compress compress) {
+        this.compress = compress;
+    }
+
+    /**
+     * Complete timeout of an asynchronous route, see {@link com.blade.mvc.annotation.AsyncTimeout}
+     *
+     * @return return timeout in milliseconds, 0 means the server default
+     */
+    public long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
+    /**
+     * Set complete timeout of an asynchronous route
+     *
+     * @param asyncTimeout timeout in milliseconds
+     */
+    public void setAsyncTimeout(long asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+    }
+
     public String getAllPath() {
         return this.path + "#" + this.httpMethod.name();
     }
@@ -0,0 +1,156 @@
+package com.blade.mvc.route;
+
+import com.blade.mvc.http.HttpMethod;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache of the dynamic route matches by request method and uri, enabled by mvc.route.cache-size
+ * <p>
+ * A hit is a lock free map read. The entries are evicted in the CLOCK order: an entry read since
+ * the hand passed it gets a second chance, so the hot uris stay and the uris requested once go first.
+ * A miss inserts only when no other thread is inserting, it never waits for the lock.
+ * <p>
+ * The routes are registered in a new table, the matches of the previous routes are dropped at once.
+ */
+public class RouteCache {
+
+    private final int       maxSize;
+    private final LongAdder hits   = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile Table table;
+
+    public RouteCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.table = new Table(maxSize);
+    }
+
+    /**
+     * The table of the current routes, a match is put into the table it was looked up in
+     *
+     * @return return current table
+     */
+    Table table() {
+        return table;
+    }
+
+    RouteMatch get(Table table, String httpMethod, String uri) {
+        RouteMatch match = table.get(httpMethod, uri);
+        if (null != match) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return match;
+    }
+
+    /**
+     * Drop all the cached matches, called when the routes change
+     */
+    public void invalidate() {
+        this.table = new Table(maxSize);
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "route cache hits: " + this.hits() + ", misses: " + this.misses() + ", size: " + this.size() + "/" + maxSize;
+    }
+
+    static final class Table {
+
+        private final Map<String, ConcurrentHashMap<String, Entry>> methods = new HashMap<>();
+
+        // guarded by lock
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Entry[]       ring;
+        private       int           hand;
+
+        private volatile int size;
+
+        Table(int maxSize) {
+            this.ring = new Entry[maxSize];
+            for (HttpMethod httpMethod : HttpMethod.values()) {
+                methods.put(httpMethod.name(), new ConcurrentHashMap<>());
+            }
+        }
+
+        RouteMatch get(String httpMethod, String uri) {
+            ConcurrentHashMap<String, Entry> entries = methods.get(httpMethod);
+            Entry entry = null != entries ? entries.get(uri) : null;
+            if (null == entry) {
+                return null;
+            }
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.match;
+        }
+
+        void put(String httpMethod, String uri, RouteMatch match) {
+            ConcurrentHashMap<String, Entry> entries = methods.get(httpMethod);
+            if (null == entries || ring.length == 0 || !lock.tryLock()) {
+                return;
+            }
+            try {
+                if (entries.containsKey(uri)) {
+                    return;
+                }
+                Entry entry = new Entry(entries, uri, match);
+                if (size < ring.length) {
+                    ring[size] = entry;
+                    size++;
+                } else {
+                    Entry victim = ring[hand];
+                    while (victim.referenced) {
+                        victim.referenced = false;
+                        hand = (hand + 1) % ring.length;
+                        victim = ring[hand];
+                    }
+                    victim.entries.remove(victim.uri);
+                    ring[hand] = entry;
+                    hand = (hand + 1) % ring.length;
+                }
+                entries.put(uri, entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final ConcurrentHashMap<String, Entry> entries;
+        private final String                           uri;
+        private final RouteMatch                       match;
+
+        private volatile boolean referenced;
+
+        Entry(ConcurrentHashMap<String, Entry> entries, String uri, RouteMatch match) {
+            this.entries = entries;
+            this.uri = uri;
+            this.match = match;
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.blade.mvc.route;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The route found for a request path and the path params of this request.
+ * <p>
+ * A route is shared by all the requests, so the params are kept here: the names are
+ * shared from the route registration and the values are offsets into the matched path.
+ * The params {@link Map} is only created when {@link #pathParams()} is called.
+ */
+public final class RouteMatch {
+
+    private static final String[] NO_NAMES   = new String[0];
+    private static final int[]    NO_OFFSETS = new int[0];
+
+    private final Route    route;
+    private final String   path;
+    private final String[] names;
+
+    // start and end of each value in the path
+    private final int[] offsets;
+
+    private Map<String, String> pathParams;
+
+    public RouteMatch(Route route, String path, String[] names, int[] offsets) {
+        this.route = route;
+        this.path = path;
+        this.names = names;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Match of a route without path params
+     *
+     * @param route route
+     * @return return RouteMatch
+     */
+    public static RouteMatch of(Route route) {
+        return new RouteMatch(route, null, NO_NAMES, NO_OFFSETS);
+    }
+
+    public Route getRoute() {
+        return route;
+    }
+
+    /**
+     * @return return the number of path params
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Get a path param without creating the params map
+     *
+     * @param name param name
+     * @return return param value, null if the route has no such param
+     */
+    public String pathParam(String name) {
+        // the last value wins, as it does in the params map
+        for (int i = names.length - 1; i >= 0; i--) {
+            if (names[i].equals(name)) {
+                return path.substring(offsets[i * 2], offsets[i * 2 + 1]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return return the path params, an unmodifiable map in the order of the route path
+     */
+    public Map<String, String> pathParams() {
+        if (null == pathParams) {
+            if (names.length == 0) {
+                pathParams = Collections.emptyMap();
+            } else {
+                Map<String, String> map = new LinkedHashMap<>(names.length * 2);
+                for (int i = 0; i < names.length; i++) {
+                    map.put(names[i], path.substring(offsets[i * 2], offsets[i * 2 + 1]));
+                }
+                pathParams = Collections.unmodifiableMap(map);
+            }
+        }
+        return pathParams;
+    }
+
+    @Override
+    public String toString() {
+        return route + " " + this.pathParams();
+    }
+
+}
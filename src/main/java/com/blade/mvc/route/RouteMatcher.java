@@ -5,6 +5,10 @@ import com.blade.exception.MethodNotAllowedException;
 import com.blade.ioc.annotation.Order;
 import com.blade.kit.*;
 import com.blade.mvc.RouteContext;
+import com.blade.mvc.annotation.AsyncTimeout;
+import com.blade.mvc.annotation.Blocking;
+import com.blade.mvc.annotation.Compress;
+import com.blade.mvc.annotation.MaxContentLength;
 import com.blade.mvc.handler.RouteHandler;
 import com.blade.mvc.handler.RouteHandler0;
 import com.blade.mvc.handler.WebSocketHandler;
@@ -13,21 +17,19 @@ import com.blade.mvc.hook.WebHook;
 import com.blade.mvc.http.HttpMethod;
 import com.blade.mvc.http.Request;
 import com.blade.mvc.http.Response;
-import com.blade.mvc.route.mapping.FastRouteMappingInfo;
-import com.blade.mvc.route.mapping.RegexMapping;
+import com.blade.mvc.route.mapping.HookMapping;
 import com.blade.mvc.route.mapping.StaticMapping;
+import com.blade.mvc.route.mapping.TreeMapping;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static com.blade.kit.BladeKit.logAddRoute;
 import static com.blade.kit.BladeKit.logWebSocket;
@@ -41,8 +43,7 @@ import static com.blade.kit.BladeKit.logWebSocket;
 @Slf4j
 public class RouteMatcher {
 
-    private static final Pattern PATH_VARIABLE_PATTERN = Pattern.compile("/(?:([^:/]*):([^/]+))|(\\.\\*)");
-    private static final String  METHOD_NAME           = "handle";
+    private static final String METHOD_NAME = "handle";
 
     // Storage URL and route
     private Map<String, Route>       routes          = new HashMap<>();
@@ -51,8 +52,10 @@ public class RouteMatcher {
     private Map<String, Method[]>    classMethodPool = new ConcurrentHashMap<>();
     private Map<Class<?>, Object>    controllerPool  = new ConcurrentHashMap<>();
 
-    private RegexMapping  regexMapping  = new RegexMapping();
+    private TreeMapping   treeMapping   = new TreeMapping();
     private StaticMapping staticMapping = new StaticMapping();
+    private HookMapping   hookMapping   = new HookMapping();
+    private RouteCache    routeCache;
 
     /**
      * WebSocket Handlers
@@ -95,6 +98,11 @@ public class RouteMatcher {
         }
 
         Route route = new Route(httpMethod, path, controller, controllerType, method);
+        route.setMaxContentLength(getMaxContentLength(controllerType, method));
+        route.setCompress(getCompress(controllerType, method));
+        route.setAsyncTimeout(getAsyncTimeout(controllerType, method));
+        route.setStreamingBody(isStreamingBody(method));
+        route.setBlocking(route.isStreamingBody() || isBlocking(controllerType, method));
         if (BladeKit.isWebHook(httpMethod)) {
             Order order = controllerType.getAnnotation(Order.class);
             if (null != order) {
@@ -113,6 +121,78 @@ public class RouteMatcher {
         return route;
     }
 
+    private boolean isBlocking(Class<?> controllerType, Method method) {
+        if (null != method && null != method.getAnnotation(Blocking.class)) {
+            return true;
+        }
+        return null != controllerType && null != controllerType.getAnnotation(Blocking.class);
+    }
+
+    /**
+     * Whether there is a route marked as {@link Blocking}
+     *
+     * @return return has blocking route
+     */
+    public boolean hasBlockingRoute() {
+        return routes.values().stream().anyMatch(Route::isBlocking);
+    }
+
+    private long getMaxContentLength(Class<?> controllerType, Method method) {
+        MaxContentLength maxContentLength = null != method ? method.getAnnotation(MaxContentLength.class) : null;
+        if (null == maxContentLength && null != controllerType) {
+            maxContentLength = controllerType.getAnnotation(MaxContentLength.class);
+        }
+        return null != maxContentLength ? maxContentLength.value() : 0;
+    }
+
+    private long getAsyncTimeout(Class<?> controllerType, Method method) {
+        AsyncTimeout asyncTimeout = null != method ? method.getAnnotation(AsyncTimeout.class) : null;
+        if (null == asyncTimeout && null != controllerType) {
+            asyncTimeout = controllerType.getAnnotation(AsyncTimeout.class);
+        }
+        return null != asyncTimeout ? asyncTimeout.value() : 0;
+    }
+
+    private Compress getCompress(Class<?> controllerType, Method method) {
+        Compress compress = null != method ? method.getAnnotation(Compress.class) : null;
+        if (null == compress && null != controllerType) {
+            compress = controllerType.getAnnotation(Compress.class);
+        }
+        return compress;
+    }
+
+    /**
+     * Whether there is a route with its own {@link Compress} setting
+     *
+     * @return return has compress route
+     */
+    public boolean hasCompressRoute() {
+        return routes.values().stream().anyMatch(route -> null != route.getCompress());
+    }
+
+    private boolean isStreamingBody(Method method) {
+        return null != method && Arrays.asList(method.getParameterTypes()).contains(InputStream.class);
+    }
+
+    /**
+     * Whether there is a route reading the request body as a stream
+     *
+     * @return return has streaming body route
+     */
+    public boolean hasStreamingRoute() {
+        return routes.values().stream().anyMatch(Route::isStreamingBody);
+    }
+
+    /**
+     * Whether the request body handling depends on the matched route,
+     * i.e. some route streams its body or has its own max content length.
+     *
+     * @return return need lookup route before the body arrives
+     */
+    public boolean hasBodyAwareRoute() {
+        return routes.values().stream().anyMatch(route -> route.isStreamingBody() || route.getMaxContentLength() > 0);
+    }
+
     @Deprecated
     public Route addRoute(String path, RouteHandler0 handler, HttpMethod httpMethod) {
         try {
@@ -165,85 +245,68 @@ public class RouteMatcher {
         }
     }
 
+    /**
+     * Find the route of a request
+     *
+     * @param httpMethod request method
+     * @param path       request path
+     * @return return the route, null if not found
+     */
     public Route lookupRoute(String httpMethod, String path) {
+        RouteMatch match = this.match(httpMethod, path);
+        return null != match ? match.getRoute() : null;
+    }
+
+    /**
+     * Find the route of a request and its path params
+     *
+     * @param httpMethod request method
+     * @param path       request path
+     * @return return the match of this request, null if not found
+     */
+    public RouteMatch match(String httpMethod, String path) {
         Route route = staticMapping.findRoute(path, httpMethod);
         if (null != route) {
-            return route;
+            return RouteMatch.of(route);
         }
+
+        RouteCache.Table cacheTable = null;
+        if (null != routeCache) {
+            cacheTable = routeCache.table();
+            RouteMatch cached = routeCache.get(cacheTable, httpMethod, path);
+            if (null != cached) {
+                return cached;
+            }
+        }
+
+        String uri = path;
         path = parsePath(path);
         route = staticMapping.findRoute(path, httpMethod);
         if (null != route) {
-            return route;
+            return RouteMatch.of(route);
         }
         route = staticMapping.findRoute(path, HttpMethod.ALL.name());
         if (null != route) {
-            return route;
+            return RouteMatch.of(route);
         } else {
             if (staticMapping.hasPath(path)) {
                 throw new MethodNotAllowedException("[" + httpMethod + "] Method Not Allowed");
             }
         }
 
-        Map<String, String> uriVariables = new LinkedHashMap<>();
-
-        HttpMethod requestMethod = HttpMethod.valueOf(httpMethod);
-        try {
-            Pattern pattern = regexMapping.findPattern(requestMethod);
-            if (null == pattern) {
-                pattern = regexMapping.findPattern(HttpMethod.ALL);
-                if (null != pattern) {
-                    requestMethod = HttpMethod.ALL;
-                }
-            }
-            if (null == pattern) {
-                return null;
-            }
-            Matcher matcher = null;
-            if (path != null) {
-                matcher = pattern.matcher(path);
-            }
-            boolean matched = false;
-            if (matcher != null) {
-                matched = matcher.matches();
-            }
-            if (!matched) {
-                requestMethod = HttpMethod.ALL;
-                pattern = regexMapping.findPattern(requestMethod);
-                if (null == pattern) {
-                    return null;
-                }
-                if (path != null) {
-                    matcher = pattern.matcher(path);
-                }
-                matched = matcher != null && matcher.matches();
+        RouteMatch match = treeMapping.findRoute(HttpMethod.valueOf(httpMethod), path);
+        if (null == match) {
+            match = treeMapping.findRoute(HttpMethod.ALL, path);
+        }
+        if (null != match) {
+            if (null != cacheTable) {
+                cacheTable.put(httpMethod, uri, match);
             }
-            if (matched) {
-                int i;
-                for (i = 1; matcher.group(i) == null; i++) ;
-                FastRouteMappingInfo mappingInfo = regexMapping.findMappingInfo(requestMethod, i);
-                route = mappingInfo.getRoute();
-
-                // find path variable
-                String uriVariable;
-                int    j = 0;
-                while (++i <= matcher.groupCount() && (uriVariable = matcher.group(i)) != null) {
-                    String pathVariable = cleanPathVariable(mappingInfo.getVariableNames().get(j++));
-                    uriVariables.put(pathVariable, uriVariable);
-                }
-                route.setPathParams(uriVariables);
-                log.trace("lookup path: " + path + " uri variables: " + uriVariables);
+            if (log.isTraceEnabled()) {
+                log.trace("lookup path: " + path + " uri variables: " + match.pathParams());
             }
-            return route;
-        } catch (Exception e) {
-            throw e;
         }
-    }
-
-    private String cleanPathVariable(String pathVariable) {
-        if (pathVariable.contains(".")) {
-            return pathVariable.substring(0, pathVariable.indexOf('.'));
-        }
-        return pathVariable;
+        return match;
     }
 
     public boolean hasBeforeHook() {
@@ -262,15 +325,7 @@ public class RouteMatcher {
      * @param path request path
      */
     public List<Route> getBefore(String path) {
-        String cleanPath = parsePath(path);
-        List<Route> collect = hooks.values().stream()
-                .flatMap(Collection::stream)
-                .sorted(Comparator.comparingInt(Route::getSort))
-                .filter(route -> route.getHttpMethod() == HttpMethod.BEFORE && matchesPath(route.getPath(), cleanPath))
-                .collect(Collectors.toList());
-
-        this.giveMatch(path, collect);
-        return collect;
+        return new ArrayList<>(Arrays.asList(this.beforeHooks(path)));
     }
 
     /**
@@ -279,47 +334,39 @@ public class RouteMatcher {
      * @param path request path
      */
     public List<Route> getAfter(String path) {
-        String cleanPath = parsePath(path);
-
-        List<Route> afters = hooks.values().stream()
-                .flatMap(Collection::stream)
-                .sorted(Comparator.comparingInt(Route::getSort))
-                .filter(route -> route.getHttpMethod() == HttpMethod.AFTER && matchesPath(route.getPath(), cleanPath))
-                .collect(Collectors.toList());
-
-        this.giveMatch(path, afters);
-        return afters;
-    }
-
-    public List<Route> getMiddleware() {
-        return this.middleware;
+        return new ArrayList<>(Arrays.asList(this.afterHooks(path)));
     }
 
     /**
-     * Sort of path
+     * Find the before hooks of a request path, resolved by {@link #register()}
      *
-     * @param uri    request uri
-     * @param routes route list
+     * @param path request path
+     * @return return the hooks in their running order, the array must not be modified
      */
-    private void giveMatch(final String uri, List<Route> routes) {
-        routes.stream().sorted((o1, o2) -> {
-            if (o2.getPath().equals(uri)) {
-                return o2.getPath().indexOf(uri);
-            }
-            return -1;
-        });
+    public Route[] beforeHooks(String path) {
+        return this.hooks(HttpMethod.BEFORE, path);
     }
 
     /**
-     * Matching path
+     * Find the after hooks of a request path, resolved by {@link #register()}
      *
-     * @param routePath   route path
-     * @param pathToMatch match path
-     * @return return match is success
+     * @param path request path
+     * @return return the hooks in their running order, the array must not be modified
      */
-    private boolean matchesPath(String routePath, String pathToMatch) {
-        routePath = PathKit.VAR_REGEXP_PATTERN.matcher(routePath).replaceAll(PathKit.VAR_REPLACE);
-        return pathToMatch.matches("(?i)" + routePath);
+    public Route[] afterHooks(String path) {
+        return this.hooks(HttpMethod.AFTER, path);
+    }
+
+    private Route[] hooks(HttpMethod hookType, String path) {
+        Route[] chain = hookMapping.findHooks(hookType, path);
+        if (null == chain) {
+            chain = hookMapping.resolveHooks(hookType, path, parsePath(path));
+        }
+        return chain;
+    }
+
+    public List<Route> getMiddleware() {
+        return this.middleware;
     }
 
     /**
@@ -330,6 +377,9 @@ public class RouteMatcher {
      */
     private String parsePath(String path) {
         path = PathKit.fixPath(path);
+        if (!needDecode(path)) {
+            return path;
+        }
         try {
             URI uri = new URI(path);
             return uri.getPath();
@@ -339,6 +389,22 @@ public class RouteMatcher {
         }
     }
 
+    /**
+     * Whether {@link URI#getPath()} may differ from the path: escaped chars, a fragment, a query or an authority
+     */
+    private static boolean needDecode(String path) {
+        if (path.startsWith("//")) {
+            return true;
+        }
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '%' || c == '#' || c == '?') {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * register route to container
      */
@@ -346,40 +412,32 @@ public class RouteMatcher {
         routes.values().forEach(route -> logAddRoute(log, route));
         hooks.values().stream().flatMap(Collection::stream).forEach(route -> logAddRoute(log, route));
 
-        Stream.of(routes.values(), hooks.values().stream().findAny().orElse(new ArrayList<>()))
-                .flatMap(Collection::stream).forEach(this::registerRoute);
+        routes.values().forEach(this::registerRoute);
+        routes.values().forEach(Route::initPlan);
+        hooks.values().stream().flatMap(Collection::stream).forEach(Route::initPlan);
 
-        regexMapping.register();
+        List<Route> sortedHooks = hooks.values().stream()
+                .flatMap(Collection::stream)
+                .sorted(Comparator.comparingInt(Route::getSort))
+                .collect(Collectors.toList());
+        List<String> staticPaths = routes.values().stream()
+                .map(route -> parsePath(route.getPath()))
+                .filter(path -> !TreeMapping.isDynamic(path))
+                .distinct()
+                .collect(Collectors.toList());
+        hookMapping.register(sortedHooks, staticPaths);
+        if (null != routeCache) {
+            routeCache.invalidate();
+        }
 
         webSockets.keySet().forEach(path -> logWebSocket(log, path));
     }
 
     private void registerRoute(Route route) {
-        String  path    = parsePath(route.getPath());
-        Matcher matcher = null;
-        if (path != null) {
-            matcher = PATH_VARIABLE_PATTERN.matcher(path);
-        }
-        boolean      find             = false;
-        List<String> uriVariableNames = new ArrayList<>();
-        while (matcher != null && matcher.find()) {
-            if (!find) {
-                find = true;
-            }
-            String regexName  = matcher.group(1);
-            String regexValue = matcher.group(2);
-
-            // just a simple path param
-            if (StringKit.isBlank(regexName)) {
-                uriVariableNames.add(regexValue);
-            } else {
-                //regex path param
-                uriVariableNames.add(regexName);
-            }
-        }
         HttpMethod httpMethod = route.getHttpMethod();
-        if (find || BladeKit.isWebHook(httpMethod)) {
-            regexMapping.addRoute(path, httpMethod, route, uriVariableNames);
+        String     path       = parsePath(route.getPath());
+        if (TreeMapping.isDynamic(path)) {
+            treeMapping.addRoute(path, httpMethod, route);
         } else {
             staticMapping.addRoute(path, httpMethod, route);
         }
@@ -405,13 +463,35 @@ public class RouteMatcher {
         return staticMapping;
     }
 
+    /**
+     * Cache the matches of the dynamic routes, the static routes are not cached
+     *
+     * @param maxSize max cached uris, 0 disables the cache
+     * @return return RouteMatcher
+     */
+    public RouteMatcher routeCache(int maxSize) {
+        this.routeCache = maxSize > 0 ? new RouteCache(maxSize) : null;
+        return this;
+    }
+
+    /**
+     * @return return the route cache, null if it is disabled
+     */
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
     public void clear() {
         this.routes.clear();
         this.hooks.clear();
         this.classMethodPool.clear();
         this.controllerPool.clear();
         this.staticMapping.clear();
-        this.regexMapping.clear();
+        this.treeMapping.clear();
+        this.hookMapping.clear();
+        if (null != this.routeCache) {
+            this.routeCache.invalidate();
+        }
     }
 
     public void initMiddleware(List<WebHook> hooks) {
@@ -0,0 +1,203 @@
+package com.blade.mvc.route;
+
+import com.blade.kit.BladeKit;
+import com.blade.kit.invoke.Invoker;
+import com.blade.kit.invoke.Invokers;
+import com.blade.mvc.annotation.JSON;
+import com.blade.mvc.annotation.Path;
+import com.blade.mvc.handler.RouteHandler;
+import com.blade.mvc.handler.RouteHandler0;
+import com.blade.mvc.ui.ModelAndView;
+import com.blade.reflectasm.ASMUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+
+/**
+ * Invocation plan of a route
+ * <p>
+ * Everything the route handler needs to know about a route which does not change between requests:
+ * how the target is called, whether the route is restful, how its return value is rendered
+ * and the {@link Invoker} of the action. It is built when the routes are registered,
+ * so a request does no annotation lookup and no reflection.
+ */
+public final class RoutePlan {
+
+    private static final String LAMBDA_IDENTIFY = "$$Lambda$";
+
+    public enum Kind {
+        /**
+         * The target is a {@link RouteHandler}
+         */
+        ROUTE_HANDLER,
+        /**
+         * The target is a {@link RouteHandler0}
+         */
+        ROUTE_HANDLER0,
+        /**
+         * The action is a method of the target
+         */
+        METHOD
+    }
+
+    public enum ReturnStrategy {
+        /**
+         * The return value is ignored
+         */
+        IGNORE,
+        /**
+         * The return value is written as json
+         */
+        JSON,
+        /**
+         * The return value is a view name
+         */
+        VIEW,
+        /**
+         * The return value is a {@link ModelAndView}
+         */
+        MODEL_AND_VIEW
+    }
+
+    private final Kind           kind;
+    private final Method         action;
+    private final Object         target;
+    private final Class<?>       targetClass;
+    private final Invoker        invoker;
+    private final int            parameterCount;
+    private final Parameter[]    parameters;
+    private final String[]       parameterNames;
+    private final boolean        injectParameters;
+    private final boolean        restful;
+    private final ReturnStrategy returnStrategy;
+
+    private RoutePlan(Route route) {
+        Class<?> targetType = route.getTargetType();
+        Method   action     = route.getAction();
+
+        this.action = action;
+        this.target = route.getTarget();
+        if (targetType == RouteHandler.class) {
+            this.kind = Kind.ROUTE_HANDLER;
+        } else if (targetType == RouteHandler0.class) {
+            this.kind = Kind.ROUTE_HANDLER0;
+        } else {
+            this.kind = Kind.METHOD;
+        }
+
+        if (kind != Kind.METHOD || null == action) {
+            this.targetClass = null != target ? target.getClass() : targetType;
+            this.invoker = null;
+            this.parameterCount = 0;
+            this.parameters = new Parameter[0];
+            this.parameterNames = new String[0];
+            this.injectParameters = false;
+            this.restful = false;
+            this.returnStrategy = ReturnStrategy.IGNORE;
+            return;
+        }
+
+        this.targetClass = null != target ? target.getClass() : null != targetType ? targetType : action.getDeclaringClass();
+        this.invoker = Invokers.create(action);
+        this.parameterCount = action.getParameterCount();
+        this.injectParameters = parameterCount > 0 && !BladeKit.isWebHook(route.getHttpMethod())
+                && !action.getDeclaringClass().getName().contains(LAMBDA_IDENTIFY);
+        this.parameters = action.getParameters();
+        this.parameterNames = injectParameters ? findParameterNames(action) : new String[0];
+
+        Path path = targetClass.getAnnotation(Path.class);
+        this.restful = null != action.getAnnotation(JSON.class) || (null != path && path.restful());
+
+        Class<?> returnType = action.getReturnType();
+        if (restful) {
+            this.returnStrategy = ReturnStrategy.JSON;
+        } else if (returnType == String.class) {
+            this.returnStrategy = ReturnStrategy.VIEW;
+        } else if (returnType == ModelAndView.class) {
+            this.returnStrategy = ReturnStrategy.MODEL_AND_VIEW;
+        } else {
+            this.returnStrategy = ReturnStrategy.IGNORE;
+        }
+    }
+
+    /**
+     * The names are read from the debug info of the class file, null when it is not there
+     */
+    private static String[] findParameterNames(Method action) {
+        try {
+            return ASMUtils.findMethodParmeterNames(action);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public static RoutePlan of(Route route) {
+        return new RoutePlan(route);
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return return the target of the route, null when it is a bean to get from the ioc
+     */
+    public Object target() {
+        return target;
+    }
+
+    /**
+     * @return return the class of the target, the bean type when the target is null
+     */
+    public Class<?> targetClass() {
+        return targetClass;
+    }
+
+    /**
+     * @return return the parameter count of the action
+     */
+    public int parameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * @return return the parameters of the action, the array must not be modified
+     */
+    public Parameter[] parameters() {
+        return parameters;
+    }
+
+    /**
+     * @return return the parameter names of the action read from the class file, the array must not be modified
+     */
+    public String[] parameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * @return return whether the action parameters are resolved from the request
+     */
+    public boolean isInjectParameters() {
+        return injectParameters;
+    }
+
+    public boolean isRestful() {
+        return restful;
+    }
+
+    public ReturnStrategy returnStrategy() {
+        return returnStrategy;
+    }
+
+    /**
+     * Call the action on a target
+     *
+     * @param target route target
+     * @param args   action arguments
+     * @return return the value returned by the action
+     */
+    public Object invoke(Object target, Object... args) throws Exception {
+        return invoker.invoke(target, args);
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.blade.mvc.route.mapping;
+
+import com.blade.kit.PathKit;
+import com.blade.mvc.http.HttpMethod;
+import com.blade.mvc.route.Route;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Hook Route Mapping
+ * <p>
+ * The before and after hooks of a request path are resolved when the routes are registered:
+ * the path patterns are compiled once, and the chain of each static route path is built up front.
+ * The chains of the other paths are resolved on their first request and cached,
+ * up to {@link #MAX_CACHE_SIZE} paths per hook type, beyond it they are resolved on each request.
+ */
+@NoArgsConstructor
+public class HookMapping {
+
+    public static final int MAX_CACHE_SIZE = 4096;
+
+    private static final Route[] EMPTY = new Route[0];
+
+    private final Chains before = new Chains();
+    private final Chains after  = new Chains();
+
+    /**
+     * Compile the hooks and build the chains of the static paths
+     *
+     * @param hooks       hooks, ordered as they run
+     * @param staticPaths paths of the static routes
+     */
+    public void register(List<Route> hooks, Collection<String> staticPaths) {
+        before.register(hooks, HttpMethod.BEFORE, staticPaths);
+        after.register(hooks, HttpMethod.AFTER, staticPaths);
+    }
+
+    /**
+     * Find the resolved chain of a request path
+     *
+     * @param hookType BEFORE or AFTER
+     * @param path     request path
+     * @return return the hooks, null if the path is not resolved yet
+     */
+    public Route[] findHooks(HttpMethod hookType, String path) {
+        return chains(hookType).find(path);
+    }
+
+    /**
+     * Resolve the chain of a request path and cache it
+     *
+     * @param hookType  BEFORE or AFTER
+     * @param path      request path, the cache key
+     * @param cleanPath the parsed request path the hooks are matched with
+     * @return return the hooks, ordered as they run
+     */
+    public Route[] resolveHooks(HttpMethod hookType, String path, String cleanPath) {
+        return chains(hookType).resolve(path, cleanPath);
+    }
+
+    public void clear() {
+        before.clear();
+        after.clear();
+    }
+
+    private Chains chains(HttpMethod hookType) {
+        return hookType == HttpMethod.BEFORE ? before : after;
+    }
+
+    private static final class Chains {
+
+        private Route[]   hooks    = EMPTY;
+        private Pattern[] patterns = new Pattern[0];
+
+        // written by register only
+        private Map<String, Route[]> staticChains = new HashMap<>();
+
+        private final Map<String, Route[]> cachedChains = new ConcurrentHashMap<>();
+
+        void register(List<Route> routes, HttpMethod hookType, Collection<String> staticPaths) {
+            List<Route>   hookList    = new ArrayList<>();
+            List<Pattern> patternList = new ArrayList<>();
+            for (Route route : routes) {
+                if (route.getHttpMethod() == hookType) {
+                    hookList.add(route);
+                    patternList.add(compile(route.getPath()));
+                }
+            }
+            this.hooks = hookList.toArray(EMPTY);
+            this.patterns = patternList.toArray(new Pattern[0]);
+
+            Map<String, Route[]> chains = new HashMap<>(staticPaths.size() * 2);
+            for (String path : staticPaths) {
+                chains.put(path, this.match(path));
+            }
+            this.staticChains = chains;
+            this.cachedChains.clear();
+        }
+
+        /**
+         * The :name params of a hook path match one segment, the match ignores case
+         */
+        private static Pattern compile(String path) {
+            String regex = PathKit.VAR_REGEXP_PATTERN.matcher(path).replaceAll(PathKit.VAR_REPLACE);
+            return Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        }
+
+        Route[] find(String path) {
+            Route[] chain = staticChains.get(path);
+            return null != chain ? chain : cachedChains.get(path);
+        }
+
+        Route[] resolve(String path, String cleanPath) {
+            Route[] chain = staticChains.get(cleanPath);
+            if (null == chain) {
+                chain = this.match(cleanPath);
+            }
+            if (cachedChains.size() < MAX_CACHE_SIZE) {
+                cachedChains.put(path, chain);
+            }
+            return chain;
+        }
+
+        private Route[] match(String path) {
+            List<Route> chain = null;
+            for (int i = 0; i < hooks.length; i++) {
+                if (patterns[i].matcher(path).matches()) {
+                    if (null == chain) {
+                        chain = new ArrayList<>(hooks.length - i);
+                    }
+                    chain.add(hooks[i]);
+                }
+            }
+            return null != chain ? chain.toArray(EMPTY) : EMPTY;
+        }
+
+        void clear() {
+            hooks = EMPTY;
+            patterns = new Pattern[0];
+            staticChains = new HashMap<>();
+            cachedChains.clear();
+        }
+    }
+
+}
@@ -0,0 +1,368 @@
+package com.blade.mvc.route.mapping;
+
+import com.blade.mvc.http.HttpMethod;
+import com.blade.mvc.route.Route;
+import com.blade.mvc.route.RouteMatch;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Tree Route Mapping
+ * <p>
+ * The dynamic routes of each http method form a radix tree: the static parts share their common prefixes,
+ * a path segment can be
+ * <ul>
+ * <li>:name        a path param</li>
+ * <li>:name.ext    a path param followed by static text, the value ends where the text starts</li>
+ * <li>name:regex   a path param matching the regex</li>
+ * <li>.*           a wildcard, it matches the rest of the path, slashes included</li>
+ * </ul>
+ * A lookup walks the request path once, at each node the static child is tried first,
+ * then the regex params, the param and the wildcard. A less specific child is only tried
+ * when the more specific one does not lead to a route.
+ */
+@Slf4j
+@NoArgsConstructor
+public class TreeMapping {
+
+    private static final String WILDCARD = ".*";
+
+    private final Map<HttpMethod, Node> trees = new EnumMap<>(HttpMethod.class);
+
+    /**
+     * Whether the path has a param or a wildcard segment
+     *
+     * @param path route path
+     * @return return the path is dynamic
+     */
+    public static boolean isDynamic(String path) {
+        return path.contains(":") || path.contains(WILDCARD);
+    }
+
+    public void addRoute(String path, HttpMethod httpMethod, Route route) {
+        Node         node       = trees.computeIfAbsent(httpMethod, key -> new Node(""));
+        List<String> paramNames = new ArrayList<>();
+
+        StringBuilder staticPart = new StringBuilder();
+        int           start      = 1;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            String segment = path.substring(start, end);
+            staticPart.append('/');
+
+            int colon = segment.indexOf(':');
+            if (WILDCARD.equals(segment) || colon >= 0) {
+                node = node.insertStatic(staticPart.toString());
+                staticPart.setLength(0);
+                if (WILDCARD.equals(segment)) {
+                    node = node.wildcardChild();
+                } else if (colon == 0) {
+                    String name   = cleanParamName(segment.substring(1));
+                    String suffix = segment.substring(1 + name.length());
+                    paramNames.add(name);
+                    node = node.paramChild();
+                    if (!suffix.isEmpty()) {
+                        // the static text after the param in its segment, the value ends where it starts
+                        node.suffixed = true;
+                        staticPart.append(suffix);
+                    }
+                } else {
+                    paramNames.add(segment.substring(0, colon));
+                    node = node.regexChild(segment.substring(colon + 1));
+                }
+            } else {
+                staticPart.append(segment);
+            }
+            start = end + 1;
+        }
+        node = node.insertStatic(staticPart.toString());
+
+        if (null != node.route) {
+            log.warn("\tRoute {} -> {} replaces {}", path, httpMethod, node.route.getPath());
+        }
+        node.route = route;
+        node.paramNames = paramNames.toArray(new String[0]);
+    }
+
+    /**
+     * The param name ends at the first dot, /:id.json is the param id followed by the static text .json
+     */
+    private static String cleanParamName(String name) {
+        int dot = name.indexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * Whether any route is registered for the http method
+     *
+     * @param httpMethod http method
+     * @return return has routes
+     */
+    public boolean hasRoutes(HttpMethod httpMethod) {
+        return trees.containsKey(httpMethod);
+    }
+
+    /**
+     * Find the route of the path
+     *
+     * @param httpMethod http method
+     * @param path       request path
+     * @return return the route and its path params, null if not found
+     */
+    public RouteMatch findRoute(HttpMethod httpMethod, String path) {
+        Node root = trees.get(httpMethod);
+        if (null == root) {
+            return null;
+        }
+        Match match = new Match(path);
+        Node  node  = root.match(match, 0);
+        if (null == node) {
+            return null;
+        }
+        if (node.paramNames.length == 0) {
+            return RouteMatch.of(node.route);
+        }
+        return new RouteMatch(node.route, path, node.paramNames, Arrays.copyOf(match.offsets, match.size));
+    }
+
+    public void clear() {
+        trees.clear();
+    }
+
+    /**
+     * Offsets of the param values while the path is walked
+     */
+    private static final class Match {
+
+        private final String path;
+        private       int[]  offsets = new int[8];
+        private       int    size;
+
+        Match(String path) {
+            this.path = path;
+        }
+
+        void push(int start, int end) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = start;
+            offsets[size++] = end;
+        }
+
+        void pop() {
+            size -= 2;
+        }
+    }
+
+    private static final class Node {
+
+        // static text of the edge leading to this node
+        private String prefix;
+
+        // static children, indexed by the first char of their prefix
+        private char[] indices  = new char[0];
+        private Node[] children = new Node[0];
+
+        private final List<Node> regexChildren = new ArrayList<>(1);
+        private       Node       paramChild;
+        private       Node       wildcardChild;
+
+        private Pattern pattern;
+
+        // a param node whose segment goes on with static text
+        private boolean suffixed;
+
+        private Route    route;
+        private String[] paramNames;
+
+        Node(String prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * Walk the static text down from this node, the edges are split where the text differs
+         *
+         * @return return the node at the end of the text
+         */
+        Node insertStatic(String text) {
+            Node node = this;
+            while (!text.isEmpty()) {
+                int  index = node.indexOf(text.charAt(0));
+                Node child = index >= 0 ? node.children[index] : null;
+                if (null == child) {
+                    child = new Node(text);
+                    node.addChild(child);
+                    return child;
+                }
+                int common = commonPrefix(child.prefix, text);
+                if (common < child.prefix.length()) {
+                    Node middle = new Node(child.prefix.substring(0, common));
+                    child.prefix = child.prefix.substring(common);
+                    middle.addChild(child);
+                    node.children[index] = middle;
+                    child = middle;
+                }
+                text = text.substring(common);
+                node = child;
+            }
+            return node;
+        }
+
+        Node paramChild() {
+            if (null == paramChild) {
+                paramChild = new Node("");
+            }
+            return paramChild;
+        }
+
+        Node regexChild(String regex) {
+            for (Node child : regexChildren) {
+                if (child.pattern.pattern().equals(regex)) {
+                    return child;
+                }
+            }
+            Node child = new Node("");
+            child.pattern = Pattern.compile(regex);
+            regexChildren.add(child);
+            return child;
+        }
+
+        Node wildcardChild() {
+            if (null == wildcardChild) {
+                wildcardChild = new Node("");
+            }
+            return wildcardChild;
+        }
+
+        private int indexOf(char c) {
+            for (int i = 0; i < indices.length; i++) {
+                if (indices[i] == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void addChild(Node child) {
+            int size = indices.length;
+            char[] newIndices  = new char[size + 1];
+            Node[] newChildren = new Node[size + 1];
+            System.arraycopy(indices, 0, newIndices, 0, size);
+            System.arraycopy(children, 0, newChildren, 0, size);
+            newIndices[size] = child.prefix.charAt(0);
+            newChildren[size] = child;
+            indices = newIndices;
+            children = newChildren;
+        }
+
+        /**
+         * Match the path from pos, the text of this node has been matched
+         *
+         * @return return the node of the matched route, null if none
+         */
+        Node match(Match match, int pos) {
+            String path = match.path;
+            if (pos == path.length() && null != route) {
+                return this;
+            }
+            if (pos < path.length()) {
+                int index = this.indexOf(path.charAt(pos));
+                if (index >= 0) {
+                    Node child = children[index];
+                    if (path.startsWith(child.prefix, pos)) {
+                        Node found = child.match(match, pos + child.prefix.length());
+                        if (null != found) {
+                            return found;
+                        }
+                    }
+                }
+                if (null != paramChild || !regexChildren.isEmpty()) {
+                    int end = path.indexOf('/', pos);
+                    if (end < 0) {
+                        end = path.length();
+                    }
+                    if (end > pos) {
+                        for (Node child : regexChildren) {
+                            if (child.pattern.matcher(path).region(pos, end).matches()) {
+                                Node found = child.matchParam(match, pos, end);
+                                if (null != found) {
+                                    return found;
+                                }
+                            }
+                        }
+                        if (null != paramChild) {
+                            Node found = paramChild.matchParamSegment(match, pos, end);
+                            if (null != found) {
+                                return found;
+                            }
+                        }
+                    }
+                }
+            }
+            return null != wildcardChild ? wildcardChild.matchWildcard(match, pos) : null;
+        }
+
+        /**
+         * A param followed by static text in its segment ends where the text starts,
+         * the shortest value is tried first, then the whole segment
+         */
+        private Node matchParamSegment(Match match, int start, int end) {
+            if (suffixed) {
+                for (int i = start + 1; i < end; i++) {
+                    if (this.indexOf(match.path.charAt(i)) >= 0) {
+                        Node found = this.matchParam(match, start, i);
+                        if (null != found) {
+                            return found;
+                        }
+                    }
+                }
+            }
+            return this.matchParam(match, start, end);
+        }
+
+        private Node matchParam(Match match, int start, int end) {
+            match.push(start, end);
+            Node found = this.match(match, end);
+            if (null == found) {
+                match.pop();
+            }
+            return found;
+        }
+
+        /**
+         * Like the regex .* the wildcard takes as much of the path as the rest of the route allows
+         */
+        private Node matchWildcard(Match match, int pos) {
+            if (children.length > 0 || null != paramChild || !regexChildren.isEmpty() || null != wildcardChild) {
+                for (int i = match.path.length() - 1; i >= pos; i--) {
+                    Node found = this.match(match, i);
+                    if (null != found) {
+                        return found;
+                    }
+                }
+            }
+            return null != route ? this : null;
+        }
+
+        private static int commonPrefix(String a, String b) {
+            int max = Math.min(a.length(), b.length());
+            int i   = 0;
+            while (i < max && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+
+}
@@ -15,16 +15,7 @@
  */
 package com.blade.mvc.wrapper;
 
-import com.blade.kit.DateKit;
-import com.blade.mvc.Const;
-import com.blade.mvc.WebContext;
-import com.blade.server.netty.HttpConst;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.DefaultFileRegion;
-import io.netty.handler.codec.http.*;
-
 import java.io.*;
-import java.nio.channels.FileChannel;
 
 /**
  * OutputStream Wrapper
@@ -34,15 +25,21 @@ import java.nio.channels.FileChannel;
  */
 public class OutputStreamWrapper implements Closeable, Flushable {
 
-    private OutputStream          outputStream;
-    private File                  file;
-    private ChannelHandlerContext ctx;
+    private OutputStream outputStream;
+    private File         file;
+
+    public OutputStreamWrapper(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
 
     public OutputStreamWrapper(OutputStream outputStream, File file) {
         this.outputStream = outputStream;
         this.file = file;
     }
 
+    /**
+     * @return return the file behind the stream, null when the stream writes to the connection
+     */
     public File getFile() {
         return file;
     }
@@ -70,31 +67,7 @@ public class OutputStreamWrapper implements Closeable, Flushable {
 
     @Override
     public void close() throws IOException {
-        try {
-            this.flush();
-            FileChannel file       = new FileInputStream(this.file).getChannel();
-            long        fileLength = file.size();
-
-            HttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
-            httpResponse.headers().set(HttpConst.CONTENT_LENGTH, fileLength);
-            httpResponse.headers().set(HttpConst.DATE, DateKit.gmtDate());
-            httpResponse.headers().set(HttpConst.SERVER, "blade/" + Const.VERSION);
-
-            boolean keepAlive = WebContext.request().keepAlive();
-            if (keepAlive) {
-                httpResponse.headers().set(HttpConst.CONNECTION, HttpConst.KEEP_ALIVE);
-            }
-
-            // Write the initial line and the header.
-            ctx.write(httpResponse);
-            ctx.write(new DefaultFileRegion(file, 0, fileLength), ctx.newProgressivePromise());
-            // Write the end marker.
-            ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
-        } finally {
-            if(null != outputStream){
-                outputStream.close();
-            }
-        }
+        outputStream.close();
     }
 
-}
\ No newline at end of file
+}
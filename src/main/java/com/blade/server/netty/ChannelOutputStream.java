@@ -0,0 +1,170 @@
+package com.blade.server.netty;
+
+import com.blade.mvc.WebContext;
+import com.blade.mvc.http.Body;
+import com.blade.mvc.http.ByteBody;
+import com.blade.mvc.http.Request;
+import com.blade.mvc.http.Response;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Response body written straight to the channel
+ * <p>
+ * The first {@link #BUFFER_SIZE} bytes are kept in memory, a response that fits is sent as an ordinary body
+ * with a Content-Length. Beyond that the response head goes out with chunked transfer encoding
+ * and each filled pooled buffer is sent as a chunk.
+ * <p>
+ * The writer waits for the written chunks to reach the socket while the channel is not writable,
+ * except on the event loop, which must never block: the chunks queue up in the outbound buffer there,
+ * large outputs belong to {@link com.blade.mvc.annotation.Blocking} routes.
+ */
+public class ChannelOutputStream extends OutputStream {
+
+    public static final int BUFFER_SIZE = 8192;
+
+    private final Request               request;
+    private final Response              response;
+    private final ChannelHandlerContext context;
+    private final Body                  body;
+
+    private ByteBuf       buffer;
+    private boolean       committed;
+    private boolean       closed;
+    private ChannelFuture lastWrite;
+    private ChannelFuture lastContentFuture;
+
+    public ChannelOutputStream(WebContext webContext) {
+        this.request = webContext.getRequest();
+        this.response = webContext.getResponse();
+        this.context = webContext.getChannelHandlerContext();
+        this.body = ByteBody.of(this);
+    }
+
+    /**
+     * @return return the response body standing for this stream
+     */
+    public Body body() {
+        return body;
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     * @return return the future of the last chunk, null unless the stream was committed and closed
+     */
+    public ChannelFuture lastContentFuture() {
+        return lastContentFuture;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.ensureOpen();
+        if (null == buffer) {
+            buffer = context.alloc().buffer(BUFFER_SIZE);
+        }
+        buffer.writeByte(b);
+        if (buffer.writableBytes() == 0) {
+            this.writeChunk();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) throws IOException {
+        this.ensureOpen();
+        while (len > 0) {
+            if (null == buffer) {
+                buffer = context.alloc().buffer(BUFFER_SIZE);
+            }
+            int n = Math.min(len, BUFFER_SIZE - buffer.readableBytes());
+            buffer.writeBytes(bytes, off, n);
+            off += n;
+            len -= n;
+            if (buffer.readableBytes() == BUFFER_SIZE) {
+                this.writeChunk();
+            }
+        }
+    }
+
+    /**
+     * Send what is buffered, the response is committed as chunked
+     */
+    @Override
+    public void flush() throws IOException {
+        this.ensureOpen();
+        if (null != buffer && buffer.isReadable()) {
+            this.writeChunk();
+        }
+    }
+
+    /**
+     * End the body. An uncommitted response becomes an ordinary body of the buffered bytes,
+     * a committed one ends with the last chunk.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!committed) {
+            response.body(null != buffer ? ByteBody.of(buffer) : ByteBody.of(new byte[0]));
+            buffer = null;
+            return;
+        }
+        if (null != buffer && buffer.isReadable()) {
+            context.write(new DefaultHttpContent(buffer), context.voidPromise());
+        } else if (null != buffer) {
+            buffer.release();
+        }
+        buffer = null;
+        lastContentFuture = context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+    }
+
+    /**
+     * Drop the buffered bytes, the route replaced the body or failed
+     */
+    public void discard() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (null != buffer) {
+            buffer.release();
+            buffer = null;
+        }
+    }
+
+    private void writeChunk() throws IOException {
+        if (!committed) {
+            committed = true;
+            context.write(RouteMethodHandler.chunkedResponse(request, response), context.voidPromise());
+        }
+        lastWrite = context.writeAndFlush(new DefaultHttpContent(buffer));
+        buffer = null;
+
+        // wait for the chunk to reach the socket, the outbound buffer has drained by then
+        if (!context.channel().isWritable() && !context.executor().inEventLoop()) {
+            lastWrite.awaitUninterruptibly();
+        }
+        if (lastWrite.isDone() && !lastWrite.isSuccess()) {
+            closed = true;
+            throw new IOException("Response write failed", lastWrite.cause());
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.blade.server.netty;
+
+import com.blade.Environment;
+import com.blade.kit.StringKit;
+import com.blade.mvc.annotation.Compress;
+import com.blade.mvc.route.RouteMatch;
+import com.blade.mvc.route.RouteMatcher;
+import io.netty.handler.codec.http.HttpRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.blade.kit.BladeKit.getStartedSymbol;
+import static com.blade.mvc.Const.*;
+
+/**
+ * Response compression settings, shared by the {@link ContentCompressor} of every connection
+ * <p>
+ * http.compression.enable (or http.gzip.enable) turns compression on,
+ * http.compression.encodings is the server preference (default zstd,gzip,deflate, unavailable ones are skipped,
+ * the encodings registered with {@link com.blade.Blade#compressor(Compressor)} come before them),
+ * the client preference by Accept-Encoding q-values comes first.
+ * A response is compressed only if its content type starts with one of http.compression.content-types
+ * and its body has at least http.compression.min-size bytes, see {@link Compress} for the route settings.
+ */
+@Slf4j
+public class CompressionOptions {
+
+    private final Compressor[] compressors;
+    private final int          minSize;
+    private final String[]     contentTypes;
+    private final RouteMatcher routeMatcher;
+
+    /**
+     * @param compressors  compressors in server preference order
+     * @param minSize      min response body bytes
+     * @param contentTypes content type prefixes in lower case
+     * @param routeMatcher find the route settings, null if no route has them
+     */
+    CompressionOptions(List<Compressor> compressors, int minSize, String[] contentTypes, RouteMatcher routeMatcher) {
+        this.compressors = compressors.toArray(new Compressor[0]);
+        this.minSize = minSize;
+        this.contentTypes = contentTypes;
+        this.routeMatcher = routeMatcher;
+    }
+
+    /**
+     * Create the compression settings from the environment
+     *
+     * @param environment  application environment
+     * @param routeMatcher route matcher
+     * @param custom       compressors registered by the application
+     * @return return null if compression is not enabled
+     */
+    public static CompressionOptions create(Environment environment, RouteMatcher routeMatcher, List<Compressor> custom) {
+        if (!environment.getBoolean(ENV_KEY_COMPRESSION_ENABLE, false) && !environment.getBoolean(ENV_KEY_GZIP_ENABLE, false)) {
+            return null;
+        }
+        int level = environment.getInt(ENV_KEY_COMPRESSION_LEVEL, DEFAULT_COMPRESSION_LEVEL);
+
+        Map<String, Compressor> available = new LinkedHashMap<>();
+        available.put("gzip", ZlibCompressor.gzip(level));
+        available.put("deflate", ZlibCompressor.deflate(level));
+        if (ZstdCompressor.isAvailable()) {
+            available.put("zstd", new ZstdCompressor(environment.getInt(ENV_KEY_COMPRESSION_ZSTD_LEVEL, DEFAULT_COMPRESSION_ZSTD_LEVEL)));
+        }
+        custom.forEach(compressor -> available.put(compressor.encoding().toLowerCase(), compressor));
+
+        // without a configured preference the encodings registered by the application come first, e.g. br
+        List<String> encodings = new ArrayList<>();
+        if (!environment.get(ENV_KEY_COMPRESSION_ENCODINGS).isPresent()) {
+            custom.forEach(compressor -> encodings.add(compressor.encoding().toLowerCase()));
+        }
+        encodings.addAll(Arrays.asList(split(environment.get(ENV_KEY_COMPRESSION_ENCODINGS, DEFAULT_COMPRESSION_ENCODINGS))));
+
+        List<Compressor> compressors = new ArrayList<>();
+        for (String encoding : encodings) {
+            Compressor compressor = available.get(encoding);
+            if (null != compressor && !compressors.contains(compressor)) {
+                compressors.add(compressor);
+            } else if (!DEFAULT_COMPRESSION_ENCODINGS.contains(encoding)) {
+                log.warn("{}Compression encoding {} is not available", getStartedSymbol(), encoding);
+            }
+        }
+        int      minSize      = environment.getInt(ENV_KEY_COMPRESSION_MIN_SIZE, DEFAULT_COMPRESSION_MIN_SIZE);
+        String[] contentTypes = split(environment.get(ENV_KEY_COMPRESSION_CONTENT_TYPES, DEFAULT_COMPRESSION_CONTENT_TYPES));
+
+        log.info("{}Enable response compression, encodings: {}, min-size: {}", getStartedSymbol(),
+                Arrays.toString(compressors.stream().map(Compressor::encoding).toArray()), minSize);
+
+        return new CompressionOptions(compressors, minSize, contentTypes,
+                routeMatcher.hasCompressRoute() ? routeMatcher : null);
+    }
+
+    private static String[] split(String value) {
+        return Arrays.stream(value.split(",")).map(s -> s.trim().toLowerCase()).filter(StringKit::isNotEmpty).toArray(String[]::new);
+    }
+
+    /**
+     * Min response body bytes to compress for a request
+     *
+     * @param request netty request
+     * @return return min size, -1 if the route turns compression off
+     */
+    int minSize(HttpRequest request) {
+        if (null == routeMatcher) {
+            return minSize;
+        }
+        RouteMatch match    = MergeRequestHandler.lookupRoute(routeMatcher, request);
+        Compress   compress = null != match ? match.getRoute().getCompress() : null;
+        if (null == compress) {
+            return minSize;
+        }
+        if (!compress.value()) {
+            return -1;
+        }
+        return compress.minSize() >= 0 ? compress.minSize() : minSize;
+    }
+
+    boolean isRouteAware() {
+        return null != routeMatcher;
+    }
+
+    int minSize() {
+        return minSize;
+    }
+
+    boolean isCompressible(String contentType) {
+        if (null == contentType) {
+            return false;
+        }
+        for (String prefix : contentTypes) {
+            if (contentType.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Choose the compressor by Accept-Encoding: the highest q-value wins,
+     * the server preference breaks ties, * stands for any encoding not listed.
+     *
+     * @param acceptEncoding Accept-Encoding header value
+     * @return return compressor, null if the client accepts none of them
+     */
+    Compressor negotiate(String acceptEncoding) {
+        if (null == acceptEncoding || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        float[] quality = new float[compressors.length];
+        float   star    = -1;
+        for (String part : acceptEncoding.split(",")) {
+            int    pos      = part.indexOf(';');
+            String encoding = (pos < 0 ? part : part.substring(0, pos)).trim();
+            float  q        = pos < 0 ? 1 : parseQuality(part.substring(pos + 1));
+            if ("*".equals(encoding)) {
+                star = q;
+                continue;
+            }
+            for (int i = 0; i < compressors.length; i++) {
+                if (compressors[i].encoding().equalsIgnoreCase(encoding)) {
+                    quality[i] = q > 0 ? q : -1;
+                }
+            }
+        }
+        Compressor best        = null;
+        float      bestQuality = 0;
+        for (int i = 0; i < compressors.length; i++) {
+            float q = quality[i] != 0 ? quality[i] : star;
+            if (q > bestQuality) {
+                best = compressors[i];
+                bestQuality = q;
+            }
+        }
+        return best;
+    }
+
+    private static float parseQuality(String params) {
+        int pos = params.indexOf("q=");
+        if (pos < 0) {
+            return 1;
+        }
+        try {
+            return Float.parseFloat(params.substring(pos + 2).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+}
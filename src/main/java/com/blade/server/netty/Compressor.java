@@ -0,0 +1,26 @@
+package com.blade.server.netty;
+
+import io.netty.channel.ChannelHandler;
+
+/**
+ * A response content encoding
+ * <p>
+ * gzip, deflate and zstd (with zstd-jni on the classpath) are built in,
+ * other encodings such as br are plugged in with {@link com.blade.Blade#compressor(Compressor)}.
+ */
+public interface Compressor {
+
+    /**
+     * @return return Content-Encoding token, e.g. gzip
+     */
+    String encoding();
+
+    /**
+     * Create the encoder of one response, it compresses the ByteBufs written through it
+     * and finishes the compressed stream when its channel is closed.
+     *
+     * @return return encoder handler
+     */
+    ChannelHandler newEncoder();
+
+}
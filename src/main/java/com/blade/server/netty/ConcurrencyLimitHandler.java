@@ -0,0 +1,112 @@
+package com.blade.server.netty;
+
+import com.blade.mvc.http.HttpRequest;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedInput;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Concurrency limit handler
+ * <p>
+ * Sits between MergeRequestHandler and HttpServerHandler, takes a permit for every request
+ * and answers 503 with Retry-After when the limiter of the route is full.
+ * The permit is returned when the end of the response is written, the elapsed time drives the adaptive limit.
+ * Responses leave a connection in request order, so the permits of a connection are kept in a queue.
+ * The end of a response is its LastHttpContent, or its ChunkedInput (file, stream) when a ChunkedWriteHandler
+ * on the head side writes the chunks.
+ */
+public class ConcurrencyLimitHandler extends ChannelDuplexHandler {
+
+    private static final Permit EXEMPT = new Permit(null, 0);
+
+    private final ConcurrencyLimits limits;
+    private final Deque<Permit>     permits = new ArrayDeque<>(2);
+
+    public ConcurrencyLimitHandler(ConcurrencyLimits limits) {
+        this.limits = limits;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpRequest) {
+            HttpRequest        request = (HttpRequest) msg;
+            ConcurrencyLimiter limiter = request.isPayloadTooLarge() ? null : limits.lookup(request.nettyRequest().uri());
+            if (null == limiter) {
+                permits.add(EXEMPT);
+            } else if (limiter.tryAcquire()) {
+                permits.add(new Permit(limiter, System.nanoTime()));
+            } else {
+                this.reject(ctx, request);
+                return;
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private void reject(ChannelHandlerContext ctx, HttpRequest request) {
+        // the body of a streaming request is still arriving, nobody is going to read it
+        boolean close = !request.chunkIsEnd() || !HttpUtil.isKeepAlive(request.nettyRequest());
+        // closes the body stream of a streaming request, its chunks are released
+        request.recycle();
+
+        FullHttpResponse response = HandlerExecutor.serviceUnavailable(limits.retryAfter());
+        if (close) {
+            HttpUtil.setKeepAlive(response, false);
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        } else {
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof LastHttpContent || msg instanceof ChunkedInput) {
+            Permit permit = permits.poll();
+            if (null != permit && null != permit.limiter) {
+                ChannelPromise written = promise.unvoid();
+                written.addListener(future -> permit.release(future.isSuccess()));
+                ctx.write(msg, written);
+                return;
+            }
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        Permit permit;
+        while (null != (permit = permits.poll())) {
+            if (null != permit.limiter) {
+                permit.limiter.release(-1);
+            }
+        }
+        super.channelInactive(ctx);
+    }
+
+    private static class Permit {
+
+        private final ConcurrencyLimiter limiter;
+        private final long               start;
+
+        Permit(ConcurrencyLimiter limiter, long start) {
+            this.limiter = limiter;
+            this.start = start;
+        }
+
+        /**
+         * A failed write is not a latency sample
+         */
+        void release(boolean written) {
+            limiter.release(written ? System.nanoTime() - start : -1);
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.blade.server.netty;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive concurrency limiter
+ * <p>
+ * Caps the requests in flight, the limit follows the gradient between the long term average latency
+ * and the latest latency: it grows while the latency stays flat and shrinks as soon as requests start queueing.
+ * <pre>
+ * gradient = clamp(0.5, 1.0, tolerance * longRtt / rtt)
+ * limit    = limit * (1 - smoothing) + (limit * gradient + queueSize) * smoothing
+ * </pre>
+ * The limit is only raised when at least half of it is in use, so an idle server does not inflate it.
+ */
+public class ConcurrencyLimiter {
+
+    private static final double TOLERANCE   = 1.5;
+    private static final double SMOOTHING   = 0.2;
+    private static final int    LONG_WINDOW = 600;
+
+    private final String name;
+    private final int    minLimit;
+    private final int    maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder     rejected = new LongAdder();
+
+    private volatile double limit;
+    private          double longRtt;
+
+    public ConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Take a permit for a request
+     *
+     * @return return false if the limit is reached, the request should be rejected
+     */
+    public boolean tryAcquire() {
+        for (; ; ) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Return the permit and feed the latency of the request into the limit
+     *
+     * @param rttNanos request latency in nanoseconds, negative if the request did not complete (connection closed)
+     */
+    public void release(long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        if (rttNanos > 0) {
+            this.onSample(rttNanos, current);
+        }
+    }
+
+    private synchronized void onSample(long rtt, int inFlight) {
+        if (longRtt == 0) {
+            longRtt = rtt;
+        } else {
+            longRtt += (rtt - longRtt) / LONG_WINDOW;
+        }
+        // recover quickly after a latency spike has passed
+        if (longRtt / rtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        double current = this.limit;
+        if (inFlight < current / 2) {
+            return;
+        }
+
+        double gradient  = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rtt));
+        double queueSize = Math.sqrt(current);
+        double newLimit  = current * (1 - SMOOTHING) + (current * gradient + queueSize) * SMOOTHING;
+
+        this.limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * @return return route prefix of this limiter, "/" for the default limiter
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return return current concurrency limit
+     */
+    public int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return return requests in flight
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return return requests rejected since the server started
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "limiter[" + name + "] limit: " + limit() + ", in-flight: " + inFlight() + ", rejected: " + rejected();
+    }
+
+}
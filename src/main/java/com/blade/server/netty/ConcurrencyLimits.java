@@ -0,0 +1,118 @@
+package com.blade.server.netty;
+
+import com.blade.Environment;
+import com.blade.kit.StringKit;
+import io.netty.util.AsciiString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.blade.kit.BladeKit.getStartedSymbol;
+import static com.blade.mvc.Const.*;
+
+/**
+ * Concurrency limiters of the server
+ * <p>
+ * server.limiter.enable=true turns on a default limiter for all requests,
+ * server.limiter.route.{prefix}={max-limit} gives the routes under the prefix their own limiter,
+ * the paths in server.limiter.exclude (default /health) are never limited.
+ */
+@Slf4j
+public class ConcurrencyLimits {
+
+    private final ConcurrencyLimiter   defaultLimiter;
+    private final ConcurrencyLimiter[] routeLimiters;
+    private final String[]             excludes;
+    private final AsciiString          retryAfter;
+
+    ConcurrencyLimits(ConcurrencyLimiter defaultLimiter, List<ConcurrencyLimiter> routeLimiters,
+                      String[] excludes, int retryAfter) {
+        this.defaultLimiter = defaultLimiter;
+        // the longest prefix wins
+        this.routeLimiters = routeLimiters.stream()
+                .sorted(Comparator.comparingInt((ConcurrencyLimiter limiter) -> limiter.name().length()).reversed())
+                .toArray(ConcurrencyLimiter[]::new);
+        this.excludes = excludes;
+        this.retryAfter = AsciiString.cached(String.valueOf(retryAfter));
+    }
+
+    /**
+     * Create the limiters from the environment
+     *
+     * @param environment application environment
+     * @return return null if the limiter is not enabled
+     */
+    public static ConcurrencyLimits create(Environment environment) {
+        if (!environment.getBoolean(ENV_KEY_LIMITER_ENABLE, false)) {
+            return null;
+        }
+        int initialLimit = environment.getInt(ENV_KEY_LIMITER_INITIAL_LIMIT, DEFAULT_LIMITER_INITIAL_LIMIT);
+        int minLimit     = environment.getInt(ENV_KEY_LIMITER_MIN_LIMIT, DEFAULT_LIMITER_MIN_LIMIT);
+        int maxLimit     = environment.getInt(ENV_KEY_LIMITER_MAX_LIMIT, DEFAULT_LIMITER_MAX_LIMIT);
+
+        List<ConcurrencyLimiter> routeLimiters = new ArrayList<>();
+        environment.getPrefix(ENV_KEY_LIMITER_ROUTE).forEach((prefix, routeMaxLimit) -> {
+            int limit = Integer.parseInt(routeMaxLimit.toString().trim());
+            routeLimiters.add(new ConcurrencyLimiter(prefix, Math.min(initialLimit, limit), Math.min(minLimit, limit), limit));
+        });
+
+        String[] excludes = Arrays.stream(environment.get(ENV_KEY_LIMITER_EXCLUDE, DEFAULT_LIMITER_EXCLUDE).split(","))
+                .map(String::trim).filter(StringKit::isNotEmpty).toArray(String[]::new);
+
+        log.info("{}Enable concurrency limiter, limit: {} ~ {}, routes: {}, exclude: {}",
+                getStartedSymbol(), minLimit, maxLimit, routeLimiters.size(), Arrays.toString(excludes));
+
+        return new ConcurrencyLimits(new ConcurrencyLimiter("/", initialLimit, minLimit, maxLimit), routeLimiters,
+                excludes, environment.getInt(ENV_KEY_LIMITER_RETRY_AFTER, DEFAULT_LIMITER_RETRY_AFTER));
+    }
+
+    /**
+     * Find the limiter of a request
+     *
+     * @param uri request uri, may contain the query string
+     * @return return null if the uri is excluded from limiting
+     */
+    public ConcurrencyLimiter lookup(String uri) {
+        for (String exclude : excludes) {
+            if (matches(uri, exclude)) {
+                return null;
+            }
+        }
+        for (ConcurrencyLimiter limiter : routeLimiters) {
+            if (matches(uri, limiter.name())) {
+                return limiter;
+            }
+        }
+        return defaultLimiter;
+    }
+
+    private static boolean matches(String uri, String prefix) {
+        if (!uri.startsWith(prefix)) {
+            return false;
+        }
+        if (uri.length() == prefix.length() || prefix.endsWith("/")) {
+            return true;
+        }
+        char next = uri.charAt(prefix.length());
+        return next == '/' || next == '?';
+    }
+
+    public AsciiString retryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return return the default limiter followed by the route limiters
+     */
+    public List<ConcurrencyLimiter> limiters() {
+        List<ConcurrencyLimiter> limiters = new ArrayList<>(routeLimiters.length + 1);
+        limiters.add(defaultLimiter);
+        Collections.addAll(limiters, routeLimiters);
+        return limiters;
+    }
+
+}
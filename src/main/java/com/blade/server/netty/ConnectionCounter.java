@@ -0,0 +1,62 @@
+package com.blade.server.netty;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection counter of a listening socket
+ * <p>
+ * It sits in the pipeline of the server channel, where every accepted connection is read as a child channel,
+ * with server.netty.reuse-port each listener has its own counter to show how the kernel balances the connections.
+ */
+public class ConnectionCounter extends ChannelInboundHandlerAdapter {
+
+    private final int           listener;
+    private final AtomicLong    accepted = new AtomicLong();
+    private final AtomicInteger active   = new AtomicInteger();
+
+    public ConnectionCounter(int listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof Channel) {
+            accepted.incrementAndGet();
+            active.incrementAndGet();
+            ((Channel) msg).closeFuture().addListener(future -> active.decrementAndGet());
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    /**
+     * @return return listener index
+     */
+    public int listener() {
+        return listener;
+    }
+
+    /**
+     * @return return connections accepted since the server started
+     */
+    public long accepted() {
+        return accepted.get();
+    }
+
+    /**
+     * @return return connections currently open
+     */
+    public int active() {
+        return active.get();
+    }
+
+    @Override
+    public String toString() {
+        return "listener#" + listener + " accepted: " + accepted.get() + ", active: " + active.get();
+    }
+
+}
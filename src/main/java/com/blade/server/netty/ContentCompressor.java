@@ -0,0 +1,98 @@
+package com.blade.server.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContentEncoder;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Response compression of one connection, in place of HttpContentCompressor
+ * <p>
+ * Skips the responses which are small, already encoded, or of a content type that does not compress,
+ * a non chunked response without a full body is skipped as well, its body may be a FileRegion.
+ */
+public class ContentCompressor extends HttpContentEncoder {
+
+    private final CompressionOptions options;
+
+    /**
+     * Min size of the pending requests, only when some route has its own setting
+     */
+    private final ArrayDeque<Integer> minSizes;
+
+    private ChannelHandlerContext ctx;
+    private int                   minSize;
+
+    public ContentCompressor(CompressionOptions options) {
+        this.options = options;
+        this.minSizes = options.isRouteAware() ? new ArrayDeque<>(2) : null;
+        this.minSize = options.minSize();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        super.handlerAdded(ctx);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, HttpRequest msg, List<Object> out) throws Exception {
+        if (null != minSizes) {
+            minSizes.add(options.minSize(msg));
+        }
+        super.decode(ctx, msg, out);
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, HttpObject msg, List<Object> out) throws Exception {
+        // every response but 100 Continue answers a request, in the same order as HttpContentEncoder
+        if (null != minSizes && msg instanceof HttpResponse
+                && ((HttpResponse) msg).status().code() != HttpResponseStatus.CONTINUE.code()) {
+            Integer size = minSizes.poll();
+            minSize = null != size ? size : options.minSize();
+        }
+        super.encode(ctx, msg, out);
+    }
+
+    @Override
+    protected Result beginEncode(HttpResponse response, String acceptEncoding) {
+        if (minSize < 0) {
+            return null;
+        }
+        HttpHeaders headers         = response.headers();
+        String      contentEncoding = headers.get(HttpHeaderNames.CONTENT_ENCODING);
+        if (null != contentEncoding && !HttpHeaderValues.IDENTITY.contentEqualsIgnoreCase(contentEncoding)) {
+            return null;
+        }
+        if (!options.isCompressible(headers.get(HttpHeaderNames.CONTENT_TYPE))) {
+            return null;
+        }
+        if (response instanceof FullHttpResponse) {
+            if (((FullHttpResponse) response).content().readableBytes() < minSize) {
+                return null;
+            }
+        } else if (!HttpUtil.isTransferEncodingChunked(response)) {
+            return null;
+        }
+
+        Compressor compressor = options.negotiate(acceptEncoding);
+        if (null == compressor) {
+            return null;
+        }
+        headers.add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+        return new Result(compressor.encoding(), new EmbeddedChannel(ctx.channel().id(),
+                ctx.channel().metadata().hasDisconnect(), ctx.channel().config(), compressor.newEncoder()));
+    }
+
+}
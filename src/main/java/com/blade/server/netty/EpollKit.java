@@ -1,10 +1,18 @@
 package com.blade.server.netty;
 
 import com.blade.kit.NamedThreadFactory;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
 import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import lombok.var;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 /**
  * Epoll kit
  * <p>
@@ -16,9 +24,22 @@ import lombok.var;
 class EpollKit {
 
     static NettyServerGroup group(int threadCount, int workers) {
-        var bossGroup   = new EpollEventLoopGroup(threadCount, new NamedThreadFactory("epoll-boss@"));
+        // no boss group when every worker accepts on its own SO_REUSEPORT socket
+        var bossGroup   = threadCount > 0 ? new EpollEventLoopGroup(threadCount, new NamedThreadFactory("epoll-boss@")) : null;
         var workerGroup = new EpollEventLoopGroup(workers, new NamedThreadFactory("epoll-worker@"));
         return NettyServerGroup.builder().boosGroup(bossGroup).workerGroup(workerGroup).socketChannel(EpollServerSocketChannel.class).build();
     }
 
+    /**
+     * Listen on a unix domain socket, the socket file left by a previous run is removed first
+     *
+     * @param bootstrap server bootstrap with epoll event loop groups
+     * @param path      socket file path
+     * @return return bind future
+     */
+    static ChannelFuture bindDomainSocket(ServerBootstrap bootstrap, String path) throws IOException {
+        Files.deleteIfExists(Paths.get(path));
+        return bootstrap.channel(EpollServerDomainSocketChannel.class).bind(new DomainSocketAddress(path));
+    }
+
 }
@@ -0,0 +1,211 @@
+package com.blade.server.netty;
+
+import com.blade.Environment;
+import com.blade.mvc.WebContext;
+import com.blade.mvc.route.Route;
+import com.blade.mvc.route.RouteMatcher;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.AsciiString;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.blade.kit.BladeKit.getStartedSymbol;
+import static com.blade.mvc.Const.*;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * Handler executor
+ * <p>
+ * Route logic runs on the netty event loop by default,
+ * the routes that may block (JDBC, remote calls, ...) are dispatched to a bounded thread pool,
+ * when the pool and its queue are full the request is answered with 503.
+ * <p>
+ * server.netty.handler-mode:
+ * <ul>
+ * <li>inline:   every route runs on the event loop</li>
+ * <li>blocking: only {@link com.blade.mvc.annotation.Blocking} routes leave the event loop (default)</li>
+ * <li>all:      every route leaves the event loop</li>
+ * </ul>
+ * <p>
+ * server.executor:
+ * <ul>
+ * <li>platform: a bounded pool of platform threads (default)</li>
+ * <li>virtual:  one virtual thread per request, requires JDK 21+, the handler-mode defaults to all</li>
+ * </ul>
+ * The WebContext is never inherited from the submitting thread,
+ * each task binds it when it starts and removes it when it ends,
+ * so it is visible on pooled platform threads and on virtual threads alike.
+ */
+@Slf4j
+public class HandlerExecutor {
+
+    public enum Mode {
+        INLINE, BLOCKING, ALL
+    }
+
+    private static final ByteBuf SERVICE_UNAVAILABLE = Unpooled.unreleasableBuffer(
+            Unpooled.wrappedBuffer("503 Service Unavailable".getBytes(StandardCharsets.UTF_8)));
+
+    private static final AsciiString SERVICE_UNAVAILABLE_LENGTH =
+            AsciiString.cached(String.valueOf(SERVICE_UNAVAILABLE.readableBytes()));
+
+    private static final AsciiString DEFAULT_RETRY_AFTER = AsciiString.cached(String.valueOf(DEFAULT_LIMITER_RETRY_AFTER));
+
+    private final Mode            mode;
+    private final ExecutorService executor;
+
+    HandlerExecutor(Mode mode, ExecutorService executor) {
+        this.mode = mode;
+        this.executor = executor;
+    }
+
+    public static HandlerExecutor create(Environment environment, RouteMatcher routeMatcher) {
+        boolean virtual = "virtual".equals(environment.get(ENV_KEY_SERVER_EXECUTOR, "platform"));
+
+        Mode mode = Mode.valueOf(environment.get(ENV_KEY_NETTY_HANDLER_MODE, virtual ? "all" : "blocking").toUpperCase());
+        if (mode == Mode.INLINE && routeMatcher.hasStreamingRoute()) {
+            log.warn("{}Streaming body routes can not read on the event loop, use handler-mode blocking", getStartedSymbol());
+            mode = Mode.BLOCKING;
+        }
+        if (mode == Mode.BLOCKING && !routeMatcher.hasBlockingRoute()) {
+            mode = Mode.INLINE;
+        }
+
+        int threads   = environment.getInt(ENV_KEY_NETTY_HANDLER_THREADS, DEFAULT_HANDLER_THREADS);
+        int queueSize = environment.getInt(ENV_KEY_NETTY_HANDLER_QUEUE_SIZE, DEFAULT_HANDLER_QUEUE_SIZE);
+
+        if (mode == Mode.INLINE) {
+            return new HandlerExecutor(mode, null);
+        }
+
+        ExecutorService executor = null;
+        if (virtual) {
+            executor = newVirtualExecutor();
+            if (null == executor) {
+                log.warn("{}Virtual threads require JDK 21+, fall back to platform threads", getStartedSymbol());
+            } else {
+                log.info("{}Use handler executor, mode: {}, virtual threads", getStartedSymbol(), mode.name().toLowerCase());
+            }
+        }
+        if (null == executor) {
+            executor = newPlatformExecutor(threads, queueSize);
+            log.info("{}Use handler executor, mode: {}, threads: {}, queue: {}",
+                    getStartedSymbol(), mode.name().toLowerCase(), threads, queueSize);
+        }
+        return new HandlerExecutor(mode, executor);
+    }
+
+    static ExecutorService newPlatformExecutor(int threads, int queueSize) {
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), new DefaultThreadFactory("handler@"));
+    }
+
+    /**
+     * Create a virtual thread per task executor,
+     * looked up reflectively so that the framework still compiles and runs on JDK 8.
+     *
+     * @return return virtual thread executor, null if the running JDK does not support it
+     */
+    static ExecutorService newVirtualExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Whether the dispatch decision depends on the matched route
+     *
+     * @return return need lookup route before dispatch
+     */
+    public boolean isRouteAware() {
+        return mode == Mode.BLOCKING;
+    }
+
+    /**
+     * Whether the request leaves the event loop
+     *
+     * @param route matched route, may be null
+     * @return return request is executed on the handler thread pool
+     */
+    public boolean isOffload(Route route) {
+        if (mode == Mode.ALL) {
+            return true;
+        }
+        return mode == Mode.BLOCKING && null != route && route.isBlocking();
+    }
+
+    /**
+     * Execute the route logic on the handler thread pool,
+     * the WebContext is bound to the worker thread while the task is running.
+     *
+     * @param webContext current request context
+     * @param task       route logic, it writes the response by itself
+     * @return return false if the task is rejected, the caller should answer 503
+     */
+    public boolean execute(WebContext webContext, Consumer<WebContext> task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    WebContext.set(webContext);
+                    task.accept(webContext);
+                } finally {
+                    WebContext.remove();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // never run the task on the caller, it is the event loop
+            log.warn("Handler executor is busy, reject request: {}", webContext.getRequest().uri());
+            return false;
+        }
+    }
+
+    public static FullHttpResponse serviceUnavailable() {
+        return serviceUnavailable(DEFAULT_RETRY_AFTER);
+    }
+
+    /**
+     * 503 response made of pre-encoded values, the body is a shared buffer
+     *
+     * @param retryAfter Retry-After seconds
+     * @return return 503 response
+     */
+    public static FullHttpResponse serviceUnavailable(AsciiString retryAfter) {
+        HttpHeaders headers = new DefaultHttpHeaders(false);
+        headers.add(HttpConst.CONTENT_TYPE, HttpConst.TEXT_CONTENT_TYPE);
+        headers.add(HttpConst.CONTENT_LENGTH, SERVICE_UNAVAILABLE_LENGTH);
+        headers.add(HttpHeaderNames.RETRY_AFTER, retryAfter);
+        headers.add(HttpConst.DATE, HttpServerInitializer.dateValue);
+
+        return new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.SERVICE_UNAVAILABLE,
+                SERVICE_UNAVAILABLE.duplicate(), headers, EmptyHttpHeaders.INSTANCE);
+    }
+
+    public void shutdown() {
+        if (null != executor) {
+            executor.shutdown();
+        }
+    }
+
+}
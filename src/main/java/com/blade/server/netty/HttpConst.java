@@ -3,8 +3,8 @@ package com.blade.server.netty;
 import com.blade.mvc.Const;
 import io.netty.util.AsciiString;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Http headers const
@@ -22,6 +22,7 @@ public interface HttpConst {
     String ACCEPT_ENCODING     = "Accept-Encoding";
     String COOKIE_STRING       = "Cookie";
     String METHOD_GET          = "GET";
+    String LAST_EVENT_ID       = "Last-Event-ID";
     String DEFAULT_SESSION_KEY = "SESSION";
     String SLASH               = "/";
     char   CHAR_SLASH          = '/';
@@ -40,9 +41,35 @@ public interface HttpConst {
     AsciiString SET_COOKIE       = AsciiString.cached("Set-Cookie");
     AsciiString KEEP_ALIVE       = AsciiString.cached("keep-alive");
     AsciiString X_POWER_BY       = AsciiString.cached("X-Powered-By");
+    AsciiString X_FORWARDED_FOR  = AsciiString.cached("X-Forwarded-For");
     AsciiString HEADER_VERSION   = AsciiString.cached(VERSION);
 
-    Map<String, AsciiString> CACHE = new HashMap<>(16);
+    AsciiString HTML_CONTENT_TYPE = AsciiString.cached(Const.CONTENT_TYPE_HTML);
+    AsciiString JSON_CONTENT_TYPE = AsciiString.cached(Const.CONTENT_TYPE_JSON);
+    AsciiString TEXT_CONTENT_TYPE = AsciiString.cached(Const.CONTENT_TYPE_TEXT);
+    AsciiString EVENT_STREAM_TYPE = AsciiString.cached("text/event-stream; charset=UTF-8");
+    AsciiString NO_CACHE          = AsciiString.cached("no-cache");
+
+    Map<String, AsciiString> CACHE = new ConcurrentHashMap<>(16);
+
+    /**
+     * The common content types are pre-encoded, the others are written as they are
+     *
+     * @param contentType content type
+     * @return return header value
+     */
+    static CharSequence contentTypeValue(String contentType) {
+        switch (contentType) {
+            case Const.CONTENT_TYPE_HTML:
+                return HTML_CONTENT_TYPE;
+            case Const.CONTENT_TYPE_JSON:
+                return JSON_CONTENT_TYPE;
+            case Const.CONTENT_TYPE_TEXT:
+                return TEXT_CONTENT_TYPE;
+            default:
+                return contentType;
+        }
+    }
 
     static AsciiString getAsciiString(String name) {
         return CACHE.computeIfAbsent(name, AsciiString::cached);
@@ -0,0 +1,112 @@
+package com.blade.server.netty;
+
+import com.blade.mvc.http.HttpRequest;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedInput;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * HTTP/1.1 pipelining
+ * <p>
+ * A client may send the next requests before the previous response arrives,
+ * the responses must go back in the same order.
+ * A request is dispatched only when the response of the previous one has been written completely,
+ * the requests that arrive in the meantime wait in a per connection queue,
+ * so a slow route running on the handler thread pool can not be overtaken by the next request.
+ * When the queue holds server.netty.max-pipelined-requests requests the connection stops reading.
+ * <p>
+ * A response ends with its LastHttpContent, or with a ChunkedInput (file, stream) when a ChunkedWriteHandler
+ * sits on the head side: that handler writes the chunks and the LastHttpContent, this handler only sees the input,
+ * so the response ends when the write of the input completes.
+ */
+public class HttpPipeliningHandler extends ChannelDuplexHandler {
+
+    private final int                maxPipelined;
+    private final Deque<HttpRequest> pending = new ArrayDeque<>(4);
+
+    private boolean inFlight;
+    private boolean paused;
+
+    public HttpPipeliningHandler(int maxPipelined) {
+        this.maxPipelined = maxPipelined;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof HttpRequest)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        if (inFlight) {
+            pending.add((HttpRequest) msg);
+            if (pending.size() >= maxPipelined && !paused) {
+                paused = true;
+                ctx.channel().config().setAutoRead(false);
+            }
+            return;
+        }
+        inFlight = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof ChunkedInput && inFlight) {
+            ChannelPromise written = promise.unvoid();
+            written.addListener(future -> this.responseWritten(ctx));
+            ctx.write(msg, written);
+            return;
+        }
+        ctx.write(msg, promise);
+        if (msg instanceof LastHttpContent) {
+            this.responseWritten(ctx);
+        }
+    }
+
+    private void responseWritten(ChannelHandlerContext ctx) {
+        if (!inFlight) {
+            return;
+        }
+        inFlight = false;
+        if (!pending.isEmpty()) {
+            // not on the stack of the current write, an inline route would write again right here
+            ctx.executor().execute(() -> this.dispatchNext(ctx));
+        }
+    }
+
+    private void dispatchNext(ChannelHandlerContext ctx) {
+        HttpRequest request = pending.poll();
+        if (null == request || inFlight) {
+            return;
+        }
+        if (!ctx.channel().isActive()) {
+            request.recycle();
+            return;
+        }
+        inFlight = true;
+        if (paused && pending.size() < maxPipelined / 2 + 1) {
+            paused = false;
+            ctx.channel().config().setAutoRead(true);
+        }
+        ctx.fireChannelRead(request);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        HttpRequest request;
+        while (null != (request = pending.poll())) {
+            request.recycle();
+        }
+        super.channelInactive(ctx);
+    }
+
+    int pendingRequests() {
+        return pending.size();
+    }
+
+}
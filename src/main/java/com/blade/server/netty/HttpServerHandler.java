@@ -16,15 +16,20 @@
 package com.blade.server.netty;
 
 import com.blade.exception.BladeException;
+import com.blade.exception.InternalErrorException;
 import com.blade.exception.NotFoundException;
+import com.blade.exception.ServiceUnavailableException;
 import com.blade.kit.BladeCache;
+import com.blade.kit.IOKit;
 import com.blade.kit.LRUSet;
 import com.blade.mvc.RouteContext;
 import com.blade.mvc.WebContext;
 import com.blade.mvc.handler.ExceptionHandler;
 import com.blade.mvc.http.*;
 import com.blade.mvc.route.Route;
+import com.blade.mvc.route.RouteMatch;
 import com.blade.mvc.route.RouteMatcher;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
@@ -32,15 +37,21 @@ import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.ScheduledFuture;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.InputStream;
 import java.time.Instant;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.blade.kit.BladeKit.*;
 import static com.blade.mvc.Const.*;
@@ -70,45 +81,216 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<HttpRequest>
     private final RouteMethodHandler routeHandler = new RouteMethodHandler();
     private final Set<String> notStaticUri = new LRUSet<>(128);
     private final RouteMatcher routeMatcher = WebContext.blade().routeMatcher();
+    private final long asyncTimeout = WebContext.blade().environment().getLong(ENV_KEY_ASYNC_TIMEOUT, DEFAULT_ASYNC_TIMEOUT);
+    private final RemoteAddressResolver remoteAddressResolver = RemoteAddressResolver.create(WebContext.blade().environment());
+    private final HandlerExecutor handlerExecutor;
 
-    @Override
-    public void channelReadComplete(ChannelHandlerContext ctx) {
-        ctx.flush();
+    public HttpServerHandler(HandlerExecutor handlerExecutor) {
+        this.handlerExecutor = handlerExecutor;
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, HttpRequest httpRequest) {
-        CompletableFuture<HttpRequest> future = CompletableFuture.completedFuture(httpRequest);
+        if (httpRequest.isPayloadTooLarge()) {
+            // in the order of the requests, the rest of the body is still arriving
+            httpRequest.recycle();
+            ctx.writeAndFlush(MergeRequestHandler.payloadTooLarge()).addListener(ChannelFutureListener.CLOSE);
+            return;
+        }
+        WebContext webContext = WebContext.create(httpRequest, HttpResponse.newInstance(), ctx);
+        try {
+            httpRequest.init(remoteAddressResolver.resolve(ctx.channel(), httpRequest.nettyRequest().headers()));
 
-        Executor executor = ctx.executor();
+            // found by MergeRequestHandler when some route has body settings
+            RouteMatch match = httpRequest.routeMatch();
+            if (null == match && handlerExecutor.isRouteAware()) {
+                match = this.preLookupRoute(httpRequest);
+            }
+            webContext.setRouteMatch(match);
+            Route route = null != match ? match.getRoute() : null;
+            if (handlerExecutor.isOffload(route)) {
+                if (!handlerExecutor.execute(webContext, this::dispatch)) {
+                    this.rejected(webContext, route);
+                }
+                return;
+            }
+        } catch (Exception e) {
+            WebContext.set(webContext);
+            try {
+                this.handleException(e).addListener(recycleListener(webContext));
+            } finally {
+                WebContext.remove();
+            }
+            return;
+        }
+        try {
+            this.dispatch(webContext);
+        } finally {
+            // the context is recycled, the event loop must not keep it for the next request
+            WebContext.remove();
+        }
+    }
 
-        future.thenApplyAsync(req -> buildWebContext(ctx, req), executor)
-                .thenApplyAsync(this::executeLogic, executor)
-                .thenApplyAsync(this::buildResponse, executor)
-                .exceptionally(this::handleException)
-                .thenAcceptAsync(msg -> writeResponse(ctx, future, msg), ctx.channel().eventLoop());
+    /**
+     * The handler pool is full, answer 503. The body stream of a streaming route is closed,
+     * the connection too when the rest of the body is still arriving, nobody is going to read it.
+     */
+    private void rejected(WebContext webContext, Route route) {
+        FullHttpResponse response = HandlerExecutor.serviceUnavailable();
+        boolean          close    = false;
+        if (null != route && route.isStreamingBody()) {
+            InputStream body = webContext.getRequest().bodyStream();
+            close = body instanceof RequestBodyStream && !((RequestBodyStream) body).isEnded();
+        }
+        if (close) {
+            HttpUtil.setKeepAlive(response, false);
+        }
+        ChannelFuture future = webContext.getChannelHandlerContext().writeAndFlush(response);
+        if (close) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+        this.written(webContext, future);
     }
 
-    private WebContext buildWebContext(ChannelHandlerContext ctx,
-                                       HttpRequest req) {
+    /**
+     * Route, invoke, encode and write in one pass on the current thread.
+     */
+    private void dispatch(WebContext webContext) {
+        ChannelFuture future;
+        try {
+            this.executeLogic(webContext);
+            if (webContext.isAsync()) {
+                this.awaitAsync(webContext);
+                return;
+            }
+            future = routeHandler.writeResponse(webContext.getRequest(), webContext.getResponse(),
+                    webContext.getChannelHandlerContext());
+        } catch (Exception e) {
+            future = this.handleException(e);
+        }
+        this.written(webContext, future);
+    }
 
-        String remoteAddress = ctx.channel().remoteAddress().toString();
-        req.init(remoteAddress);
-        return WebContext.create(req, new HttpResponse(), ctx);
+    /**
+     * Write the response when the route result completes or times out, whichever comes first.
+     * Nothing waits for it, the current thread goes back to its pool or event loop.
+     * <p>
+     * On a timeout the route may still be running with its context, so the context goes back to the pool
+     * only when the result completes too. The result is not cancelled: cancelling a CompletableFuture
+     * completes it without stopping the task behind it.
+     */
+    private void awaitAsync(WebContext webContext) {
+        RouteContext       context   = webContext.routeContext();
+        CompletionStage<?> stage     = context.asyncResult();
+        long               timeout   = context.asyncTimeout() > 0 ? context.asyncTimeout() : asyncTimeout;
+        AtomicBoolean      completed = new AtomicBoolean();
+
+        ScheduledFuture<?> timer = webContext.getChannelHandlerContext().executor().schedule(() -> {
+            ChannelFuture future = this.completeAsync(webContext, completed, null,
+                    new ServiceUnavailableException("Async route did not complete in " + timeout + "ms"));
+            if (null != future) {
+                this.written(webContext, future, stage);
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+
+        stage.whenComplete((value, error) -> {
+            timer.cancel(false);
+            ChannelFuture future = this.completeAsync(webContext, completed, value, error);
+            if (null != future) {
+                this.written(webContext, future);
+            }
+        });
     }
 
-    private void writeResponse(ChannelHandlerContext ctx, CompletableFuture<HttpRequest> future, FullHttpResponse msg) {
-        ctx.writeAndFlush(msg);
-        future.complete(null);
+    /**
+     * Runs on the completing thread with the WebContext of the request bound to it,
+     * the WebContext that thread had is restored afterwards.
+     *
+     * @return return the future of the response, null if the response has already been written
+     */
+    private ChannelFuture completeAsync(WebContext webContext, AtomicBoolean completed, Object value, Throwable error) {
+        if (!completed.compareAndSet(false, true)) {
+            return null;
+        }
+        WebContext previous = WebContext.get();
+        WebContext.set(webContext);
+
+        ChannelFuture future;
+        try {
+            if (null != error) {
+                Throwable cause = error instanceof CompletionException && null != error.getCause() ? error.getCause() : error;
+                throw cause instanceof Exception ? (Exception) cause : new InternalErrorException(cause.toString());
+            }
+            routeHandler.completeAsync(webContext.routeContext(), value);
+            future = routeHandler.writeResponse(webContext.getRequest(), webContext.getResponse(),
+                    webContext.getChannelHandlerContext());
+        } catch (Exception e) {
+            future = this.handleException(e);
+        } finally {
+            if (null != previous) {
+                WebContext.set(previous);
+            } else {
+                WebContext.remove();
+            }
+        }
+        return future;
+    }
+
+    private void written(WebContext webContext, ChannelFuture future) {
+        // the listener may recycle the context before addListener returns
+        Route   route   = webContext.getRoute();
+        Request request = webContext.getRequest();
+        future.addListener(recycleListener(webContext));
+
+        // discard the part of a streaming body the route did not read
+        if (null != route && route.isStreamingBody()) {
+            IOKit.closeQuietly(request.bodyStream());
+        }
+    }
+
+    /**
+     * The response of a timed out route is written, the route itself still runs until its result completes
+     */
+    private void written(WebContext webContext, ChannelFuture future, CompletionStage<?> running) {
+        Route         route   = webContext.getRoute();
+        Request       request = webContext.getRequest();
+        AtomicInteger pending = new AtomicInteger(2);
+        Runnable recycle = () -> {
+            if (pending.decrementAndGet() == 0) {
+                if (null != route && route.isStreamingBody()) {
+                    IOKit.closeQuietly(request.bodyStream());
+                }
+                webContext.recycle();
+            }
+        };
+        future.addListener(f -> recycle.run());
+        running.whenComplete((value, error) -> recycle.run());
+    }
+
+    /**
+     * The request body is a view over the received buffers,
+     * they are released and the request objects go back to their pools
+     * once the response has been written.
+     */
+    private static ChannelFutureListener recycleListener(WebContext webContext) {
+        return future -> webContext.recycle();
+    }
+
+    private RouteMatch preLookupRoute(Request request) {
+        try {
+            return routeMatcher.match(request.method(), request.uri());
+        } catch (Exception e) {
+            // executeLogic will lookup again and report the error
+            return null;
+        }
     }
 
-    private FullHttpResponse handleException(Throwable e) {
+    private ChannelFuture handleException(Exception srcException) {
         Request request = WebContext.request();
         Response response = WebContext.response();
         String method = request.method();
         String uri = request.uri();
 
-        Exception srcException = (Exception) e.getCause().getCause();
         if (srcException instanceof BladeException) {
         } else {
             log500(log, method, uri);
@@ -119,60 +301,48 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<HttpRequest>
             log.error("", srcException);
         }
 
-        return routeHandler.handleResponse(
+        return routeHandler.writeResponse(
                 request, response, WebContext.get().getChannelHandlerContext()
         );
     }
 
-    private FullHttpResponse buildResponse(WebContext webContext) {
+    private void executeLogic(WebContext webContext) throws Exception {
         WebContext.set(webContext);
-        return routeHandler.handleResponse(
-                webContext.getRequest(), webContext.getResponse(),
-                webContext.getChannelHandlerContext()
-        );
-    }
-
-    private WebContext executeLogic(WebContext webContext) {
-        try {
-            WebContext.set(webContext);
-            Request request = webContext.getRequest();
-            String method = request.method();
-            String uri = request.uri();
-            Instant start = null;
+        Request request = webContext.getRequest();
+        String method = request.method();
+        String uri = request.uri();
+        Instant start = null;
 
-            if (ALLOW_COST && !PERFORMANCE) {
-                start = Instant.now();
-            }
+        if (ALLOW_COST && !PERFORMANCE) {
+            start = Instant.now();
+        }
 
-            if (isStaticFile(method, uri)) {
-                staticFileHandler.handle(webContext);
+        if (isStaticFile(method, uri)) {
+            staticFileHandler.handle(webContext);
+        } else {
+            if (HttpMethod.OPTIONS.name().equals(method) && null != WebContext.blade().corsMiddleware()) {
+                WebContext.blade().corsMiddleware().handle(webContext.routeContext());
             } else {
-                if (HttpMethod.OPTIONS.name().equals(method) && null != WebContext.blade().corsMiddleware()) {
-                    WebContext.blade().corsMiddleware().handle(new RouteContext(webContext.getRequest(), webContext.getResponse()));
-                } else {
-                    Route route = routeMatcher.lookupRoute(method, uri);
-                    if (null != route) {
-                        webContext.setRoute(route);
-                    } else {
+                if (null == webContext.getRouteMatch()) {
+                    RouteMatch match = routeMatcher.match(method, uri);
+                    if (null == match) {
                         throw new NotFoundException(uri);
                     }
-                    routeHandler.handle(webContext);
+                    webContext.setRouteMatch(match);
                 }
+                routeHandler.handle(webContext);
+            }
 
-                if (PERFORMANCE) {
-                    return webContext;
-                }
+            if (PERFORMANCE) {
+                return;
+            }
 
-                if (ALLOW_COST) {
-                    long cost = log200AndCost(log, start, BladeCache.getPaddingMethod(method), uri);
-                    request.attribute(REQUEST_COST_TIME, cost);
-                } else {
-                    log200(log, BladeCache.getPaddingMethod(method), uri);
-                }
+            if (ALLOW_COST) {
+                long cost = log200AndCost(log, start, BladeCache.getPaddingMethod(method), uri);
+                request.attribute(REQUEST_COST_TIME, cost);
+            } else {
+                log200(log, BladeCache.getPaddingMethod(method), uri);
             }
-            return webContext;
-        } catch (Exception e) {
-            throw BladeException.wrapper(e);
         }
     }
 
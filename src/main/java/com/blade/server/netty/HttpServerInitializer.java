@@ -3,13 +3,29 @@ package com.blade.server.netty;
 import com.blade.Blade;
 import com.blade.kit.DateKit;
 import com.blade.mvc.Const;
+import com.blade.mvc.route.RouteMatcher;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.HttpServerExpectContinueHandler;
-import io.netty.handler.ssl.SslContext;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.CleartextHttp2ServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.AsciiString;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
@@ -18,53 +34,195 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * HttpServerInitializer
+ * <p>
+ * When server.http2.enable is true, HTTP/2 is negotiated by ALPN over TLS,
+ * or accepted as h2c (prior knowledge and HTTP/1.1 upgrade) on plain connections.
+ * Each HTTP/2 stream is a child channel with its own HTTP/1 style pipeline,
+ * so the requests are served by the same MergeRequestHandler and HttpServerHandler.
+ * <p>
+ * The connections accepted on the unix domain socket (server.unix-socket.path) get the same pipeline without TLS.
+ * <p>
+ * Pipelined HTTP/1.1 requests are answered in order by {@link HttpPipeliningHandler},
+ * server.netty.flush-consolidation (default 256, 0 disables) lets the responses written
+ * during one read share a flush.
  */
 @Slf4j
-public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
+public class HttpServerInitializer extends ChannelInitializer<Channel> {
 
     private final HttpServerHandler httpServerHandler;
 
-    private final SslContext sslCtx;
+    private final ServerSslContext sslCtx;
     private final Blade blade;
     private final boolean isWebSocket;
-    private final boolean useGZIP;
+    private final CompressionOptions compressionOptions;
+    private final long maxContentLength;
+    private final RouteMatcher bodyRouteMatcher;
+    private final boolean http2;
+    private final boolean alpn;
+    private final Http2Settings http2Settings;
+    private final ConcurrencyLimits concurrencyLimits;
+    private final int flushConsolidation;
+    private final int maxPipelined;
 
     public static volatile String date = DateKit.gmtDate(LocalDateTime.now());
 
+    /**
+     * Date header value written by the server, encoded once per second
+     */
+    static volatile AsciiString dateValue = new AsciiString(date);
 
-    public HttpServerInitializer(SslContext sslCtx, Blade blade, ScheduledExecutorService service) {
+
+    public HttpServerInitializer(ServerSslContext sslCtx, Blade blade, ScheduledExecutorService service,
+                                 HandlerExecutor handlerExecutor, ConcurrencyLimits concurrencyLimits) {
         this.sslCtx = sslCtx;
+        this.concurrencyLimits = concurrencyLimits;
         this.blade = blade;
-        this.useGZIP = blade.environment().getBoolean(Const.ENV_KEY_GZIP_ENABLE, false);
+        this.compressionOptions = CompressionOptions.create(blade.environment(), blade.routeMatcher(), blade.compressors());
         this.isWebSocket = blade.routeMatcher().getWebSockets().size() > 0;
-        this.httpServerHandler = new HttpServerHandler();
+        this.httpServerHandler = new HttpServerHandler(handlerExecutor);
+        this.maxContentLength = blade.environment().getLong(Const.ENV_KEY_NETTY_MAX_CONTENT_LENGTH, 0L);
+        this.bodyRouteMatcher = blade.routeMatcher().hasBodyAwareRoute() ? blade.routeMatcher() : null;
+        this.http2 = blade.environment().getBoolean(Const.ENV_KEY_HTTP2_ENABLE, false);
+        this.alpn = null != sslCtx && sslCtx.isAlpn();
+        this.http2Settings = Http2Settings.defaultSettings()
+                .maxConcurrentStreams(blade.environment().getInt(Const.ENV_KEY_HTTP2_MAX_STREAMS, Const.DEFAULT_HTTP2_MAX_STREAMS))
+                .initialWindowSize(blade.environment().getInt(Const.ENV_KEY_HTTP2_WINDOW_SIZE, Const.DEFAULT_HTTP2_WINDOW_SIZE))
+                .headerTableSize(blade.environment().getInt(Const.ENV_KEY_HTTP2_HEADER_TABLE_SIZE, Const.DEFAULT_HTTP2_HEADER_TABLE_SIZE));
+        this.flushConsolidation = blade.environment().getInt(Const.ENV_KEY_NETTY_FLUSH_CONSOLIDATION, Const.DEFAULT_FLUSH_CONSOLIDATION);
+        this.maxPipelined = blade.environment().getInt(Const.ENV_KEY_NETTY_MAX_PIPELINED, Const.DEFAULT_MAX_PIPELINED);
 
-        service.scheduleWithFixedDelay(() -> date = DateKit.gmtDate(LocalDateTime.now()), 1000, 1000, TimeUnit.MILLISECONDS);
+        service.scheduleWithFixedDelay(() -> {
+            date = DateKit.gmtDate(LocalDateTime.now());
+            dateValue = new AsciiString(date);
+        }, 1000, 1000, TimeUnit.MILLISECONDS);
     }
 
     @Override
-    protected void initChannel(SocketChannel ch) {
+    protected void initChannel(Channel ch) {
         ChannelPipeline pipeline = ch.pipeline();
+        // the unix domain socket is local to a proxy which terminates TLS
+        boolean tls = null != sslCtx && ch instanceof SocketChannel;
         try {
-            if (sslCtx != null) {
-                pipeline.addLast(sslCtx.newHandler(ch.alloc()));
+            if (flushConsolidation > 0) {
+                // the flushes of the responses written during one read share a single syscall
+                pipeline.addLast(new DeferredFlushConsolidationHandler(flushConsolidation));
             }
-
-            pipeline.addLast(new HttpServerCodec());
-            pipeline.addLast(new HttpServerExpectContinueHandler());
-
-            if (useGZIP) {
-                pipeline.addLast(new HttpContentCompressor());
+            if (tls) {
+                pipeline.addLast(sslCtx.newHandler(ch), sslCtx.newHandshakeCounter());
+                if (alpn) {
+                    pipeline.addLast(new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+                        @Override
+                        protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+                            if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                                ctx.pipeline().addLast(newHttp2FrameCodec(), newHttp2MultiplexHandler());
+                            } else {
+                                ctx.pipeline().addLast(new HttpServerCodec());
+                                addHttpHandlers(ctx.pipeline(), true, true);
+                            }
+                        }
+                    });
+                    return;
+                }
             }
 
-            if (isWebSocket) {
-                pipeline.addLast(new WebSocketHandler(blade));
+            HttpServerCodec sourceCodec = new HttpServerCodec();
+            if (http2 && !tls) {
+                HttpServerUpgradeHandler upgradeHandler = new HttpServerUpgradeHandler(sourceCodec, protocol ->
+                        AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol) ?
+                                new Http2ServerUpgradeCodec(newHttp2FrameCodec(), newHttp2MultiplexHandler()) : null);
+
+                // prior knowledge: the HTTP/2 handlers take the place of the upgrade handler,
+                // in front of the HTTP/1 handlers which stay in the pipeline unused
+                pipeline.addLast(new CleartextHttp2ServerUpgradeHandler(sourceCodec, upgradeHandler,
+                        new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void handlerAdded(ChannelHandlerContext ctx) {
+                                Http2FrameCodec frameCodec = newHttp2FrameCodec();
+                                ctx.pipeline().addAfter(ctx.name(), null, frameCodec)
+                                        .addAfter(ctx.pipeline().context(frameCodec).name(), null, newHttp2MultiplexHandler())
+                                        .remove(this);
+                            }
+                        }));
+            } else {
+                pipeline.addLast(sourceCodec);
             }
-            pipeline.addLast(new MergeRequestHandler());
-            pipeline.addLast(httpServerHandler);
+            addHttpHandlers(pipeline, true, tls || IoUringKit.isIoUringChannel(ch));
         } catch (Exception e) {
             log.error("Add channel pipeline error", e);
         }
     }
 
+    /**
+     * Add the handlers after the HTTP/1 codec,
+     * shared by HTTP/1.1 connections and HTTP/2 stream channels.
+     *
+     * @param pipeline  channel pipeline
+     * @param http1     whether this is an HTTP/1.1 connection, which can upgrade to WebSocket and pipeline requests
+     * @param chunked   whether the channel can not take a FileRegion (TLS, HTTP/2 stream, io_uring),
+     *                  then files are written as chunks
+     */
+    private void addHttpHandlers(ChannelPipeline pipeline, boolean http1, boolean chunked) {
+        pipeline.addLast(new HttpServerExpectContinueHandler());
+
+        if (null != compressionOptions) {
+            pipeline.addLast(new ContentCompressor(compressionOptions));
+        }
+        if (chunked) {
+            pipeline.addLast(new ChunkedWriteHandler());
+        }
+
+        if (http1 && isWebSocket) {
+            pipeline.addLast(new WebSocketHandler(blade));
+        }
+        pipeline.addLast(new MergeRequestHandler(bodyRouteMatcher, maxContentLength));
+        if (http1) {
+            pipeline.addLast(new HttpPipeliningHandler(maxPipelined));
+        }
+        if (null != concurrencyLimits) {
+            pipeline.addLast(new ConcurrencyLimitHandler(concurrencyLimits));
+        }
+        pipeline.addLast(httpServerHandler);
+    }
+
+    /**
+     * FlushConsolidationHandler flushes as soon as the channel turns unwritable, that is in the middle of a write.
+     * The flush can make the channel writable again and ChunkedWriteHandler would then write the next chunk
+     * ahead of the rest of the current one, so the flush waits for the current task to end.
+     */
+    private static class DeferredFlushConsolidationHandler extends FlushConsolidationHandler {
+
+        DeferredFlushConsolidationHandler(int explicitFlushAfterFlushes) {
+            super(explicitFlushAfterFlushes, true);
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+            if (ctx.channel().isWritable()) {
+                super.channelWritabilityChanged(ctx);
+                return;
+            }
+            ctx.executor().execute(() -> {
+                try {
+                    super.channelWritabilityChanged(ctx);
+                } catch (Exception e) {
+                    ctx.fireExceptionCaught(e);
+                }
+            });
+        }
+    }
+
+    private Http2FrameCodec newHttp2FrameCodec() {
+        return Http2FrameCodecBuilder.forServer().initialSettings(http2Settings).build();
+    }
+
+    private Http2MultiplexHandler newHttp2MultiplexHandler() {
+        return new Http2MultiplexHandler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(true));
+                addHttpHandlers(ch.pipeline(), false, true);
+            }
+        });
+    }
+
 }
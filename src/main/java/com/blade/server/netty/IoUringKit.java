@@ -0,0 +1,71 @@
+package com.blade.server.netty;
+
+import com.blade.kit.NamedThreadFactory;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import lombok.var;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * io_uring kit
+ * <p>
+ * enable io_uring event loop group, the transport is an incubator module,
+ * it is loaded reflectively when netty-incubator-transport-native-io_uring is on the classpath.
+ */
+class IoUringKit {
+
+    private static final String PACKAGE = "io.netty.incubator.channel.uring.";
+
+    /**
+     * Whether the io_uring transport can be used: the module is on the classpath and the kernel supports it
+     *
+     * @return return null if available, otherwise the reason
+     */
+    static String unavailableReason() {
+        try {
+            Class<?> ioUring = Class.forName(PACKAGE + "IOUring");
+            if ((Boolean) ioUring.getMethod("isAvailable").invoke(null)) {
+                return null;
+            }
+            Throwable cause = (Throwable) ioUring.getMethod("unavailabilityCause").invoke(null);
+            return null != cause ? cause.toString() : "not supported by the kernel";
+        } catch (ClassNotFoundException e) {
+            return "netty-incubator-transport-native-io_uring is not on the classpath";
+        } catch (Throwable e) {
+            return e.toString();
+        }
+    }
+
+    static NettyServerGroup group(int threadCount, int workers) throws Exception {
+        Class<?> groupClass = Class.forName(PACKAGE + "IOUringEventLoopGroup");
+
+        var bossGroup = threadCount > 0 ? (MultithreadEventLoopGroup) groupClass.getConstructor(int.class, ThreadFactory.class)
+                .newInstance(threadCount, new NamedThreadFactory("io_uring-boss@")) : null;
+        var workerGroup = (MultithreadEventLoopGroup) groupClass.getConstructor(int.class, ThreadFactory.class)
+                .newInstance(workers, new NamedThreadFactory("io_uring-worker@"));
+
+        Class<? extends ServerSocketChannel> socketChannel =
+                Class.forName(PACKAGE + "IOUringServerSocketChannel").asSubclass(ServerSocketChannel.class);
+
+        return NettyServerGroup.builder().boosGroup(bossGroup).workerGroup(workerGroup).socketChannel(socketChannel).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    static ChannelOption<Boolean> reusePortOption() throws Exception {
+        return (ChannelOption<Boolean>) Class.forName(PACKAGE + "IOUringChannelOption").getField("SO_REUSEPORT").get(null);
+    }
+
+    /**
+     * io_uring channels do not support FileRegion, files are written as chunks
+     *
+     * @param channel channel
+     * @return return whether the channel is an io_uring channel
+     */
+    static boolean isIoUringChannel(Channel channel) {
+        return channel.getClass().getName().startsWith(PACKAGE);
+    }
+
+}
@@ -15,18 +15,38 @@
  */
 package com.blade.server.netty;
 
+import com.blade.exception.PayloadTooLargeException;
+import com.blade.kit.PathKit;
+import com.blade.mvc.WebContext;
 import com.blade.mvc.handler.ExceptionHandler;
 import com.blade.mvc.http.HttpRequest;
+import com.blade.mvc.http.RequestBodyStream;
+import com.blade.mvc.route.Route;
+import com.blade.mvc.route.RouteMatch;
+import com.blade.mvc.route.RouteMatcher;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static com.blade.mvc.Const.CONTENT_TYPE_TEXT;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
 /**
  * Merge Netty HttpObject as {@link HttpRequest}
+ * <p>
+ * The request body is limited by server.netty.max-content-length or the route's
+ * {@link com.blade.mvc.annotation.MaxContentLength}, an oversized request is rejected
+ * from its Content-Length before any content is buffered. The rejected request still goes down the pipeline
+ * without its body, so its 413 leaves the connection after the responses of the requests before it.
+ * The route found for the body settings is kept on the request, it is not looked up again.
+ * A route that takes an InputStream parameter is dispatched as soon as the headers arrive,
+ * the contents are then fed to its {@link RequestBodyStream}.
  *
  * @author biezhi
  * 2018/10/15
@@ -34,27 +54,163 @@ import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 @Slf4j
 public class MergeRequestHandler extends SimpleChannelInboundHandler<HttpObject> {
 
-    private HttpRequest httpRequest;
+    private static final byte[] PAYLOAD_TOO_LARGE = "413 Payload Too Large".getBytes(StandardCharsets.UTF_8);
+
+    private final RouteMatcher routeMatcher;
+    private final long         maxContentLength;
+
+    private HttpRequest       httpRequest;
+    private RequestBodyStream bodyStream;
+    private long              contentLimit;
+    private long              received;
+    private boolean           discarding;
+
+    /**
+     * @param routeMatcher     find the per-route body settings, null if no route has them
+     * @param maxContentLength max request body bytes, 0 means unlimited
+     */
+    public MergeRequestHandler(RouteMatcher routeMatcher, long maxContentLength) {
+        this.routeMatcher = routeMatcher;
+        this.maxContentLength = maxContentLength;
+    }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) {
         if (msg instanceof io.netty.handler.codec.http.HttpRequest) {
-            httpRequest = new HttpRequest();
-            httpRequest.setNettyRequest((io.netty.handler.codec.http.HttpRequest) msg);
+            boolean accepted = this.startRequest(ctx, (io.netty.handler.codec.http.HttpRequest) msg);
+            if (!accepted || !(msg instanceof LastHttpContent)) {
+                return;
+            }
+        }
+        if (discarding) {
+            discarding = !(msg instanceof LastHttpContent);
             return;
         }
-        if (null != httpRequest && msg instanceof HttpContent) {
-            httpRequest.appendContent((HttpContent) msg);
+        if (msg instanceof HttpContent) {
+            HttpContent content = (HttpContent) msg;
+            received += content.content().readableBytes();
+            if (contentLimit > 0 && received > contentLimit) {
+                this.reject(ctx, msg instanceof LastHttpContent);
+                return;
+            }
+            if (null != bodyStream) {
+                bodyStream.offer(content.content().retain());
+                if (msg instanceof LastHttpContent) {
+                    bodyStream.end();
+                    bodyStream = null;
+                    httpRequest = null;
+                }
+                return;
+            }
+            if (null != httpRequest) {
+                httpRequest.appendContent(content);
+            }
         }
         if (msg instanceof LastHttpContent) {
             if (null != httpRequest) {
                 ctx.fireChannelRead(httpRequest);
+                httpRequest = null;
             } else {
                 ctx.fireChannelRead(msg);
             }
         }
     }
 
+    private boolean startRequest(ChannelHandlerContext ctx, io.netty.handler.codec.http.HttpRequest request) {
+        RouteMatch match = null != routeMatcher ? lookupRoute(routeMatcher, request) : null;
+        Route      route = null != match ? match.getRoute() : null;
+
+        contentLimit = null != route && route.getMaxContentLength() > 0 ? route.getMaxContentLength() : maxContentLength;
+        received = 0;
+        discarding = false;
+
+        httpRequest = HttpRequest.newInstance();
+        httpRequest.setNettyRequest(request);
+        if (null != match) {
+            httpRequest.initPathParams(match);
+        }
+
+        if (contentLimit > 0 && HttpUtil.getContentLength(request, -1L) > contentLimit) {
+            this.reject(ctx, request instanceof LastHttpContent);
+            return false;
+        }
+
+        if (null != route && route.isStreamingBody()) {
+            bodyStream = new RequestBodyStream(ctx.channel());
+            httpRequest.setBodyStream(bodyStream);
+            ctx.fireChannelRead(httpRequest);
+        }
+        return true;
+    }
+
+    /**
+     * Find the route of a request before it is merged
+     *
+     * @param routeMatcher route matcher
+     * @param request      netty request
+     * @return return the route match, null if not found
+     */
+    static RouteMatch lookupRoute(RouteMatcher routeMatcher, io.netty.handler.codec.http.HttpRequest request) {
+        String uri = request.uri();
+        int    pos = uri.indexOf('?');
+        if (pos >= 0) {
+            uri = uri.substring(0, pos);
+        }
+        String contextPath = WebContext.contextPath();
+        if (!"/".equals(contextPath)) {
+            uri = PathKit.cleanPath(uri.replaceFirst(contextPath, "/"));
+        }
+        try {
+            return routeMatcher.match(request.method().name(), uri);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Refuse the body which exceeds the limit and discard the rest of it.
+     * A streaming route has been dispatched already, it gets 413 from the stream,
+     * otherwise the request goes on without its body and the server handler answers 413 and closes the connection.
+     */
+    private void reject(ChannelHandlerContext ctx, boolean last) {
+        String message = "Request body exceeds " + contentLimit + " bytes";
+        if (null != bodyStream) {
+            bodyStream.fail(new PayloadTooLargeException(message));
+            bodyStream = null;
+        } else if (null != httpRequest) {
+            log.warn("{}, reject request", message);
+            httpRequest.releaseContents();
+            httpRequest.setPayloadTooLarge(true);
+            ctx.fireChannelRead(httpRequest);
+        }
+        httpRequest = null;
+        discarding = !last;
+    }
+
+    static FullHttpResponse payloadTooLarge() {
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1,
+                HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE, Unpooled.wrappedBuffer(PAYLOAD_TOO_LARGE));
+
+        response.headers().set(HttpConst.CONTENT_TYPE, CONTENT_TYPE_TEXT);
+        response.headers().set(HttpConst.CONTENT_LENGTH, PAYLOAD_TOO_LARGE.length);
+        response.headers().set(HttpConst.CONNECTION, HttpHeaderValues.CLOSE);
+        response.headers().set(HttpConst.DATE, HttpServerInitializer.dateValue);
+        return response;
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (null != bodyStream) {
+            bodyStream.fail(new IOException("Connection closed before the request body is complete"));
+            bodyStream = null;
+        }
+        if (null != httpRequest) {
+            httpRequest.releaseContents();
+            httpRequest = null;
+        }
+        super.channelInactive(ctx);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         if (!ExceptionHandler.isResetByPeer(cause)) {
@@ -64,4 +220,4 @@ public class MergeRequestHandler extends SimpleChannelInboundHandler<HttpObject>
         }
     }
 
-}
\ No newline at end of file
+}
@@ -56,24 +56,27 @@ import com.blade.task.cron.CronThreadPoolExecutor;
 import com.blade.watcher.EnvironmentWatcher;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultEventLoop;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.ssl.SslContext;
-import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.util.ResourceLeakDetector;
+import io.netty.util.concurrent.EventExecutor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.var;
 
-import java.io.File;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -98,11 +101,19 @@ public class NettyServer implements Server {
     private EventLoop           scheduleEventLoop;
     private EventLoopGroup      workerGroup;
     private Channel             channel;
+    private HandlerExecutor     handlerExecutor;
     private RouteBuilder        routeBuilder;
     private List<BeanProcessor> processors;
     private List<BladeLoader>   loaders;
     private List<TaskStruct>    taskStruts = new ArrayList<>();
 
+    private final List<ConnectionCounter> connectionCounters = new CopyOnWriteArrayList<>();
+    private       ConcurrencyLimits       concurrencyLimits;
+    private       ServerSslContext        sslContext;
+    private       String                  unixSocketPath;
+    private       EventLoopGroup          unixSocketBossGroup;
+    private       EventLoopGroup          unixSocketWorkerGroup;
+
     private volatile boolean isStop;
 
     @Override
@@ -150,6 +161,7 @@ public class NettyServer implements Server {
     private void initIoc() {
         RouteMatcher routeMatcher = blade.routeMatcher();
         routeMatcher.initMiddleware(blade.middleware());
+        routeMatcher.routeCache(environment.getInt(ENV_KEY_ROUTE_CACHE_SIZE, 0));
 
         routeBuilder = new RouteBuilder(routeMatcher);
 
@@ -185,21 +197,50 @@ public class NettyServer implements Server {
         this.processors.stream().sorted(new OrderComparator<>()).forEach(b -> b.processor(blade));
     }
 
+    /**
+     * Choose the first available transport from the configured one: io_uring, epoll, nio
+     *
+     * @param transport configured transport, auto tries io_uring then epoll
+     * @return return the transport to use
+     */
+    private String selectTransport(String transport) {
+        boolean auto = "auto".equals(transport);
+        if (auto || "io_uring".equals(transport)) {
+            String reason = IoUringKit.unavailableReason();
+            if (null == reason) {
+                return "io_uring";
+            }
+            if (!auto) {
+                log.warn("{}io_uring transport is not available: {}", getStartedSymbol(), reason);
+            }
+            transport = "epoll";
+        }
+        if ("epoll".equals(transport)) {
+            if (BladeKit.epollIsAvailable()) {
+                return "epoll";
+            }
+            if (!auto) {
+                log.warn("{}epoll transport is not available", getStartedSymbol());
+            }
+        } else if (!"nio".equals(transport)) {
+            log.warn("{}Unknown transport: {}, use nio", getStartedSymbol(), transport);
+        }
+        return "nio";
+    }
+
     private void startServer(long startMs) throws Exception {
 
-        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.DISABLED);
+        // disabled, simple, advanced, paranoid
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.valueOf(
+                environment.get(ENV_KEY_NETTY_LEAK_DETECTION, "disabled").toUpperCase()));
 
         boolean SSL = environment.getBoolean(ENV_KEY_SSL, false);
+        boolean http2 = environment.getBoolean(ENV_KEY_HTTP2_ENABLE, false);
         // Configure SSL.
-        SslContext sslCtx = null;
         if (SSL) {
-            String certFilePath       = environment.get(ENV_KEY_SSL_CERT, null);
-            String privateKeyPath     = environment.get(ENE_KEY_SSL_PRIVATE_KEY, null);
-            String privateKeyPassword = environment.get(ENE_KEY_SSL_PRIVATE_KEY_PASS, null);
-
-            log.info("{}SSL CertChainFile  Path: {}", getStartedSymbol(), certFilePath);
-            log.info("{}SSL PrivateKeyFile Path: {}", getStartedSymbol(), privateKeyPath);
-            sslCtx = SslContextBuilder.forServer(new File(certFilePath), new File(privateKeyPath), privateKeyPassword).build();
+            sslContext = ServerSslContext.create(environment);
+        } else if (http2) {
+            log.info("{}Enable HTTP/2 (h2c)", getStartedSymbol());
         }
 
         var bootstrap = new ServerBootstrap();
@@ -207,43 +248,122 @@ public class NettyServer implements Server {
         int acceptThreadCount = environment.getInt(ENC_KEY_NETTY_ACCEPT_THREAD_COUNT, DEFAULT_ACCEPT_THREAD_COUNT);
         int ioThreadCount     = environment.getInt(ENV_KEY_NETTY_IO_THREAD_COUNT, DEFAULT_IO_THREAD_COUNT);
 
-        // enable epoll
-        if (BladeKit.epollIsAvailable()) {
-            log.info("{}Use EpollEventLoopGroup", getStartedSymbol());
-            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        // auto, io_uring, epoll, nio
+        String transport = this.selectTransport(environment.get(ENV_KEY_NETTY_TRANSPORT, "auto").toLowerCase());
+        log.info("{}Use {} transport", getStartedSymbol(), transport);
+
+        // one listening socket per worker event loop, accepted connections stay on that loop
+        boolean reusePort = environment.getBoolean(ENV_KEY_NETTY_REUSE_PORT, false);
+        if (reusePort && "nio".equals(transport)) {
+            log.warn("{}SO_REUSEPORT listeners require the epoll or io_uring transport, use a single listener", getStartedSymbol());
+            reusePort = false;
+        }
+        if (reusePort) {
+            acceptThreadCount = 0;
+        }
 
-            NettyServerGroup nettyServerGroup = EpollKit.group(acceptThreadCount, ioThreadCount);
+        if (!"nio".equals(transport)) {
+            NettyServerGroup       nettyServerGroup;
+            ChannelOption<Boolean> reusePortOption;
+            if ("io_uring".equals(transport)) {
+                reusePortOption = IoUringKit.reusePortOption();
+                nettyServerGroup = IoUringKit.group(acceptThreadCount, ioThreadCount);
+            } else {
+                reusePortOption = EpollChannelOption.SO_REUSEPORT;
+                nettyServerGroup = EpollKit.group(acceptThreadCount, ioThreadCount);
+            }
+            bootstrap.option(reusePortOption, true);
             this.bossGroup = nettyServerGroup.getBoosGroup();
             this.workerGroup = nettyServerGroup.getWorkerGroup();
-            bootstrap.group(bossGroup, workerGroup).channel(nettyServerGroup.getSocketChannel());
+            bootstrap.channel(nettyServerGroup.getSocketChannel());
+            if (!reusePort) {
+                bootstrap.group(bossGroup, workerGroup);
+            }
         } else {
-            log.info("{}Use NioEventLoopGroup", getStartedSymbol());
-
             this.bossGroup = new NioEventLoopGroup(acceptThreadCount, new NamedThreadFactory("boss@"));
             this.workerGroup = new NioEventLoopGroup(ioThreadCount, new NamedThreadFactory("worker@"));
             bootstrap.group(bossGroup, workerGroup).channel(NioServerSocketChannel.class);
         }
 
         scheduleEventLoop = new DefaultEventLoop();
+        if (null != sslContext) {
+            sslContext.schedule(scheduleEventLoop);
+        }
+
+        handlerExecutor = HandlerExecutor.create(environment, blade.routeMatcher());
 
-        bootstrap.childHandler(new HttpServerInitializer(sslCtx, blade, scheduleEventLoop));
+        concurrencyLimits = ConcurrencyLimits.create(environment);
+
+        var initializer = new HttpServerInitializer(sslContext, blade, scheduleEventLoop, handlerExecutor, concurrencyLimits);
+        bootstrap.childHandler(initializer);
 
         String  address = environment.get(ENV_KEY_SERVER_ADDRESS, DEFAULT_SERVER_ADDRESS);
         Integer port    = environment.getInt(ENV_KEY_SERVER_PORT, DEFAULT_SERVER_PORT);
 
-        channel = bootstrap.bind(address, port).sync().channel();
-
-        String appName  = environment.get(ENV_KEY_APP_NAME, "Blade");
-        String url      = Ansi.BgRed.and(Ansi.Black).format(" %s:%d ", address, port);
-        String protocol = SSL ? "https" : "http";
+        unixSocketPath = environment.get(ENV_KEY_UNIX_SOCKET_PATH, null);
+        if (null != unixSocketPath && !BladeKit.epollIsAvailable()) {
+            log.warn("{}Unix domain socket requires the epoll transport, listen on TCP only", getStartedSymbol());
+            unixSocketPath = null;
+        }
+        boolean tcp = null == unixSocketPath || !environment.getBoolean(ENV_KEY_UNIX_SOCKET_ONLY, false);
+
+        if (!tcp) {
+            log.info("{}Do not listen on TCP, {} is set", getStartedSymbol(), ENV_KEY_UNIX_SOCKET_ONLY);
+        } else if (reusePort) {
+            int listener = 0;
+            for (EventExecutor eventLoop : workerGroup) {
+                var counter = new ConnectionCounter(listener++);
+                var ch = bootstrap.clone().group((EventLoop) eventLoop, (EventLoop) eventLoop)
+                        .handler(counter).bind(address, port).sync().channel();
+                if (null == channel) {
+                    channel = ch;
+                }
+                connectionCounters.add(counter);
+            }
+            log.info("{}Listen on {} SO_REUSEPORT sockets", getStartedSymbol(), connectionCounters.size());
+        } else {
+            var counter = new ConnectionCounter(0);
+            channel = bootstrap.handler(counter).bind(address, port).sync().channel();
+            connectionCounters.add(counter);
+        }
+        if (null != unixSocketPath) {
+            this.bindUnixSocket(initializer, transport, ioThreadCount);
+        }
 
+        String appName = environment.get(ENV_KEY_APP_NAME, "Blade");
         log.info("{}{} initialize successfully, Time elapsed: {} ms", getStartedSymbol(), appName, (System.currentTimeMillis() - startMs));
-        log.info("{}Blade start with {}", getStartedSymbol(), url);
-        log.info("{}Open browser access {}://{}:{} ⚡\r\n", getStartedSymbol(), protocol, address.replace(DEFAULT_SERVER_ADDRESS, LOCAL_IP_ADDRESS), port);
+        if (tcp) {
+            String url      = Ansi.BgRed.and(Ansi.Black).format(" %s:%d ", address, port);
+            String protocol = SSL ? "https" : "http";
+            log.info("{}Blade start with {}", getStartedSymbol(), url);
+            log.info("{}Open browser access {}://{}:{} ⚡\r\n", getStartedSymbol(), protocol, address.replace(DEFAULT_SERVER_ADDRESS, LOCAL_IP_ADDRESS), port);
+        }
 
         blade.eventManager().fireEvent(EventType.SERVER_STARTED, new Event().attribute("blade", blade));
     }
 
+    /**
+     * Listen on a unix domain socket with the same pipeline as the TCP listener.
+     * The epoll event loops of the server are shared, with another transport the socket gets its own.
+     */
+    private void bindUnixSocket(HttpServerInitializer initializer, String transport, int ioThreadCount) throws Exception {
+        EventLoopGroup boss   = bossGroup;
+        EventLoopGroup worker = workerGroup;
+        if (!"epoll".equals(transport)) {
+            NettyServerGroup group = EpollKit.group(1, ioThreadCount);
+            boss = unixSocketBossGroup = group.getBoosGroup();
+            worker = unixSocketWorkerGroup = group.getWorkerGroup();
+        }
+        var counter   = new ConnectionCounter(connectionCounters.size());
+        var bootstrap = new ServerBootstrap().group(null != boss ? boss : worker, worker).handler(counter).childHandler(initializer);
+        var ch        = EpollKit.bindDomainSocket(bootstrap, unixSocketPath).sync().channel();
+        if (null == channel) {
+            channel = ch;
+        }
+        connectionCounters.add(counter);
+        log.info("{}Listen on unix domain socket {}", getStartedSymbol(), unixSocketPath);
+    }
+
     private void startTask() {
         if (taskStruts.isEmpty()) {
             return;
@@ -411,6 +531,7 @@ public class NettyServer implements Server {
         isStop = true;
         System.out.println();
         log.info("{}Blade shutdown ...", getStartedSymbol());
+        this.logConnections();
         try {
             WebContext.clean();
             if (this.bossGroup != null) {
@@ -419,6 +540,16 @@ public class NettyServer implements Server {
             if (this.workerGroup != null) {
                 this.workerGroup.shutdownGracefully();
             }
+            if (this.unixSocketBossGroup != null) {
+                this.unixSocketBossGroup.shutdownGracefully();
+                this.unixSocketWorkerGroup.shutdownGracefully();
+            }
+            if (this.unixSocketPath != null) {
+                Files.deleteIfExists(Paths.get(unixSocketPath));
+            }
+            if (this.handlerExecutor != null) {
+                this.handlerExecutor.shutdown();
+            }
             log.info("{}Blade shutdown successful", getStartedSymbol());
         } catch (Exception e) {
             log.error("Blade shutdown error", e);
@@ -433,6 +564,7 @@ public class NettyServer implements Server {
         isStop = true;
         System.out.println();
         log.info("{}Blade shutdown ...", getStartedSymbol());
+        this.logConnections();
         try {
             if (this.bossGroup != null) {
                 this.bossGroup.shutdownGracefully().sync();
@@ -440,6 +572,16 @@ public class NettyServer implements Server {
             if (this.workerGroup != null) {
                 this.workerGroup.shutdownGracefully().sync();
             }
+            if (this.unixSocketBossGroup != null) {
+                this.unixSocketBossGroup.shutdownGracefully().sync();
+                this.unixSocketWorkerGroup.shutdownGracefully().sync();
+            }
+            if (this.unixSocketPath != null) {
+                Files.deleteIfExists(Paths.get(unixSocketPath));
+            }
+            if (this.handlerExecutor != null) {
+                this.handlerExecutor.shutdown();
+            }
             log.info("{}Blade shutdown successful", getStartedSymbol());
         } catch (Exception e) {
             log.error("Blade shutdown error", e);
@@ -451,6 +593,46 @@ public class NettyServer implements Server {
         channel.closeFuture().sync();
     }
 
+    /**
+     * Connection counters, one per listening socket
+     *
+     * @return return connection counters
+     */
+    public List<ConnectionCounter> connectionCounters() {
+        return connectionCounters;
+    }
+
+    /**
+     * Concurrency limiters: current limit, requests in flight and rejections
+     *
+     * @return return concurrency limiters, empty if server.limiter.enable is false
+     */
+    public List<ConcurrencyLimiter> concurrencyLimiters() {
+        return null != concurrencyLimits ? concurrencyLimits.limiters() : Collections.emptyList();
+    }
+
+    /**
+     * TLS context: handshake and resumption counters
+     *
+     * @return return TLS context, null if server.ssl.enable is false
+     */
+    public ServerSslContext sslContext() {
+        return sslContext;
+    }
+
+    private void logConnections() {
+        if (connectionCounters.size() > 1) {
+            connectionCounters.forEach(counter -> log.info("{}{}", getStartedSymbol(), counter));
+        }
+        this.concurrencyLimiters().forEach(limiter -> log.info("{}{}", getStartedSymbol(), limiter));
+        if (null != sslContext) {
+            log.info("{}{}", getStartedSymbol(), sslContext);
+        }
+        if (null != blade && null != blade.routeMatcher().getRouteCache()) {
+            log.info("{}{}", getStartedSymbol(), blade.routeMatcher().getRouteCache());
+        }
+    }
+
     /**
      * print blade start banner text
      */
@@ -0,0 +1,119 @@
+package com.blade.server.netty;
+
+import com.blade.Environment;
+import com.blade.kit.StringKit;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.blade.mvc.Const.ENV_KEY_TRUSTED_PROXIES;
+import static com.blade.mvc.Const.ENV_KEY_UNIX_SOCKET_TRUST_FORWARD;
+
+/**
+ * Resolve the remote address of a request
+ * <p>
+ * It is the peer of the connection, unless the peer is a trusted proxy,
+ * then the X-Forwarded-For entries are read from the right and the first one which is not a trusted proxy is the client.
+ * server.trusted-proxies lists the addresses of the trusted proxies, the peers of the unix domain socket
+ * are local processes and trusted unless server.unix-socket.trust-forwarded is false.
+ * <p>
+ * A unix domain socket peer without X-Forwarded-For is named unix:{socket path}.
+ */
+class RemoteAddressResolver {
+
+    private static final String DOMAIN_SOCKET_ADDRESS = "io.netty.channel.unix.DomainSocketAddress";
+
+    private final Set<String> trustedProxies;
+    private final boolean     trustUnixSocket;
+
+    RemoteAddressResolver(Set<String> trustedProxies, boolean trustUnixSocket) {
+        this.trustedProxies = trustedProxies;
+        this.trustUnixSocket = trustUnixSocket;
+    }
+
+    static RemoteAddressResolver create(Environment environment) {
+        Set<String> trustedProxies = environment.get(ENV_KEY_TRUSTED_PROXIES)
+                .map(value -> Arrays.stream(value.split(","))
+                        .map(String::trim)
+                        .filter(StringKit::isNotBlank)
+                        .collect(Collectors.toSet()))
+                .orElse(Collections.emptySet());
+        return new RemoteAddressResolver(trustedProxies, environment.getBoolean(ENV_KEY_UNIX_SOCKET_TRUST_FORWARD, true));
+    }
+
+    /**
+     * @param channel channel of the request
+     * @param headers request headers
+     * @return return the client address, ip:port of a direct peer or the ip forwarded by a trusted proxy
+     */
+    String resolve(Channel channel, HttpHeaders headers) {
+        SocketAddress address = channel.remoteAddress();
+
+        String  peer;
+        boolean trusted;
+        if (address instanceof InetSocketAddress) {
+            InetSocketAddress socketAddress = (InetSocketAddress) address;
+            String host = null != socketAddress.getAddress() ?
+                    socketAddress.getAddress().getHostAddress() : socketAddress.getHostString();
+            peer = host + ":" + socketAddress.getPort();
+            trusted = trustedProxies.contains(host);
+        } else {
+            SocketAddress domainAddress = domainSocketAddress(channel);
+            if (null == domainAddress) {
+                return String.valueOf(address);
+            }
+            peer = "unix:" + domainAddress;
+            trusted = trustUnixSocket;
+        }
+
+        if (trusted) {
+            String client = this.forwardedClient(headers.getAll(HttpConst.X_FORWARDED_FOR));
+            if (null != client) {
+                return client;
+            }
+        }
+        return peer;
+    }
+
+    /**
+     * An accepted unix domain socket has no address of its own, the listening socket is its parent
+     */
+    private static SocketAddress domainSocketAddress(Channel channel) {
+        for (; null != channel; channel = channel.parent()) {
+            SocketAddress address = channel.localAddress();
+            if (null != address && DOMAIN_SOCKET_ADDRESS.equals(address.getClass().getName())) {
+                return address;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The right most entry is added by the nearest proxy, skip the trusted ones
+     */
+    private String forwardedClient(List<String> forwardedFor) {
+        String client = null;
+        for (int i = forwardedFor.size() - 1; i >= 0; i--) {
+            String[] entries = forwardedFor.get(i).split(",");
+            for (int j = entries.length - 1; j >= 0; j--) {
+                String entry = entries[j].trim();
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                client = entry;
+                if (!trustedProxies.contains(entry)) {
+                    return client;
+                }
+            }
+        }
+        return client;
+    }
+
+}
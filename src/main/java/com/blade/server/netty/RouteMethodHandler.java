@@ -3,14 +3,12 @@ package com.blade.server.netty;
 import com.blade.exception.BladeException;
 import com.blade.exception.InternalErrorException;
 import com.blade.exception.NotFoundException;
-import com.blade.kit.BladeCache;
 import com.blade.kit.BladeKit;
-import com.blade.kit.ReflectKit;
+import com.blade.kit.IOKit;
+import com.blade.kit.JsonKit;
 import com.blade.mvc.Const;
 import com.blade.mvc.RouteContext;
 import com.blade.mvc.WebContext;
-import com.blade.mvc.annotation.JSON;
-import com.blade.mvc.annotation.Path;
 import com.blade.mvc.handler.RequestHandler;
 import com.blade.mvc.handler.RouteHandler;
 import com.blade.mvc.handler.RouteHandler0;
@@ -18,26 +16,25 @@ import com.blade.mvc.hook.WebHook;
 import com.blade.mvc.http.*;
 import com.blade.mvc.http.Cookie;
 import com.blade.mvc.route.Route;
+import com.blade.mvc.route.RouteMatch;
 import com.blade.mvc.route.RouteMatcher;
+import com.blade.mvc.route.RoutePlan;
 import com.blade.mvc.ui.ModelAndView;
-import com.blade.reflectasm.MethodAccess;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.*;
-import io.netty.handler.stream.ChunkedStream;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import lombok.extern.slf4j.Slf4j;
 import lombok.var;
 
 import java.io.Closeable;
-import java.io.InputStream;
 import java.io.StringWriter;
-import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 import static com.blade.server.netty.HttpConst.CONTENT_LENGTH;
 import static com.blade.server.netty.HttpConst.KEEP_ALIVE;
@@ -58,19 +55,23 @@ public class RouteMethodHandler implements RequestHandler {
     private final boolean      hasBeforeHook = routeMatcher.hasBeforeHook();
     private final boolean      hasAfterHook  = routeMatcher.hasAfterHook();
 
+    private final int     sseHeartbeat      = WebContext.blade().environment().getInt(Const.ENV_KEY_SSE_HEARTBEAT, Const.DEFAULT_SSE_HEARTBEAT);
+    private final int     sseMaxPending     = WebContext.blade().environment().getInt(Const.ENV_KEY_SSE_MAX_PENDING, Const.DEFAULT_SSE_MAX_PENDING);
+    private final boolean sseDropOnOverflow = "drop".equals(WebContext.blade().environment().get(Const.ENV_KEY_SSE_OVERFLOW, Const.DEFAULT_SSE_OVERFLOW));
+
     @Override
     public void handle(WebContext webContext) throws Exception {
-        RouteContext context = new RouteContext(webContext.getRequest(), webContext.getResponse());
+        RouteContext context = webContext.routeContext();
 
         // if execution returns false then execution is interrupted
-        String uri   = context.uri();
-        Route  route = webContext.getRoute();
-        if (null == route) {
+        String     uri   = context.uri();
+        RouteMatch match = webContext.getRouteMatch();
+        if (null == match) {
             throw new NotFoundException(context.uri());
         }
 
         // init route, request parameters, route action method and parameter.
-        context.initRoute(route);
+        context.initRoute(match);
 
         // execution middleware
         if (hasMiddleware && !invokeMiddleware(routeMatcher.getMiddleware(), context)) {
@@ -79,20 +80,79 @@ public class RouteMethodHandler implements RequestHandler {
         context.injectParameters();
 
         // web hook before
-        if (hasBeforeHook && !invokeHook(routeMatcher.getBefore(uri), context)) {
+        if (hasBeforeHook && !invokeHook(routeMatcher.beforeHooks(uri), context)) {
             return;
         }
 
         // execute
         this.routeHandle(context);
 
-        // webHook
+        // webHook, an asynchronous route runs it when its result completes
+        if (hasAfterHook && !context.isAsync()) {
+            this.invokeHook(routeMatcher.afterHooks(uri), context);
+        }
+    }
+
+    /**
+     * Apply the completed result of an asynchronous route, then run the after hooks
+     *
+     * @param context route context, bound to the current thread
+     * @param value   completed value of {@link RouteContext#asyncResult()}
+     * @throws Exception throw like hook exception
+     */
+    public void completeAsync(RouteContext context, Object value) throws Exception {
+        if (value instanceof Body) {
+            context.body((Body) value);
+        } else if (null != value) {
+            context.json(value);
+        }
         if (hasAfterHook) {
-            this.invokeHook(routeMatcher.getAfter(uri), context);
+            this.invokeHook(routeMatcher.afterHooks(context.uri()), context);
         }
     }
 
-    public FullHttpResponse handleResponse(Request request, Response response, ChannelHandlerContext context) {
+    /**
+     * Write the response of a request,
+     * a {@link StreamBody} is sent chunk by chunk as the channel drains, a {@link SseBody} stays open as an event stream,
+     * any other body is sent in one piece.
+     *
+     * @param request  request
+     * @param response response
+     * @param context  channel handler context
+     * @return return the future completed when the whole response is written
+     */
+    public ChannelFuture writeResponse(Request request, Response response, ChannelHandlerContext context) {
+        ChannelOutputStream outputStream = response instanceof com.blade.mvc.http.HttpResponse ?
+                ((com.blade.mvc.http.HttpResponse) response).channelOutputStream() : null;
+        if (null != outputStream) {
+            if (response.body() == outputStream.body()) {
+                // the route did not close the stream
+                IOKit.closeQuietly(outputStream);
+            } else {
+                outputStream.discard();
+            }
+            if (outputStream.isCommitted()) {
+                ChannelFuture future = outputStream.lastContentFuture();
+                if (null == future) {
+                    // the response head is gone, the error can not be answered
+                    return context.close();
+                }
+                if (!request.keepAlive()) {
+                    future.addListener(ChannelFutureListener.CLOSE);
+                }
+                return future;
+            }
+        }
+        if (response.body() instanceof StreamBody) {
+            return this.writeStream(request, response, (StreamBody) response.body(), context);
+        }
+        if (response.body() instanceof SseBody) {
+            return this.writeEventStream(request, response, (SseBody) response.body(), context);
+        }
+        return context.writeAndFlush(this.handleResponse(request, response, context));
+    }
+
+    private static void setSessionCookie(Request request, Response response) {
         Session session = request.session();
         if (null != session) {
             Cookie cookie = new Cookie();
@@ -102,6 +162,10 @@ public class RouteMethodHandler implements RequestHandler {
             cookie.secure(request.isSecure());
             response.cookie(cookie);
         }
+    }
+
+    public FullHttpResponse handleResponse(Request request, Response response, ChannelHandlerContext context) {
+        setSessionCookie(request, response);
 
         FullHttpResponse fullHttpResponse = response.body().write(new BodyWriter() {
             @Override
@@ -111,8 +175,7 @@ public class RouteMethodHandler implements RequestHandler {
 
             @Override
             public FullHttpResponse onStream(Closeable closeable) {
-                // TODO
-                return null;
+                throw new IllegalStateException("Stream body is written by writeResponse");
             }
 
             @Override
@@ -135,11 +198,8 @@ public class RouteMethodHandler implements RequestHandler {
 
             @Override
             public FullHttpResponse onByteBuf(Object byteBuf) {
-                var httpResponse = new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.valueOf(response.statusCode()));
-
-                for (Map.Entry<String, String> next : response.headers().entrySet()) {
-                    httpResponse.headers().set(next.getKey(), next.getValue());
-                }
+                var httpResponse = new DefaultHttpResponse(HTTP_1_1,
+                        HttpResponseStatus.valueOf(response.statusCode()), response.httpHeaders());
 
                 // Write the initial line and the header.
                 if (request.keepAlive()) {
@@ -161,49 +221,99 @@ public class RouteMethodHandler implements RequestHandler {
         return fullHttpResponse;
     }
 
-    private void setDefaultHeaders(HttpHeaders headers) {
-        headers.set(HttpConst.DATE, HttpServerInitializer.date);
-        headers.set(HttpConst.X_POWER_BY, HttpConst.HEADER_VERSION);
+    /**
+     * Headers set by the route take precedence over the defaults
+     */
+    private static void setDefaultHeaders(HttpHeaders headers) {
+        if (!headers.contains(HttpConst.DATE)) {
+            headers.set(HttpConst.DATE, HttpServerInitializer.dateValue);
+        }
+        if (!headers.contains(HttpConst.X_POWER_BY)) {
+            headers.set(HttpConst.X_POWER_BY, HttpConst.HEADER_VERSION);
+        }
     }
 
-    public Void handleStreamResponse(Response response, InputStream body,
-                                     ChannelHandlerContext context, boolean keepAlive) {
-
-        var httpResponse = new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.valueOf(response.statusCode()));
+    /**
+     * Response head of a body written in chunks
+     */
+    static DefaultHttpResponse chunkedResponse(Request request, Response response) {
+        setSessionCookie(request, response);
 
-        httpResponse.headers().set(TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
-        setDefaultHeaders(httpResponse.headers());
+        HttpHeaders headers = response.httpHeaders();
+        if (!headers.contains(CONTENT_LENGTH)) {
+            headers.set(TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        }
+        if (request.keepAlive()) {
+            headers.set(HttpConst.CONNECTION, KEEP_ALIVE);
+        }
+        setDefaultHeaders(headers);
+        for (io.netty.handler.codec.http.cookie.Cookie next : response.cookiesRaw()) {
+            headers.add(HttpConst.SET_COOKIE, io.netty.handler.codec.http.cookie.ServerCookieEncoder.LAX.encode(next));
+        }
+        return new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.valueOf(response.statusCode()), headers);
+    }
 
-        for (Map.Entry<String, String> next : response.headers().entrySet()) {
-            httpResponse.headers().set(next.getKey(), next.getValue());
+    private ChannelFuture writeEventStream(Request request, Response response, SseBody body, ChannelHandlerContext context) {
+        HttpHeaders headers = response.httpHeaders();
+        headers.set(HttpConst.CONTENT_TYPE, HttpConst.EVENT_STREAM_TYPE);
+        headers.set(HttpConst.CACHE_CONTROL, HttpConst.NO_CACHE);
+        var httpResponse = chunkedResponse(request, response);
+
+        String lastEventId = request.header(HttpConst.LAST_EVENT_ID);
+        var emitter = new SseChannelEmitter(context, lastEventId.isEmpty() ? null : lastEventId,
+                request.keepAlive(), sseMaxPending, sseDropOnOverflow, sseHeartbeat);
+
+        context.pipeline().addBefore(context.name(), null, emitter);
+        context.writeAndFlush(httpResponse, context.voidPromise());
+
+        ChannelFuture future = emitter.start();
+        try {
+            body.handler().accept(emitter);
+        } catch (Exception e) {
+            log.error("Event stream handler error", e);
+            emitter.close();
         }
+        return future;
+    }
 
-        context.write(response);
+    private ChannelFuture writeStream(Request request, Response response, StreamBody body, ChannelHandlerContext context) {
+        var httpResponse = chunkedResponse(request, response);
 
-        context.write(new ChunkedStream(body));
-        ChannelFuture lastContentFuture = context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
-        if (!keepAlive) {
-            lastContentFuture.addListener(ChannelFutureListener.CLOSE);
+        // pulls the next chunk only while the channel is writable
+        if (null == context.pipeline().get(ChunkedWriteHandler.class)) {
+            context.pipeline().addBefore(context.name(), null, new ChunkedWriteHandler());
         }
-        return null;
+        context.write(httpResponse, context.voidPromise());
+
+        ChannelFuture future = context.writeAndFlush(body.httpChunkedInput());
+        future.addListener(f -> {
+            // the stream did not reach ChunkedWriteHandler, which closes it otherwise
+            if (!f.isSuccess()) {
+                IOKit.closeQuietly(body);
+            }
+        });
+        if (!request.keepAlive()) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+        return future;
     }
 
     private FullHttpResponse createResponseByByteBuf(Response response, ByteBuf byteBuf) {
 
-        Map<String, String> headers = response.headers();
+        // the route wrote its headers straight into the netty headers, nothing is copied
+        HttpHeaders headers = response.httpHeaders();
 
-        var httpResponse = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.valueOf(response.statusCode()), byteBuf);
+        var httpResponse = new DefaultFullHttpResponse(HTTP_1_1,
+                HttpResponseStatus.valueOf(response.statusCode()), byteBuf, headers, EmptyHttpHeaders.INSTANCE);
 
-        httpResponse.headers().set(CONTENT_LENGTH, httpResponse.content().readableBytes());
-        setDefaultHeaders(httpResponse.headers());
+        if (!headers.contains(CONTENT_LENGTH)) {
+            headers.setInt(CONTENT_LENGTH, byteBuf.readableBytes());
+        }
+        setDefaultHeaders(headers);
 
         if (response.cookiesRaw().size() > 0) {
             this.appendCookie(response, httpResponse);
         }
-
-        for (Map.Entry<String, String> next : headers.entrySet()) {
-            httpResponse.headers().set(HttpConst.getAsciiString(next.getKey()), next.getValue());
-        }
         return httpResponse;
     }
 
@@ -219,26 +329,20 @@ public class RouteMethodHandler implements RequestHandler {
      *
      * @param context route context
      */
-    private void routeHandle(RouteContext context) {
-        Object target = context.routeTarget();
+    private void routeHandle(RouteContext context) throws Exception {
+        RoutePlan plan   = context.route().getPlan();
+        Object    target = plan.target();
         if (null == target) {
-            Class<?> clazz = context.routeAction().getDeclaringClass();
-            target = WebContext.blade().getBean(clazz);
+            target = WebContext.blade().getBean(plan.targetClass());
         }
-        if (context.targetType() == RouteHandler.class) {
+        if (plan.kind() == RoutePlan.Kind.ROUTE_HANDLER) {
             RouteHandler routeHandler = (RouteHandler) target;
             routeHandler.handle(context);
-        } else if (context.targetType() == RouteHandler0.class) {
+        } else if (plan.kind() == RoutePlan.Kind.ROUTE_HANDLER0) {
             RouteHandler0 routeHandler = (RouteHandler0) target;
             routeHandler.handle(context.request(), context.response());
         } else {
-            Method   actionMethod = context.routeAction();
-            Class<?> returnType   = actionMethod.getReturnType();
-
-            Path path = target.getClass().getAnnotation(Path.class);
-            JSON JSON = actionMethod.getAnnotation(JSON.class);
-
-            boolean isRestful = (null != JSON) || (null != path && path.restful());
+            boolean isRestful = plan.isRestful();
 
             // if request is restful and not InternetExplorer userAgent
             if (isRestful) {
@@ -249,36 +353,53 @@ public class RouteMethodHandler implements RequestHandler {
                 }
             }
 
-            int len = actionMethod.getParameterTypes().length;
-
-            MethodAccess methodAccess = BladeCache.getMethodAccess(target.getClass());
-
-            Object returnParam = methodAccess.invoke(
-                    target, actionMethod.getName(), len > 0 ?
-                            context.routeParameters() : null);
+            Object returnParam = plan.invoke(target, plan.parameterCount() > 0 ? context.routeParameters() : null);
 
             if (null == returnParam) {
                 return;
             }
 
-            if (isRestful) {
-                context.json(returnParam);
+            if (returnParam instanceof CompletionStage) {
+                context.async(((CompletionStage<?>) returnParam).thenApply(value -> toBody(value, isRestful)));
                 return;
             }
-            if (returnType == String.class) {
-                context.body(
-                        ViewBody.of(new ModelAndView(returnParam.toString()))
-                );
-                return;
-            }
-            if (returnType == ModelAndView.class) {
-                context.body(
-                        ViewBody.of((ModelAndView) returnParam)
-                );
+
+            switch (plan.returnStrategy()) {
+                case JSON:
+                    context.json(returnParam);
+                    break;
+                case VIEW:
+                    context.body(ViewBody.of(new ModelAndView(returnParam.toString())));
+                    break;
+                case MODEL_AND_VIEW:
+                    context.body(ViewBody.of((ModelAndView) returnParam));
+                    break;
+                default:
+                    break;
             }
         }
     }
 
+    /**
+     * The completed value of a route method as the sync return value would be rendered,
+     * the json is encoded on the completing thread.
+     */
+    private static Body toBody(Object value, boolean isRestful) {
+        if (null == value) {
+            return null;
+        }
+        if (isRestful) {
+            return new StringBody(JsonKit.toString(value));
+        }
+        if (value instanceof String) {
+            return ViewBody.of(new ModelAndView(value.toString()));
+        }
+        if (value instanceof ModelAndView) {
+            return ViewBody.of((ModelAndView) value);
+        }
+        return null;
+    }
+
     /**
      * Invoke WebHook
      *
@@ -288,33 +409,26 @@ public class RouteMethodHandler implements RequestHandler {
      * @throws Exception throw like parse param exception
      */
     private boolean invokeHook(RouteContext context, Route hookRoute) throws Exception {
-        Method hookMethod = hookRoute.getAction();
-        Object target     = WebContext.blade().ioc().getBean(hookRoute.getTargetType());
+        RoutePlan plan   = hookRoute.getPlan();
+        Object    target = plan.target();
         if (null == target) {
-            Class<?> clazz = hookRoute.getAction().getDeclaringClass();
-            target = WebContext.blade().ioc().getBean(clazz);
-            hookRoute.setTarget(target);
+            target = WebContext.blade().ioc().getBean(plan.targetClass());
         }
 
         // execute
-        int len = hookMethod.getParameterTypes().length;
-        hookMethod.setAccessible(true);
-
         Object returnParam;
-        if (len > 0) {
-            if (len == 1) {
-                MethodAccess methodAccess = BladeCache.getMethodAccess(target.getClass());
-                returnParam = methodAccess.invoke(target, hookMethod.getName(), context);
-            } else if (len == 2) {
-                MethodAccess methodAccess = BladeCache.getMethodAccess(target.getClass());
-
-                returnParam = methodAccess.invoke(target, hookMethod.getName(),
-                        context.request(), context.response());
-            } else {
+        switch (plan.parameterCount()) {
+            case 0:
+                returnParam = plan.invoke(target);
+                break;
+            case 1:
+                returnParam = plan.invoke(target, context);
+                break;
+            case 2:
+                returnParam = plan.invoke(target, context.request(), context.response());
+                break;
+            default:
                 throw new InternalErrorException("Bad web hook structure");
-            }
-        } else {
-            returnParam = ReflectKit.invokeMethod(target, hookMethod);
         }
 
         if (null == returnParam) return true;
@@ -345,7 +459,7 @@ public class RouteMethodHandler implements RequestHandler {
      * @param context http request
      * @return return invoke hook is abort
      */
-    private boolean invokeHook(List<Route> hooks, RouteContext context) throws Exception {
+    private boolean invokeHook(Route[] hooks, RouteContext context) throws Exception {
         for (Route hook : hooks) {
             if (hook.getTargetType() == RouteHandler.class) {
                 RouteHandler routeHandler = (RouteHandler) hook.getTarget();
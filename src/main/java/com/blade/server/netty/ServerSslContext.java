@@ -0,0 +1,302 @@
+package com.blade.server.netty;
+
+import com.blade.Environment;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslSessionContext;
+import io.netty.handler.ssl.OpenSslSessionStats;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslHandshakeCompletionEvent;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+import io.netty.util.concurrent.EventExecutorGroup;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+import java.io.File;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.blade.kit.BladeKit.getStartedSymbol;
+import static com.blade.mvc.Const.*;
+
+/**
+ * TLS context of the server
+ * <p>
+ * server.ssl.provider:
+ * <ul>
+ * <li>auto:    OpenSSL (netty-tcnative) when it is on the classpath, otherwise the JDK (default)</li>
+ * <li>openssl: OpenSSL, falls back to the JDK with a warning when netty-tcnative is missing</li>
+ * <li>jdk:     the JDK provider</li>
+ * </ul>
+ * Resumed sessions skip the key exchange, the session cache is sized by server.ssl.session-cache-size
+ * and server.ssl.session-timeout. With OpenSSL the session tickets are encrypted by keys generated here,
+ * a new key is added every server.ssl.ticket-key-rotation seconds and the previous one
+ * still decrypts the tickets issued before.
+ * <p>
+ * The certificate and the private key files are checked every server.ssl.reload-interval seconds,
+ * once they change the context is rebuilt, the new connections use it and the open ones keep theirs.
+ */
+@Slf4j
+public class ServerSslContext {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final File        certFile;
+    private final File        privateKeyFile;
+    private final String      privateKeyPassword;
+    private final SslProvider provider;
+    private final boolean     alpn;
+    private final int         sessionCacheSize;
+    private final int         sessionTimeout;
+    private final int         ticketKeyRotation;
+    private final int         reloadInterval;
+
+    private final AtomicLong handshakes       = new AtomicLong();
+    private final AtomicLong failedHandshakes = new AtomicLong();
+    private final AtomicLong resumed          = new AtomicLong();
+
+    // resumptions counted by the OpenSSL contexts replaced by a reload
+    private final AtomicLong replacedResumed = new AtomicLong();
+
+    private volatile SslContext sslContext;
+
+    // accessed on the schedule event loop only
+    private OpenSslSessionTicketKey ticketKey;
+    private long                    lastModified;
+
+    ServerSslContext(Environment environment) throws SSLException {
+        this.certFile = new File(environment.get(ENV_KEY_SSL_CERT, null));
+        this.privateKeyFile = new File(environment.get(ENE_KEY_SSL_PRIVATE_KEY, null));
+        this.privateKeyPassword = environment.get(ENE_KEY_SSL_PRIVATE_KEY_PASS, null);
+        this.provider = selectProvider(environment.get(ENV_KEY_SSL_PROVIDER, "auto").toLowerCase());
+        this.sessionCacheSize = environment.getInt(ENV_KEY_SSL_SESSION_CACHE_SIZE, DEFAULT_SSL_SESSION_CACHE_SIZE);
+        this.sessionTimeout = environment.getInt(ENV_KEY_SSL_SESSION_TIMEOUT, DEFAULT_SSL_SESSION_TIMEOUT);
+        this.ticketKeyRotation = environment.getInt(ENV_KEY_SSL_TICKET_KEY_ROTATION, DEFAULT_SSL_TICKET_KEY_ROTATION);
+        this.reloadInterval = environment.getInt(ENV_KEY_SSL_RELOAD_INTERVAL, DEFAULT_SSL_RELOAD_INTERVAL);
+
+        boolean http2 = environment.getBoolean(ENV_KEY_HTTP2_ENABLE, false);
+        if (http2 && !SslProvider.isAlpnSupported(provider)) {
+            log.warn("{}ALPN is not supported by the running JDK, serve HTTP/1.1 over TLS", getStartedSymbol());
+        }
+        this.alpn = http2 && SslProvider.isAlpnSupported(provider);
+
+        log.info("{}SSL CertChainFile  Path: {}", getStartedSymbol(), certFile.getPath());
+        log.info("{}SSL PrivateKeyFile Path: {}", getStartedSymbol(), privateKeyFile.getPath());
+        log.info("{}SSL provider: {}, session cache: {}, session timeout: {}s",
+                getStartedSymbol(), provider.name().toLowerCase(), sessionCacheSize, sessionTimeout);
+        if (alpn) {
+            log.info("{}Enable HTTP/2 (h2 over ALPN)", getStartedSymbol());
+        }
+
+        this.lastModified = this.filesModified();
+        this.sslContext = this.build();
+    }
+
+    public static ServerSslContext create(Environment environment) throws SSLException {
+        return new ServerSslContext(environment);
+    }
+
+    private static SslProvider selectProvider(String provider) {
+        if ("jdk".equals(provider)) {
+            return SslProvider.JDK;
+        }
+        if (OpenSsl.isAvailable()) {
+            return SslProvider.OPENSSL;
+        }
+        if ("openssl".equals(provider)) {
+            log.warn("{}OpenSSL is not available, use the JDK provider: {}", getStartedSymbol(), OpenSsl.unavailabilityCause());
+        } else if (!"auto".equals(provider)) {
+            log.warn("{}Unknown SSL provider: {}, use the JDK provider", getStartedSymbol(), provider);
+        }
+        return SslProvider.JDK;
+    }
+
+    private SslContext build() throws SSLException {
+        SslContextBuilder builder = SslContextBuilder.forServer(certFile, privateKeyFile, privateKeyPassword)
+                .sslProvider(provider)
+                .sessionCacheSize(sessionCacheSize)
+                .sessionTimeout(sessionTimeout);
+        if (alpn) {
+            builder.ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+                    .applicationProtocolConfig(new ApplicationProtocolConfig(
+                            ApplicationProtocolConfig.Protocol.ALPN,
+                            ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                            ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                            ApplicationProtocolNames.HTTP_2,
+                            ApplicationProtocolNames.HTTP_1_1));
+        }
+        SslContext context = builder.build();
+        if (null != ticketKey) {
+            // a reloaded context keeps accepting the tickets of the current key
+            ((OpenSslSessionContext) context.sessionContext()).setTicketKeys(ticketKey);
+        }
+        return context;
+    }
+
+    /**
+     * Start the ticket key rotation and the certificate reload
+     *
+     * @param executor executor of the scheduled tasks, one thread
+     */
+    void schedule(EventExecutorGroup executor) {
+        if (provider == SslProvider.OPENSSL && ticketKeyRotation > 0) {
+            executor.execute(this::rotateTicketKey);
+            executor.scheduleWithFixedDelay(this::rotateTicketKey, ticketKeyRotation, ticketKeyRotation, TimeUnit.SECONDS);
+        }
+        if (reloadInterval > 0) {
+            executor.scheduleWithFixedDelay(this::reloadIfModified, reloadInterval, reloadInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * New tickets are encrypted by the first key, the previous key only decrypts
+     */
+    void rotateTicketKey() {
+        OpenSslSessionTicketKey previous = ticketKey;
+        ticketKey = new OpenSslSessionTicketKey(randomBytes(OpenSslSessionTicketKey.NAME_SIZE),
+                randomBytes(OpenSslSessionTicketKey.HMAC_KEY_SIZE), randomBytes(OpenSslSessionTicketKey.AES_KEY_SIZE));
+
+        OpenSslSessionContext sessionContext = (OpenSslSessionContext) sslContext.sessionContext();
+        if (null != previous) {
+            sessionContext.setTicketKeys(ticketKey, previous);
+        } else {
+            sessionContext.setTicketKeys(ticketKey);
+        }
+    }
+
+    void reloadIfModified() {
+        long modified = this.filesModified();
+        if (modified == lastModified) {
+            return;
+        }
+        try {
+            SslContext context = this.build();
+            this.replaced(sslContext);
+            this.sslContext = context;
+            this.lastModified = modified;
+            log.info("{}SSL certificate reloaded: {}", getStartedSymbol(), certFile.getPath());
+        } catch (Exception e) {
+            // the files may be half written, the next check tries again
+            log.error("SSL certificate reload error, keep the current certificate", e);
+        }
+    }
+
+    private long filesModified() {
+        return Math.max(certFile.lastModified(), privateKeyFile.lastModified());
+    }
+
+    private void replaced(SslContext context) {
+        if (provider == SslProvider.OPENSSL) {
+            OpenSslSessionStats stats = ((OpenSslSessionContext) context.sessionContext()).stats();
+            replacedResumed.addAndGet(stats.hits() + stats.ticketKeyResume());
+        }
+    }
+
+    /**
+     * @return return whether HTTP/2 is negotiated by ALPN
+     */
+    public boolean isAlpn() {
+        return alpn;
+    }
+
+    public SslContext sslContext() {
+        return sslContext;
+    }
+
+    /**
+     * Create the TLS handler of a connection with the current context
+     *
+     * @param channel accepted channel
+     * @return return TLS handler
+     */
+    SslHandler newHandler(Channel channel) {
+        return sslContext.newHandler(channel.alloc());
+    }
+
+    HandshakeCounter newHandshakeCounter() {
+        return new HandshakeCounter();
+    }
+
+    /**
+     * @return return completed handshakes, full and resumed
+     */
+    public long handshakes() {
+        return handshakes.get();
+    }
+
+    /**
+     * @return return handshakes which resumed a session by the session cache or a session ticket
+     */
+    public long resumedHandshakes() {
+        if (provider == SslProvider.OPENSSL) {
+            OpenSslSessionStats stats = ((OpenSslSessionContext) sslContext.sessionContext()).stats();
+            return replacedResumed.get() + stats.hits() + stats.ticketKeyResume();
+        }
+        return resumed.get();
+    }
+
+    /**
+     * @return return failed handshakes
+     */
+    public long failedHandshakes() {
+        return failedHandshakes.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ssl handshakes: " + this.handshakes() + ", resumed: " + this.resumedHandshakes() + ", failed: " + this.failedHandshakes();
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        RANDOM.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Counts the handshake of a connection and leaves the pipeline.
+     * A JDK session created before the connection was opened has been resumed,
+     * OpenSSL counts the resumptions by itself.
+     */
+    class HandshakeCounter extends ChannelInboundHandlerAdapter {
+
+        private long started;
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+            started = System.currentTimeMillis();
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof SslHandshakeCompletionEvent) {
+                if (((SslHandshakeCompletionEvent) evt).isSuccess()) {
+                    handshakes.incrementAndGet();
+                    SslHandler sslHandler = ctx.pipeline().get(SslHandler.class);
+                    if (provider == SslProvider.JDK && null != sslHandler) {
+                        SSLSession session = sslHandler.engine().getSession();
+                        if (session.getCreationTime() < started) {
+                            resumed.incrementAndGet();
+                        }
+                    }
+                } else {
+                    failedHandshakes.incrementAndGet();
+                }
+                ctx.pipeline().remove(this);
+            }
+            ctx.fireUserEventTriggered(evt);
+        }
+    }
+
+}
@@ -0,0 +1,292 @@
+package com.blade.server.netty;
+
+import com.blade.mvc.http.SseEmitter;
+import com.blade.mvc.http.SseEvent;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SseEmitter of a channel
+ * <p>
+ * Events are encoded on the sending thread and handed to the event loop,
+ * where they are written only while the channel is writable, the rest waits in the queue.
+ * The events written during one event loop task share a flush.
+ * The emitter sits in the pipeline for the writability and the inactive events.
+ */
+@Slf4j
+public class SseChannelEmitter extends ChannelInboundHandlerAdapter implements SseEmitter {
+
+    private static final ByteBuf HEARTBEAT = Unpooled.unreleasableBuffer(
+            Unpooled.copiedBuffer(":\n\n", StandardCharsets.US_ASCII));
+
+    private final ChannelHandlerContext context;
+    private final EventExecutor         executor;
+    private final ChannelPromise        promise;
+    private final String                lastEventId;
+    private final boolean               keepAlive;
+    private final int                   maxPending;
+    private final boolean               dropOnOverflow;
+    private final long                  heartbeatNanos;
+
+    private final AtomicInteger  pending        = new AtomicInteger();
+    private final List<Runnable> closeCallbacks = new CopyOnWriteArrayList<>();
+
+    // accessed on the event loop only
+    private final Deque<ByteBuf>     queue = new ArrayDeque<>();
+    private       boolean            flushScheduled;
+    private       long               lastWriteNanos;
+    private       ScheduledFuture<?> heartbeat;
+
+    private volatile boolean open = true;
+    private volatile boolean finished;
+
+    /**
+     * @param context        context of the handler writing the response
+     * @param lastEventId    Last-Event-ID header of the request
+     * @param keepAlive      whether the connection serves more requests once the stream ends
+     * @param maxPending     max events waiting for the channel to become writable
+     * @param dropOnOverflow drop the events beyond maxPending instead of closing the connection
+     * @param heartbeat      seconds of idle before a comment is sent, 0 disables
+     */
+    SseChannelEmitter(ChannelHandlerContext context, String lastEventId, boolean keepAlive,
+                      int maxPending, boolean dropOnOverflow, int heartbeat) {
+        this.context = context;
+        this.executor = context.executor();
+        this.promise = context.newPromise();
+        this.lastEventId = lastEventId;
+        this.keepAlive = keepAlive;
+        this.maxPending = maxPending;
+        this.dropOnOverflow = dropOnOverflow;
+        this.heartbeatNanos = TimeUnit.SECONDS.toNanos(heartbeat);
+    }
+
+    /**
+     * Start the heartbeat, called once the response head is written
+     *
+     * @return return the future completed when the stream ends
+     */
+    ChannelPromise start() {
+        lastWriteNanos = System.nanoTime();
+        if (heartbeatNanos > 0) {
+            heartbeat = executor.scheduleAtFixedRate(this::heartbeat, heartbeatNanos, heartbeatNanos, TimeUnit.NANOSECONDS);
+        }
+        return promise;
+    }
+
+    @Override
+    public boolean send(String data) {
+        return this.send(SseEvent.of(data));
+    }
+
+    @Override
+    public boolean send(SseEvent event) {
+        return open && this.offer(encode(event));
+    }
+
+    @Override
+    public boolean comment(String comment) {
+        if (!open) {
+            return false;
+        }
+        StringBuilder buf = new StringBuilder(comment.length() + 4);
+        appendLines(buf, ": ", comment);
+        buf.append('\n');
+        return this.offer(ByteBufUtil.writeUtf8(context.alloc(), buf));
+    }
+
+    @Override
+    public String lastEventId() {
+        return lastEventId;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public SseEmitter onClose(Runnable callback) {
+        closeCallbacks.add(callback);
+        if (finished && closeCallbacks.remove(callback)) {
+            callback.run();
+        }
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (executor.inEventLoop()) {
+            this.end();
+        } else {
+            executor.execute(this::end);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        this.drain();
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        this.finish();
+        ctx.fireChannelInactive();
+    }
+
+    private boolean offer(ByteBuf chunk) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            chunk.release();
+            if (!dropOnOverflow) {
+                log.warn("Event stream client is too slow, {} events pending, close the connection", maxPending);
+                context.channel().close();
+            }
+            return false;
+        }
+        if (executor.inEventLoop()) {
+            this.enqueue(chunk);
+        } else {
+            executor.execute(() -> this.enqueue(chunk));
+        }
+        return true;
+    }
+
+    private void enqueue(ByteBuf chunk) {
+        if (!open) {
+            pending.decrementAndGet();
+            chunk.release();
+            return;
+        }
+        queue.add(chunk);
+        this.drain();
+    }
+
+    private void drain() {
+        boolean written = false;
+        while (!queue.isEmpty() && context.channel().isWritable()) {
+            this.write(queue.poll());
+            written = true;
+        }
+        if (written && !flushScheduled) {
+            flushScheduled = true;
+            executor.execute(() -> {
+                flushScheduled = false;
+                context.flush();
+            });
+        }
+    }
+
+    private void write(ByteBuf chunk) {
+        pending.decrementAndGet();
+        lastWriteNanos = System.nanoTime();
+        context.write(new DefaultHttpContent(chunk), context.voidPromise());
+    }
+
+    private void heartbeat() {
+        if (open && queue.isEmpty() && System.nanoTime() - lastWriteNanos >= heartbeatNanos) {
+            this.offer(HEARTBEAT.duplicate());
+        }
+    }
+
+    /**
+     * The waiting events are written regardless of the writability, then the last content ends the response
+     */
+    private void end() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        while (!queue.isEmpty()) {
+            this.write(queue.poll());
+        }
+        context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT).addListener(future -> {
+            this.finish();
+            if (!keepAlive) {
+                context.channel().close();
+            }
+        });
+    }
+
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        open = false;
+        finished = true;
+        if (null != heartbeat) {
+            heartbeat.cancel(false);
+        }
+        ByteBuf chunk;
+        while (null != (chunk = queue.poll())) {
+            pending.decrementAndGet();
+            chunk.release();
+        }
+        if (null != context.pipeline().context(this)) {
+            context.pipeline().remove(this);
+        }
+        promise.trySuccess();
+        for (Runnable callback : closeCallbacks) {
+            if (closeCallbacks.remove(callback)) {
+                try {
+                    callback.run();
+                } catch (Exception e) {
+                    log.error("Event stream close callback error", e);
+                }
+            }
+        }
+    }
+
+    private ByteBuf encode(SseEvent event) {
+        String        data = null == event.data() ? "" : event.data();
+        StringBuilder buf  = new StringBuilder(data.length() + 32);
+        if (null != event.id()) {
+            appendLines(buf, "id: ", event.id());
+        }
+        if (null != event.event()) {
+            appendLines(buf, "event: ", event.event());
+        }
+        if (event.retry() >= 0) {
+            buf.append("retry: ").append(event.retry()).append('\n');
+        }
+        appendLines(buf, "data: ", data);
+        buf.append('\n');
+        return ByteBufUtil.writeUtf8(context.alloc(), buf);
+    }
+
+    /**
+     * One field per line, a line break in the value would end the field early
+     */
+    private static void appendLines(StringBuilder buf, String field, String value) {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\r' || c == '\n') {
+                buf.append(field).append(value, start, i).append('\n');
+                if (c == '\r' && i + 1 < value.length() && value.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        buf.append(field).append(value, start, value.length()).append('\n');
+    }
+
+}
@@ -30,8 +30,8 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.DefaultFileRegion;
 import io.netty.handler.codec.http.*;
-import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedFile;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.CharsetUtil;
 import lombok.extern.slf4j.Slf4j;
 import lombok.var;
@@ -187,7 +187,8 @@ public class StaticFileHandler implements RequestHandler {
         // Write the content.
         ChannelFuture sendFileFuture;
         ChannelFuture lastContentFuture;
-        if (ctx.pipeline().get(SslHandler.class) == null) {
+        // zero-copy unless the channel writes files as chunks (TLS, HTTP/2 stream, io_uring)
+        if (ctx.pipeline().get(ChunkedWriteHandler.class) == null) {
             sendFileFuture = ctx.write(
                     new DefaultFileRegion(raf.getChannel(), 0, fileLength),
                     ctx.newProgressivePromise()
@@ -316,7 +317,7 @@ public class StaticFileHandler implements RequestHandler {
                     response.headers().set(HttpConst.CONTENT_TYPE, contentType);
                 }
 
-                response.headers().set(HttpConst.DATE, DateKit.gmtDate());
+                response.headers().set(HttpConst.DATE, HttpServerInitializer.dateValue);
                 response.headers().set(HttpConst.CONTENT_LENGTH, size);
                 if (request.keepAlive()) {
                     response.headers().set(HttpConst.CONNECTION, HttpConst.KEEP_ALIVE);
@@ -343,7 +344,7 @@ public class StaticFileHandler implements RequestHandler {
      * @param fileToCache file to extract content type
      */
     private void setDateAndCacheHeaders(HttpResponse response, File fileToCache) {
-        response.headers().set(HttpConst.DATE, DateKit.gmtDate());
+        response.headers().set(HttpConst.DATE, HttpServerInitializer.dateValue);
         // Add cache headers
         if (httpCacheSeconds > 0) {
             response.headers().set(HttpConst.EXPIRES, DateKit.gmtDate(LocalDateTime.now().plusSeconds(httpCacheSeconds)));
@@ -0,0 +1,164 @@
+package com.blade.server.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.Recycler;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * gzip and deflate compressor
+ * <p>
+ * A Deflater holds native memory and a large window, it is taken from a pool when a response starts
+ * and returned when the response ends, so the connections share a few of them instead of creating one per response.
+ */
+public class ZlibCompressor implements Compressor {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final int INPUT_SIZE = 8192;
+
+    private final String  encoding;
+    private final boolean gzip;
+    private final int     level;
+
+    private final Recycler<DeflaterState> recycler = new Recycler<DeflaterState>() {
+        @Override
+        protected DeflaterState newObject(Handle<DeflaterState> handle) {
+            return new DeflaterState(handle, new Deflater(level, gzip));
+        }
+    };
+
+    private ZlibCompressor(String encoding, boolean gzip, int level) {
+        this.encoding = encoding;
+        this.gzip = gzip;
+        this.level = level;
+    }
+
+    public static ZlibCompressor gzip(int level) {
+        return new ZlibCompressor("gzip", true, level);
+    }
+
+    public static ZlibCompressor deflate(int level) {
+        return new ZlibCompressor("deflate", false, level);
+    }
+
+    @Override
+    public String encoding() {
+        return encoding;
+    }
+
+    @Override
+    public ChannelHandler newEncoder() {
+        return new Encoder();
+    }
+
+    private static final class DeflaterState {
+
+        private final Recycler.Handle<DeflaterState> handle;
+        private final Deflater                       deflater;
+        private final CRC32                          crc   = new CRC32();
+        private final byte[]                         input = new byte[INPUT_SIZE];
+
+        DeflaterState(Recycler.Handle<DeflaterState> handle, Deflater deflater) {
+            this.handle = handle;
+            this.deflater = deflater;
+        }
+
+        void recycle() {
+            deflater.reset();
+            crc.reset();
+            handle.recycle(this);
+        }
+    }
+
+    private final class Encoder extends ChannelOutboundHandlerAdapter {
+
+        private DeflaterState state;
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ByteBuf in = (ByteBuf) msg;
+            try {
+                ByteBuf out = ctx.alloc().heapBuffer(in.readableBytes() / 2 + 64);
+                this.start(out);
+
+                Deflater deflater = state.deflater;
+                while (in.isReadable()) {
+                    int    length = Math.min(in.readableBytes(), INPUT_SIZE);
+                    byte[] array  = state.input;
+                    in.readBytes(array, 0, length);
+                    if (gzip) {
+                        state.crc.update(array, 0, length);
+                    }
+                    deflater.setInput(array, 0, length);
+                    while (!deflater.needsInput()) {
+                        deflate(out, deflater, Deflater.NO_FLUSH);
+                    }
+                }
+                // a streamed response must reach the client chunk by chunk
+                deflate(out, deflater, Deflater.SYNC_FLUSH);
+                ctx.write(out, promise);
+            } finally {
+                in.release();
+            }
+        }
+
+        @Override
+        public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+            ByteBuf out = ctx.alloc().heapBuffer(64);
+            this.start(out);
+
+            Deflater deflater = state.deflater;
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate(out, deflater, Deflater.NO_FLUSH);
+            }
+            if (gzip) {
+                out.writeIntLE((int) state.crc.getValue());
+                out.writeIntLE(deflater.getTotalIn());
+            }
+            this.recycle();
+            ctx.writeAndFlush(out);
+            ctx.close(promise);
+        }
+
+        @Override
+        public void handlerRemoved(ChannelHandlerContext ctx) {
+            this.recycle();
+        }
+
+        private void start(ByteBuf out) {
+            if (null == state) {
+                state = recycler.get();
+                if (gzip) {
+                    out.writeBytes(GZIP_HEADER);
+                }
+            }
+        }
+
+        private void recycle() {
+            if (null != state) {
+                state.recycle();
+                state = null;
+            }
+        }
+    }
+
+    private static void deflate(ByteBuf out, Deflater deflater, int flush) {
+        for (; ; ) {
+            out.ensureWritable(512);
+            int writable = out.writableBytes();
+            int written  = deflater.deflate(out.array(), out.arrayOffset() + out.writerIndex(), writable, flush);
+            out.writerIndex(out.writerIndex() + written);
+            if (written < writable) {
+                return;
+            }
+        }
+    }
+
+}
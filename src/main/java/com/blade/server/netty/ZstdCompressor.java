@@ -0,0 +1,137 @@
+package com.blade.server.netty;
+
+import com.github.luben.zstd.EndDirective;
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.Recycler;
+
+import java.nio.ByteBuffer;
+
+/**
+ * zstd compressor, requires com.github.luben:zstd-jni on the classpath
+ * <p>
+ * The native compression contexts are pooled like the Deflaters of {@link ZlibCompressor}.
+ */
+public class ZstdCompressor implements Compressor {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocateDirect(0);
+
+    private final int level;
+
+    private final Recycler<ContextHolder> recycler = new Recycler<ContextHolder>() {
+        @Override
+        protected ContextHolder newObject(Handle<ContextHolder> handle) {
+            return new ContextHolder(handle);
+        }
+    };
+
+    public ZstdCompressor(int level) {
+        this.level = level;
+    }
+
+    /**
+     * Whether zstd-jni is on the classpath and its native library loads
+     *
+     * @return return zstd is available
+     */
+    public static boolean isAvailable() {
+        try {
+            Object obj = Class.forName("com.github.luben.zstd.util.Native").getMethod("isLoaded").invoke(null);
+            if (!Boolean.TRUE.equals(obj)) {
+                Class.forName("com.github.luben.zstd.util.Native").getMethod("load").invoke(null);
+            }
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String encoding() {
+        return "zstd";
+    }
+
+    @Override
+    public ChannelHandler newEncoder() {
+        return new Encoder();
+    }
+
+    private static final class ContextHolder {
+
+        private final Recycler.Handle<ContextHolder> handle;
+        private final ZstdCompressCtx                context = new ZstdCompressCtx();
+
+        ContextHolder(Recycler.Handle<ContextHolder> handle) {
+            this.handle = handle;
+        }
+
+        void recycle() {
+            context.reset();
+            handle.recycle(this);
+        }
+    }
+
+    private final class Encoder extends ChannelOutboundHandlerAdapter {
+
+        private ContextHolder holder;
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ByteBuf in = (ByteBuf) msg;
+            ByteBuf direct = in.isDirect() ? in : ctx.alloc().directBuffer(in.readableBytes()).writeBytes(in);
+            try {
+                ByteBuf out = ctx.alloc().directBuffer((int) Zstd.compressBound(direct.readableBytes()) + 16);
+                compress(out, direct.nioBuffer(), EndDirective.FLUSH);
+                ctx.write(out, promise);
+            } finally {
+                if (direct != in) {
+                    direct.release();
+                }
+                in.release();
+            }
+        }
+
+        @Override
+        public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+            ByteBuf out = ctx.alloc().directBuffer(64);
+            compress(out, EMPTY, EndDirective.END);
+            this.recycle();
+            ctx.writeAndFlush(out);
+            ctx.close(promise);
+        }
+
+        @Override
+        public void handlerRemoved(ChannelHandlerContext ctx) {
+            this.recycle();
+        }
+
+        private void compress(ByteBuf out, ByteBuffer src, EndDirective directive) {
+            if (null == holder) {
+                holder = recycler.get();
+                holder.context.setLevel(level);
+            }
+            for (; ; ) {
+                out.ensureWritable(64);
+                ByteBuffer dst  = out.nioBuffer(out.writerIndex(), out.writableBytes());
+                boolean    done = holder.context.compressDirectByteBufferStream(dst, src, directive);
+                out.writerIndex(out.writerIndex() + dst.position());
+                if (done && !src.hasRemaining()) {
+                    return;
+                }
+            }
+        }
+
+        private void recycle() {
+            if (null != holder) {
+                holder.recycle();
+                holder = null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.blade.kit.invoke;
+
+import com.blade.reflectasm.MethodAccess;
+
+import java.lang.reflect.Method;
+
+/**
+ * Action call through the generated invoker, the reflectasm {@link MethodAccess}
+ * and the reflection invoker, with a controller method taking a string and an int.
+ * <p>
+ * java -cp ... com.blade.kit.invoke.InvokerBenchmark [iterations]
+ */
+public class InvokerBenchmark {
+
+    public static class Controller {
+
+        private long total;
+
+        public String detail(String name, int id) {
+            total += id + name.length();
+            return name;
+        }
+    }
+
+    interface Call {
+        Object call(Controller controller, Object[] args) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+
+        Method       method    = Controller.class.getMethod("detail", String.class, int.class);
+        Invoker      generated = Invokers.generate(method);
+        Invoker      reflect   = Invokers.reflect(method);
+        MethodAccess access    = MethodAccess.get(Controller.class);
+        int          index     = access.getIndex("detail", String.class, int.class);
+
+        Call generatedCall = generated::invoke;
+        Call accessCall    = (controller, arguments) -> access.invoke(controller, index, arguments);
+        Call reflectCall   = reflect::invoke;
+
+        // warm up
+        for (int i = 0; i < 3; i++) {
+            run(generatedCall, iterations / 10);
+            run(accessCall, iterations / 10);
+            run(reflectCall, iterations / 10);
+        }
+
+        measure("generated", generatedCall, iterations);
+        measure("method access", accessCall, iterations);
+        measure("reflection", reflectCall, iterations);
+    }
+
+    private static void measure(String name, Call call, int iterations) throws Exception {
+        long start   = System.nanoTime();
+        long total   = run(call, iterations);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-15s iterations: %d, latency: %.2f ns/op, total: %d%n",
+                name, iterations, (double) elapsed / iterations, total);
+    }
+
+    private static long run(Call call, int iterations) throws Exception {
+        Controller controller = new Controller();
+        Object[]   arguments  = new Object[]{"blade", 0};
+        Integer[]  ids        = new Integer[128];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        for (int i = 0; i < iterations; i++) {
+            arguments[1] = ids[i & 127];
+            call.call(controller, arguments);
+        }
+        return controller.total;
+    }
+
+}
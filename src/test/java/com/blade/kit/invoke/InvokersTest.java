@@ -0,0 +1,97 @@
+package com.blade.kit.invoke;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+public class InvokersTest {
+
+    public static class Counter {
+
+        private int count;
+
+        public int add(int delta, Integer times) {
+            count += delta * times;
+            return count;
+        }
+
+        public void reset() {
+            count = 0;
+        }
+
+        public long[] range(long from, char c, boolean flag, double d, String[] names) {
+            return new long[]{from, c, flag ? 1 : 0, (long) d, names.length};
+        }
+
+        public static String join(String a, String b) {
+            return a + b;
+        }
+
+        public void fail() throws IOException {
+            throw new IOException("fail");
+        }
+
+        private String secret() {
+            return "secret";
+        }
+    }
+
+    static class Hidden {
+        public String name() {
+            return "hidden";
+        }
+    }
+
+    @Test
+    public void testGenerate() throws Exception {
+        Counter counter = new Counter();
+        Invoker add     = Invokers.create(Counter.class.getMethod("add", int.class, Integer.class));
+
+        assertTrue(add.getClass().getName().contains("$$Invoker$add"));
+        assertEquals(6, add.invoke(counter, new Object[]{3, 2}));
+        assertEquals(8, add.invoke(counter, new Object[]{1, 2}));
+
+        Invoker reset = Invokers.create(Counter.class.getMethod("reset"));
+        assertNull(reset.invoke(counter, null));
+        assertEquals(1, add.invoke(counter, new Object[]{1, 1}));
+
+        Method  rangeMethod = Counter.class.getMethod("range", long.class, char.class, boolean.class, double.class, String[].class);
+        Invoker range       = Invokers.create(rangeMethod);
+        assertArrayEquals(new long[]{7, 'a', 1, 2, 3},
+                (long[]) range.invoke(counter, new Object[]{7L, 'a', true, 2.5D, new String[3]}));
+
+        Invoker join = Invokers.create(Counter.class.getMethod("join", String.class, String.class));
+        assertEquals("ab", join.invoke(null, new Object[]{"a", "b"}));
+    }
+
+    @Test
+    public void testException() throws Exception {
+        Invoker generated = Invokers.create(Counter.class.getMethod("fail"));
+        Invoker reflect   = Invokers.reflect(Counter.class.getMethod("fail"));
+        for (Invoker invoker : new Invoker[]{generated, reflect}) {
+            try {
+                invoker.invoke(new Counter(), null);
+                fail();
+            } catch (IOException e) {
+                assertEquals("fail", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        Method secret = Counter.class.getDeclaredMethod("secret");
+        assertFalse(Invokers.canGenerate(secret));
+        assertEquals("secret", Invokers.create(secret).invoke(new Counter(), null));
+
+        Method name = Hidden.class.getMethod("name");
+        assertFalse(Invokers.canGenerate(name));
+        assertEquals("hidden", Invokers.create(name).invoke(new Hidden(), null));
+
+        assertFalse(Invokers.canGenerate(Object.class.getMethod("toString")));
+    }
+
+}
@@ -1,12 +1,15 @@
 package com.blade.mvc;
 
 import com.blade.BaseTestCase;
+import com.blade.Blade;
 import com.blade.kit.CaseInsensitiveHashMap;
 import com.blade.mvc.http.Cookie;
 import com.blade.mvc.http.HttpMethod;
 import com.blade.mvc.http.HttpRequest;
 import com.blade.mvc.http.Request;
 import com.blade.mvc.multipart.FileItem;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -327,4 +330,18 @@ public class HttpRequestTest extends BaseTestCase {
 
     }
 
+    @Test
+    public void testParametersWithoutQuery() {
+        WebContext.init(Blade.of(), "/");
+
+        HttpRequest request = HttpRequest.newInstance();
+        request.setNettyRequest(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, io.netty.handler.codec.http.HttpMethod.GET, "/hello"));
+        request.init("127.0.0.1");
+
+        assertEquals(Collections.emptyMap(), request.parameters());
+        assertEquals(Collections.emptyMap(), request.parameters());
+        assertEquals(Optional.empty(), request.query("name"));
+        assertEquals(Optional.empty(), request.query("name"));
+    }
+
 }
@@ -3,12 +3,14 @@ package com.blade.mvc;
 import com.blade.BaseTestCase;
 import com.blade.mvc.http.HttpResponse;
 import com.blade.mvc.http.Response;
+import com.blade.server.netty.HttpConst;
 import org.junit.Test;
 
 import java.util.Collections;
 import java.util.HashMap;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.when;
 
 /**
@@ -105,4 +107,18 @@ public class HttpResponseTest extends BaseTestCase {
         assertEquals("value1", response.cookies().get("c1"));
     }
 
+    @Test
+    public void testHttpHeaders() {
+        Response response = new HttpResponse();
+        response.contentType(Const.CONTENT_TYPE_JSON);
+        response.header("X-Request-Id", "1");
+
+        assertSame(HttpConst.JSON_CONTENT_TYPE, response.httpHeaders().iteratorCharSequence().next().getValue());
+        assertEquals("1", response.httpHeaders().get("x-request-id"));
+        assertEquals("1", response.headers().get("X-Request-Id"));
+
+        response.headers().remove("X-Request-Id");
+        assertEquals(1, response.httpHeaders().size());
+    }
+
 }
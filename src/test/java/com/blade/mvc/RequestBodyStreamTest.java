@@ -0,0 +1,81 @@
+package com.blade.mvc;
+
+import com.blade.exception.PayloadTooLargeException;
+import com.blade.mvc.http.RequestBodyStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * RequestBodyStream TestCase
+ */
+public class RequestBodyStreamTest {
+
+    @Test
+    public void testRead() throws IOException {
+        RequestBodyStream stream = new RequestBodyStream(new EmbeddedChannel());
+        stream.offer(Unpooled.copiedBuffer("hello ", StandardCharsets.UTF_8));
+        stream.offer(Unpooled.copiedBuffer("blade", StandardCharsets.UTF_8));
+        stream.end();
+
+        byte[] bytes = new byte[32];
+        int    size  = 0;
+        int    n;
+        while ((n = stream.read(bytes, size, bytes.length - size)) != -1) {
+            size += n;
+        }
+        assertEquals("hello blade", new String(bytes, 0, size, StandardCharsets.UTF_8));
+        assertEquals(-1, stream.read());
+    }
+
+    @Test
+    public void testBackpressure() throws IOException {
+        EmbeddedChannel   channel = new EmbeddedChannel();
+        RequestBodyStream stream  = new RequestBodyStream(channel);
+
+        ByteBuf chunk = Unpooled.buffer(RequestBodyStream.HIGH_WATER_MARK + 1).writeZero(RequestBodyStream.HIGH_WATER_MARK + 1);
+        stream.offer(chunk);
+        assertFalse(channel.config().isAutoRead());
+
+        assertEquals(0, stream.read());
+        channel.runPendingTasks();
+        assertTrue(channel.config().isAutoRead());
+
+        stream.close();
+        assertEquals(0, chunk.refCnt());
+    }
+
+    @Test(expected = PayloadTooLargeException.class)
+    public void testFail() throws IOException {
+        RequestBodyStream stream = new RequestBodyStream(new EmbeddedChannel());
+        ByteBuf           chunk  = Unpooled.copiedBuffer("hello", StandardCharsets.UTF_8);
+        stream.offer(chunk);
+        stream.fail(new PayloadTooLargeException("too large"));
+
+        // released without a reader
+        assertEquals(0, chunk.refCnt());
+        stream.read();
+    }
+
+    @Test
+    public void testFailResumesRead() {
+        EmbeddedChannel   channel = new EmbeddedChannel();
+        RequestBodyStream stream  = new RequestBodyStream(channel);
+
+        ByteBuf chunk = Unpooled.buffer(RequestBodyStream.HIGH_WATER_MARK + 1).writeZero(RequestBodyStream.HIGH_WATER_MARK + 1);
+        stream.offer(chunk);
+        assertFalse(channel.config().isAutoRead());
+
+        stream.fail(new PayloadTooLargeException("too large"));
+        channel.runPendingTasks();
+        assertEquals(0, chunk.refCnt());
+        assertTrue(channel.config().isAutoRead());
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.blade.mvc.route;
+
+import com.blade.kit.PathKit;
+import com.blade.mvc.handler.RouteHandler;
+import com.blade.mvc.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Before hook lookup of 50 hooks and 1000 routes, the resolved chains against
+ * the former sort and regex filter on every request.
+ * <p>
+ * java -cp ... com.blade.mvc.route.HookBenchmark [iterations]
+ */
+public class HookBenchmark {
+
+    private static final int HOOKS  = 50;
+    private static final int ROUTES = 1000;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        RouteMatcher routeMatcher = new RouteMatcher();
+        RouteHandler handler      = ctx -> ctx.text("Ok");
+        String[]     paths        = new String[ROUTES];
+        for (int i = 0; i < ROUTES; i++) {
+            String path = i % 2 == 0 ? "/module" + (i % 50) + "/page" + i : "/module" + (i % 50) + "/items" + i + "/:id";
+            routeMatcher.addRoute(path, handler, HttpMethod.GET);
+            paths[i] = path.replace(":id", String.valueOf(i));
+        }
+        for (int i = 0; i < HOOKS; i++) {
+            String path = i % 10 == 0 ? "/.*" : "/module" + i + "/.*";
+            routeMatcher.addRoute(path, handler, HttpMethod.BEFORE).setSort(i);
+        }
+        routeMatcher.register();
+
+        List<Route> hooks = routeMatcher.getHooks().values().stream()
+                .flatMap(Collection::stream).collect(Collectors.toList());
+
+        // warm up
+        run(routeMatcher, hooks, paths, iterations / 4, false);
+        run(routeMatcher, hooks, paths, Math.max(1, iterations / 400), true);
+
+        measure("resolved chains", routeMatcher, hooks, paths, iterations, false);
+        measure("per request filter", routeMatcher, hooks, paths, Math.max(1, iterations / 100), true);
+    }
+
+    private static void measure(String name, RouteMatcher routeMatcher, List<Route> hooks, String[] paths,
+                                int iterations, boolean perRequest) {
+        long start   = System.nanoTime();
+        long matched = run(routeMatcher, hooks, paths, iterations, perRequest);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-20s iterations: %d, latency: %.0f ns/op, hooks: %d%n",
+                name, iterations, (double) elapsed / iterations, matched);
+    }
+
+    private static long run(RouteMatcher routeMatcher, List<Route> hooks, String[] paths, int iterations, boolean perRequest) {
+        long matched = 0;
+        for (int i = 0; i < iterations; i++) {
+            String path = paths[i % paths.length];
+            matched += perRequest ? filter(hooks, path).size() : routeMatcher.beforeHooks(path).length;
+        }
+        return matched;
+    }
+
+    /**
+     * The lookup before the chains were resolved by register
+     */
+    private static List<Route> filter(List<Route> hooks, String path) {
+        return new ArrayList<>(hooks).stream()
+                .sorted(Comparator.comparingInt(Route::getSort))
+                .filter(route -> route.getHttpMethod() == HttpMethod.BEFORE &&
+                        path.matches("(?i)" + PathKit.VAR_REGEXP_PATTERN.matcher(route.getPath()).replaceAll(PathKit.VAR_REPLACE)))
+                .collect(Collectors.toList());
+    }
+
+}
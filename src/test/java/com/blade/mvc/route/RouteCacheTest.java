@@ -0,0 +1,68 @@
+package com.blade.mvc.route;
+
+import com.blade.mvc.http.HttpMethod;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RouteCacheTest {
+
+    private RouteMatcher routeMatcher;
+
+    @Before
+    public void before() {
+        routeMatcher = new RouteMatcher().routeCache(2);
+        routeMatcher.addRoute("/users", ctx -> ctx.text("Ok"), HttpMethod.GET);
+        routeMatcher.addRoute("/users/:id", ctx -> ctx.text("Ok"), HttpMethod.GET);
+        routeMatcher.register();
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        RouteCache routeCache = routeMatcher.getRouteCache();
+
+        RouteMatch match = routeMatcher.match("GET", "/users/1");
+        assertSame(match, routeMatcher.match("GET", "/users/1"));
+        assertEquals("1", routeMatcher.match("GET", "/users/1").pathParam("id"));
+        assertEquals(2, routeCache.hits());
+        assertEquals(1, routeCache.misses());
+
+        // keyed by the method too
+        assertNull(routeMatcher.match("POST", "/users/1"));
+        assertEquals(2, routeCache.misses());
+
+        // static routes and not found paths are not cached
+        routeMatcher.match("GET", "/users");
+        routeMatcher.match("GET", "/none/1");
+        assertEquals(1, routeCache.size());
+    }
+
+    @Test
+    public void testEviction() {
+        RouteCache routeCache = routeMatcher.getRouteCache();
+
+        RouteMatch hot = routeMatcher.match("GET", "/users/1");
+        routeMatcher.match("GET", "/users/2");
+        routeMatcher.match("GET", "/users/1");
+
+        // /users/1 has been read since it was cached, /users/2 is evicted
+        routeMatcher.match("GET", "/users/3");
+        assertEquals(2, routeCache.size());
+        assertSame(hot, routeMatcher.match("GET", "/users/1"));
+        assertNotNull(routeMatcher.match("GET", "/users/3"));
+        long misses = routeCache.misses();
+        routeMatcher.match("GET", "/users/2");
+        assertEquals(misses + 1, routeCache.misses());
+    }
+
+    @Test
+    public void testInvalidate() {
+        RouteMatch match = routeMatcher.match("GET", "/users/1");
+
+        routeMatcher.register();
+        assertEquals(0, routeMatcher.getRouteCache().size());
+        assertNotSame(match, routeMatcher.match("GET", "/users/1"));
+    }
+
+}
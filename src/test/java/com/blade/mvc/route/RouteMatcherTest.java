@@ -1,11 +1,13 @@
 package com.blade.mvc.route;
 
+import com.blade.exception.MethodNotAllowedException;
 import com.blade.mvc.handler.RouteHandler;
 import com.blade.mvc.http.HttpMethod;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -83,4 +85,58 @@ public class RouteMatcherTest {
 
     }
 
+    @Test
+    public void testPathParams() {
+        routeMatcher.addRoute("/users/:id", ctx -> ctx.text("Ok"), HttpMethod.GET);
+        routeMatcher.addRoute("/users/:id", ctx -> ctx.text("Ok"), HttpMethod.ALL);
+        routeMatcher.addRoute("/files/.*", ctx -> ctx.text("Ok"), HttpMethod.ALL);
+        routeMatcher.addRoute("/users", ctx -> ctx.text("Ok"), HttpMethod.GET);
+
+        routeMatcher.register();
+
+        RouteMatch first = routeMatcher.match("GET", "/users/12/");
+        Assert.assertEquals("GET\t/users/:id", first.getRoute().toString());
+
+        RouteMatch second = routeMatcher.match("POST", "/users/34?name=blade");
+        Assert.assertEquals("ALL\t/users/:id", second.getRoute().toString());
+        Assert.assertEquals("34", second.pathParam("id"));
+
+        // the params of a request are not overwritten by the next lookup
+        Assert.assertEquals("12", first.pathParam("id"));
+        Assert.assertEquals(Collections.singletonMap("id", "12"), first.pathParams());
+        Assert.assertEquals(0, routeMatcher.match("GET", "/users").pathParams().size());
+
+        Assert.assertEquals("ALL\t/files/.*", routeMatcher.lookupRoute("GET", "/files/a/b.txt").toString());
+        Assert.assertNull(routeMatcher.lookupRoute("GET", "/none/1"));
+    }
+
+    @Test(expected = MethodNotAllowedException.class)
+    public void testMethodNotAllowed() {
+        routeMatcher.addRoute("/users", ctx -> ctx.text("Ok"), HttpMethod.GET);
+        routeMatcher.register();
+        routeMatcher.lookupRoute("POST", "/users");
+    }
+
+    @Test
+    public void testHookChains() {
+        routeMatcher.addRoute("/users", ctx -> ctx.text("Ok"), HttpMethod.GET);
+        routeMatcher.addRoute("/users/:id", ctx -> ctx.text("Ok"), HttpMethod.GET);
+        Route all   = routeMatcher.addRoute("/.*", ctx -> ctx.text("Ok"), HttpMethod.BEFORE);
+        Route users = routeMatcher.addRoute("/users/:id", ctx -> ctx.text("Ok"), HttpMethod.BEFORE);
+        Route after = routeMatcher.addRoute("/users", ctx -> ctx.text("Ok"), HttpMethod.AFTER);
+        users.setSort(1);
+        all.setSort(2);
+
+        routeMatcher.register();
+
+        Assert.assertArrayEquals(new Route[]{all}, routeMatcher.beforeHooks("/users"));
+        Assert.assertArrayEquals(new Route[]{after}, routeMatcher.afterHooks("/USERS"));
+
+        // ordered by sort, resolved once per path
+        Route[] chain = routeMatcher.beforeHooks("/users/12");
+        Assert.assertArrayEquals(new Route[]{users, all}, chain);
+        Assert.assertSame(chain, routeMatcher.beforeHooks("/users/12"));
+        Assert.assertEquals(0, routeMatcher.afterHooks("/users/12").length);
+    }
+
 }
@@ -0,0 +1,81 @@
+package com.blade.mvc.route;
+
+import com.blade.mvc.RouteContext;
+import com.blade.mvc.annotation.JSON;
+import com.blade.mvc.annotation.Path;
+import com.blade.mvc.handler.RouteHandler;
+import com.blade.mvc.http.HttpMethod;
+import com.blade.mvc.ui.ModelAndView;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RoutePlanTest {
+
+    public static class PageController {
+
+        public String index() {
+            return "index.html";
+        }
+
+        public ModelAndView detail(String id) {
+            return new ModelAndView("detail.html");
+        }
+
+        @JSON
+        public String name(String id) {
+            return "user" + id;
+        }
+    }
+
+    @Path(restful = true)
+    public static class ApiController {
+
+        public String name() {
+            return "api";
+        }
+    }
+
+    private static RoutePlan plan(Object target, String methodName, Class<?>... parameterTypes) throws Exception {
+        Route route = new Route(HttpMethod.GET, "/", target, target.getClass(),
+                target.getClass().getMethod(methodName, parameterTypes));
+        return route.getPlan();
+    }
+
+    @Test
+    public void testReturnStrategy() throws Exception {
+        PageController controller = new PageController();
+
+        RoutePlan index = plan(controller, "index");
+        assertEquals(RoutePlan.Kind.METHOD, index.kind());
+        assertEquals(RoutePlan.ReturnStrategy.VIEW, index.returnStrategy());
+        assertFalse(index.isRestful());
+        assertFalse(index.isInjectParameters());
+        assertEquals("index.html", index.invoke(controller));
+
+        RoutePlan detail = plan(controller, "detail", String.class);
+        assertEquals(RoutePlan.ReturnStrategy.MODEL_AND_VIEW, detail.returnStrategy());
+        assertTrue(detail.isInjectParameters());
+        assertEquals(1, detail.parameters().length);
+
+        RoutePlan name = plan(controller, "name", String.class);
+        assertTrue(name.isRestful());
+        assertEquals(RoutePlan.ReturnStrategy.JSON, name.returnStrategy());
+        assertEquals("user1", name.invoke(controller, "1"));
+
+        assertTrue(plan(new ApiController(), "name").isRestful());
+    }
+
+    @Test
+    public void testRouteHandler() throws Exception {
+        RouteHandler handler = ctx -> ctx.text("Ok");
+        Route route = new Route(HttpMethod.GET, "/", handler, RouteHandler.class,
+                handler.getClass().getMethod("handle", RouteContext.class));
+
+        RoutePlan plan = route.getPlan();
+        assertEquals(RoutePlan.Kind.ROUTE_HANDLER, plan.kind());
+        assertSame(handler, plan.target());
+        assertFalse(plan.isInjectParameters());
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.blade.mvc.route.mapping;
+
+import com.blade.mvc.http.HttpMethod;
+import com.blade.mvc.route.Route;
+import com.blade.mvc.route.RouteMatch;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TreeMappingTest {
+
+    private TreeMapping         treeMapping;
+    private Map<String, String> params;
+
+    @Before
+    public void before() {
+        treeMapping = new TreeMapping();
+    }
+
+    private Route add(String path) {
+        Route route = new Route(HttpMethod.GET, path, null, null, null);
+        treeMapping.addRoute(path, HttpMethod.GET, route);
+        return route;
+    }
+
+    private Route find(String path) {
+        RouteMatch match = treeMapping.findRoute(HttpMethod.GET, path);
+        params = null != match ? match.pathParams() : Collections.emptyMap();
+        return null != match ? match.getRoute() : null;
+    }
+
+    @Test
+    public void testParamSuffix() {
+        Route user     = add("/users/:id");
+        Route userJson = add("/users/:id.json");
+        Route file     = add("/files/:name.tar.gz/meta");
+
+        assertSame(userJson, find("/users/5.json"));
+        assertEquals("5", params.get("id"));
+
+        assertSame(user, find("/users/5"));
+        assertEquals("5", params.get("id"));
+
+        assertSame(user, find("/users/5.xml"));
+        assertEquals("5.xml", params.get("id"));
+
+        assertSame(file, find("/files/blade.v2.tar.gz/meta"));
+        assertEquals("blade.v2", params.get("name"));
+
+        assertNull(find("/files/.tar.gz/meta"));
+        assertNull(find("/files/blade.tar.gz"));
+    }
+
+    @Test
+    public void testParams() {
+        Route user    = add("/users/:id");
+        Route article = add("/users/:uid/articles/:aid");
+        Route json    = add("/api/:name.json");
+
+        assertSame(user, find("/users/12"));
+        assertEquals("12", params.get("id"));
+
+        assertSame(article, find("/users/12/articles/34"));
+        assertEquals(2, params.size());
+        assertEquals("12", params.get("uid"));
+        assertEquals("34", params.get("aid"));
+
+        assertSame(json, find("/api/hello.json"));
+        assertEquals("hello", params.get("name"));
+
+        assertNull(find("/users"));
+        assertNull(find("/users/12/articles"));
+        assertNull(find("/users/12/comments/34"));
+        assertTrue(params.isEmpty());
+    }
+
+    @Test
+    public void testRegexParams() {
+        Route number = add("/items/id:[0-9]+");
+        Route name   = add("/items/:name");
+
+        assertSame(number, find("/items/123"));
+        assertEquals("123", params.get("id"));
+
+        assertSame(name, find("/items/abc"));
+        assertEquals("abc", params.get("name"));
+    }
+
+    @Test
+    public void testStaticBeforeParam() {
+        Route param = add("/users/:id");
+        Route me    = add("/users/me");
+        Route edit  = add("/users/:id/edit");
+
+        assertSame(me, find("/users/me"));
+        assertTrue(params.isEmpty());
+        // the static branch is a dead end, the param branch is tried
+        assertSame(edit, find("/users/me/edit"));
+        assertEquals("me", params.get("id"));
+        assertSame(param, find("/users/mex"));
+    }
+
+    @Test
+    public void testWildcard() {
+        Route assets = add("/assets/.*");
+        Route css    = add("/assets/.*/style.css");
+        Route any    = add("/.*");
+
+        assertSame(assets, find("/assets/js/app.js"));
+        assertSame(css, find("/assets/a/b/style.css"));
+        assertSame(any, find("/other/path"));
+        assertSame(any, find("/"));
+    }
+
+    @Test
+    public void testMethods() {
+        add("/users/:id");
+        assertTrue(treeMapping.hasRoutes(HttpMethod.GET));
+        assertFalse(treeMapping.hasRoutes(HttpMethod.POST));
+        assertNull(treeMapping.findRoute(HttpMethod.POST, "/users/1"));
+
+        treeMapping.clear();
+        assertNull(find("/users/1"));
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.blade.server.netty;
+
+import com.blade.Blade;
+import com.blade.mvc.RouteContext;
+import com.blade.mvc.WebContext;
+import com.blade.mvc.annotation.AsyncTimeout;
+import com.blade.mvc.annotation.JSON;
+import com.blade.mvc.http.HttpMethod;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.blade.mvc.Const.ENV_KEY_PERFORMANCE;
+import static org.junit.Assert.*;
+
+public class AsyncRouteTest {
+
+    private static final CompletableFuture<String> PRICE = new CompletableFuture<>();
+
+    public static class PriceController {
+
+        @JSON
+        @AsyncTimeout(100)
+        public CompletionStage<String> price() {
+            return PRICE.thenApply(price -> price + " USD");
+        }
+    }
+
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+    private final AtomicReference<RouteContext> slowContext = new AtomicReference<>();
+
+    private EmbeddedChannel channel;
+
+    @Before
+    public void before() {
+        Blade blade = Blade.of().environment(ENV_KEY_PERFORMANCE, true);
+        blade.get("/async", ctx -> ctx.async(result));
+        blade.get("/timeout", ctx -> ctx.async(new CompletableFuture<>(), 50));
+        blade.get("/slow", ctx -> {
+            slowContext.set(ctx);
+            ctx.async(result, 50);
+        });
+        blade.routeMatcher().route("/price", PriceController.class, "price", HttpMethod.GET);
+        WebContext.init(blade, "/");
+        blade.routeMatcher().initMiddleware(blade.middleware());
+        blade.routeMatcher().register();
+
+        HttpServerHandler handler = new HttpServerHandler(new HandlerExecutor(HandlerExecutor.Mode.INLINE, null));
+        channel = new EmbeddedChannel(new MergeRequestHandler(null, 0), handler);
+    }
+
+    private void request(String uri) {
+        channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, io.netty.handler.codec.http.HttpMethod.GET, uri));
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        channel.runPendingTasks();
+    }
+
+    @Test
+    public void testCompleteOnAnotherThread() throws Exception {
+        this.request("/async");
+        assertNull(channel.readOutbound());
+
+        // the response is encoded as json on the completing thread, which needs the WebContext of the request
+        AtomicReference<WebContext> after = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            result.complete(Collections.singletonMap("price", 42));
+            after.set(WebContext.get());
+        });
+        thread.start();
+        thread.join();
+        assertNull(after.get());
+
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(200, response.status().code());
+        assertEquals("{\"price\":42}", response.content().toString(StandardCharsets.UTF_8));
+        response.release();
+    }
+
+    @Test
+    public void testFailure() {
+        this.request("/async");
+        result.completeExceptionally(new IllegalStateException("downstream failed"));
+
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(500, response.status().code());
+        response.release();
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        this.request("/timeout");
+        assertNull(channel.readOutbound());
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        channel.runScheduledPendingTasks();
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(503, response.status().code());
+        response.release();
+    }
+
+    @Test
+    public void testTimeoutKeepsContextUntilComplete() throws Exception {
+        this.request("/slow");
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        channel.runScheduledPendingTasks();
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(503, response.status().code());
+        response.release();
+
+        // the route still runs with its context, it is not handed to the next request
+        RouteContext context = slowContext.get();
+        assertEquals("/slow", context.request().uri());
+        assertFalse(result.isCancelled());
+
+        result.complete("late");
+        assertNull(context.request());
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testControllerReturnsStage() throws Exception {
+        this.request("/price");
+        assertNull(channel.readOutbound());
+
+        PRICE.complete("42");
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(200, response.status().code());
+        assertEquals("\"42 USD\"", response.content().toString(StandardCharsets.UTF_8));
+        response.release();
+    }
+
+}
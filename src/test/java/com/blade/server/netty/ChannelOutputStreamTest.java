@@ -0,0 +1,141 @@
+package com.blade.server.netty;
+
+import com.blade.Blade;
+import com.blade.mvc.WebContext;
+import com.blade.mvc.wrapper.OutputStreamWrapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.blade.mvc.Const.ENV_KEY_PERFORMANCE;
+import static org.junit.Assert.*;
+
+public class ChannelOutputStreamTest {
+
+    private static final int LARGE = 100_000;
+
+    private EmbeddedChannel channel;
+
+    @Before
+    public void before() {
+        Blade blade = Blade.of().environment(ENV_KEY_PERFORMANCE, true);
+        blade.get("/small", ctx -> write(() -> {
+            try (OutputStreamWrapper out = ctx.response().outputStream()) {
+                out.write("hello".getBytes(StandardCharsets.UTF_8));
+            }
+        }));
+        blade.get("/large", ctx -> write(() -> {
+            OutputStreamWrapper out   = ctx.response().outputStream();
+            byte[]              bytes = new byte[1000];
+            Arrays.fill(bytes, (byte) 'a');
+            for (int i = 0; i < LARGE / bytes.length; i++) {
+                out.write(bytes);
+            }
+            // not closed, the response is ended once the route returns
+        }));
+        blade.get("/replaced", ctx -> write(() -> {
+            ctx.response().outputStream().write('x');
+            ctx.text("replaced");
+        }));
+        WebContext.init(blade, "/");
+        blade.routeMatcher().initMiddleware(blade.middleware());
+        blade.routeMatcher().register();
+
+        HttpServerHandler handler = new HttpServerHandler(new HandlerExecutor(HandlerExecutor.Mode.INLINE, null));
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                // the head shares the headers of the pooled response, copy them as the encoder would read them
+                if (msg instanceof FullHttpResponse) {
+                    FullHttpResponse response = (FullHttpResponse) msg;
+                    msg = response.replace(response.content());
+                } else if (msg instanceof HttpResponse) {
+                    HttpResponse response = (HttpResponse) msg;
+                    msg = new DefaultHttpResponse(response.protocolVersion(), response.status(), response.headers().copy());
+                }
+                ctx.write(msg, promise);
+            }
+        }, new MergeRequestHandler(null, 0), handler);
+    }
+
+    private interface IOTask {
+        void run() throws IOException;
+    }
+
+    private static void write(IOTask task) {
+        try {
+            task.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void request(String uri) {
+        channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri));
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        channel.runPendingTasks();
+    }
+
+    @Test
+    public void testSmallBodyHasContentLength() {
+        this.request("/small");
+
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(200, response.status().code());
+        assertEquals(5, HttpUtil.getContentLength(response));
+        assertEquals("hello", response.content().toString(StandardCharsets.UTF_8));
+        response.release();
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testLargeBodyIsChunked() {
+        this.request("/large");
+
+        HttpResponse head = channel.readOutbound();
+        assertFalse(head instanceof FullHttpResponse);
+        assertTrue(HttpUtil.isTransferEncodingChunked(head));
+
+        int    total  = 0;
+        int    chunks = 0;
+        Object msg;
+        while (!((msg = channel.readOutbound()) instanceof LastHttpContent)) {
+            ByteBuf content = ((HttpContent) msg).content();
+            assertTrue(content.readableBytes() <= ChannelOutputStream.BUFFER_SIZE);
+            total += content.readableBytes();
+            chunks++;
+            content.release();
+        }
+        assertEquals(LARGE, total);
+        assertEquals((LARGE + ChannelOutputStream.BUFFER_SIZE - 1) / ChannelOutputStream.BUFFER_SIZE, chunks);
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testReplacedBody() {
+        this.request("/replaced");
+
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals("replaced", response.content().toString(StandardCharsets.UTF_8));
+        response.release();
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.blade.server.netty;
+
+import com.blade.Blade;
+import com.blade.mvc.WebContext;
+import com.blade.mvc.http.HttpRequest;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.stream.ChunkedFile;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConcurrencyLimitHandlerTest {
+
+    @BeforeClass
+    public static void init() {
+        // HttpRequest reads the session settings of the application
+        WebContext.init(Blade.of(), "/");
+    }
+
+    @Test
+    public void testReleaseChunkedFile() throws Exception {
+        File file = File.createTempFile("blade", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), new byte[20000]);
+
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("/", 1, 1, 1);
+        ConcurrencyLimits  limits  = new ConcurrencyLimits(limiter, Collections.emptyList(), new String[0], 1);
+
+        List<HttpRequest> dispatched = new ArrayList<>();
+        EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler(), new ConcurrencyLimitHandler(limits),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        dispatched.add((HttpRequest) msg);
+                    }
+                });
+
+        for (int i = 1; i <= 3; i++) {
+            channel.writeInbound(request("/file"));
+            assertEquals(i, dispatched.size());
+            assertEquals(1, limiter.inFlight());
+
+            // ChunkedWriteHandler on the head side writes the LastHttpContent, this handler only sees the input
+            channel.write(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+            channel.writeAndFlush(new HttpChunkedInput(new ChunkedFile(new RandomAccessFile(file, "r"), 8192)));
+            assertEquals(0, limiter.inFlight());
+
+            Object msg;
+            while (null != (msg = channel.readOutbound())) {
+                if (msg instanceof HttpResponse) {
+                    assertEquals(HttpResponseStatus.OK, ((HttpResponse) msg).status());
+                }
+                ReferenceCountUtil.release(msg);
+            }
+        }
+        assertEquals(0, limiter.rejected());
+
+        channel.finishAndReleaseAll();
+    }
+
+    private static HttpRequest request(String uri) {
+        HttpRequest request = HttpRequest.newInstance();
+        request.setNettyRequest(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri));
+        return request;
+    }
+
+}
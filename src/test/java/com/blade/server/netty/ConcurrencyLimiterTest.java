@@ -0,0 +1,72 @@
+package com.blade.server.netty;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void testReject() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("/", 2, 1, 10);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.rejected());
+        assertEquals(2, limiter.inFlight());
+
+        limiter.release(-1);
+        assertEquals(1, limiter.inFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testAdaptiveLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("/", 20, 4, 100);
+
+        // flat latency under load: the limit grows
+        for (int i = 0; i < 50; i++) {
+            fill(limiter);
+            limiter.release(1_000_000);
+            drain(limiter);
+        }
+        int grown = limiter.limit();
+        assertTrue(grown > 20);
+
+        // latency rises: the limit shrinks
+        for (int i = 0; i < 50; i++) {
+            fill(limiter);
+            limiter.release(20_000_000);
+            drain(limiter);
+        }
+        assertTrue(limiter.limit() < grown);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    public void testLookup() {
+        ConcurrencyLimiter api = new ConcurrencyLimiter("/api", 2, 1, 2);
+        ConcurrencyLimits limits = new ConcurrencyLimits(new ConcurrencyLimiter("/", 2, 1, 2),
+                Collections.singletonList(api), new String[]{"/health"}, 1);
+
+        assertNull(limits.lookup("/health"));
+        assertNull(limits.lookup("/health?full=true"));
+        assertSame(api, limits.lookup("/api/users"));
+        assertEquals("/", limits.lookup("/apis").name());
+        assertEquals("/", limits.lookup("/").name());
+    }
+
+    private static void fill(ConcurrencyLimiter limiter) {
+        while (limiter.tryAcquire()) {
+        }
+    }
+
+    private static void drain(ConcurrencyLimiter limiter) {
+        while (limiter.inFlight() > 0) {
+            limiter.release(-1);
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.blade.server.netty;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConnectionCounterTest {
+
+    @Test
+    public void testCount() {
+        ConnectionCounter counter       = new ConnectionCounter(0);
+        EmbeddedChannel   serverChannel = new EmbeddedChannel(counter);
+
+        EmbeddedChannel child1 = new EmbeddedChannel();
+        EmbeddedChannel child2 = new EmbeddedChannel();
+        serverChannel.writeInbound(child1);
+        serverChannel.writeInbound(child2);
+        assertEquals(2, counter.accepted());
+        assertEquals(2, counter.active());
+
+        child1.close();
+        assertEquals(2, counter.accepted());
+        assertEquals(1, counter.active());
+
+        serverChannel.finishAndReleaseAll();
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.blade.server.netty;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.blade.Blade;
+import com.blade.Environment;
+import com.blade.mvc.Const;
+import com.blade.mvc.WebContext;
+import com.blade.mvc.annotation.Compress;
+import com.blade.mvc.route.RouteMatcher;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.*;
+
+public class ContentCompressorTest {
+
+    private static final String BODY = String.join(",", Collections.nCopies(200, "{\"message\":\"Hello, World!\"}"));
+
+    private final Compressor gzip    = ZlibCompressor.gzip(6);
+    private final Compressor deflate = ZlibCompressor.deflate(6);
+
+    private CompressionOptions options(Compressor... compressors) {
+        return new CompressionOptions(Arrays.asList(compressors), 1024,
+                new String[]{"text/", "application/json"}, null);
+    }
+
+    @Test
+    public void testNegotiate() {
+        CompressionOptions options = options(gzip, deflate);
+        assertSame(gzip, options.negotiate("gzip, deflate, br"));
+        assertSame(deflate, options.negotiate("gzip;q=0.5, deflate;q=0.8"));
+        assertSame(deflate, options.negotiate("gzip;q=0, *"));
+        assertSame(gzip, options.negotiate("*;q=0.3"));
+        assertNull(options.negotiate("br"));
+        assertNull(options.negotiate("identity"));
+        assertNull(options.negotiate(null));
+    }
+
+    @Test
+    public void testCustomEncoding() {
+        Compressor br = new Compressor() {
+            @Override
+            public String encoding() {
+                return "br";
+            }
+
+            @Override
+            public ChannelHandler newEncoder() {
+                return new ChannelOutboundHandlerAdapter();
+            }
+        };
+        Environment environment = Environment.empty().set(Const.ENV_KEY_COMPRESSION_ENABLE, true);
+        RouteMatcher routeMatcher = new RouteMatcher();
+
+        CompressionOptions options = CompressionOptions.create(environment, routeMatcher, Collections.singletonList(br));
+        assertSame(br, options.negotiate("gzip, br"));
+
+        environment.set(Const.ENV_KEY_COMPRESSION_ENCODINGS, "gzip");
+        options = CompressionOptions.create(environment, routeMatcher, Collections.singletonList(br));
+        assertNull(options.negotiate("br"));
+        assertNull(CompressionOptions.create(Environment.empty().set(Const.ENV_KEY_COMPRESSION_ENABLE, true),
+                routeMatcher, Collections.emptyList()).negotiate("br"));
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        EmbeddedChannel  channel  = new EmbeddedChannel(new ContentCompressor(options(gzip, deflate)));
+        FullHttpResponse response = exchange(channel, "gzip", "application/json; charset=UTF-8", BODY);
+
+        assertEquals("gzip", response.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(response.content().readableBytes(), HttpUtil.getContentLength(response));
+        assertTrue(response.content().readableBytes() < BODY.length());
+        assertEquals(BODY, read(new GZIPInputStream(new ByteBufInputStream(response.content(), true))));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testDeflate() throws Exception {
+        EmbeddedChannel  channel  = new EmbeddedChannel(new ContentCompressor(options(gzip, deflate)));
+        FullHttpResponse response = exchange(channel, "deflate", "text/plain", BODY);
+
+        assertEquals("deflate", response.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(BODY, read(new InflaterInputStream(new ByteBufInputStream(response.content(), true))));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testZstd() throws Exception {
+        Assume.assumeTrue(ZstdCompressor.isAvailable());
+        EmbeddedChannel  channel  = new EmbeddedChannel(new ContentCompressor(options(new ZstdCompressor(3), gzip)));
+        FullHttpResponse response = exchange(channel, "gzip, zstd", "text/html", BODY);
+
+        assertEquals("zstd", response.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(BODY, read(new ZstdInputStream(new ByteBufInputStream(response.content(), true))));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testSkip() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ContentCompressor(options(gzip)));
+
+        FullHttpResponse small = exchange(channel, "gzip", "application/json", "{}");
+        assertNull(small.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        small.release();
+
+        FullHttpResponse image = exchange(channel, "gzip", "image/png", BODY);
+        assertNull(image.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        image.release();
+
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testRouteSetting() throws Exception {
+        WebContext.init(Blade.of(), "/");
+        RouteMatcher routeMatcher = new RouteMatcher();
+        routeMatcher.addRoute("/hello", ctx -> ctx.text("hello"), com.blade.mvc.http.HttpMethod.GET)
+                .setCompress(getClass().getDeclaredMethod("uncompressed").getAnnotation(Compress.class));
+        routeMatcher.register();
+
+        CompressionOptions options = new CompressionOptions(Collections.singletonList(gzip), 1024,
+                new String[]{"application/json"}, routeMatcher);
+        EmbeddedChannel  channel  = new EmbeddedChannel(new ContentCompressor(options));
+        FullHttpResponse response = exchange(channel, "gzip", "application/json", BODY);
+        assertNull(response.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        response.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Compress(false)
+    private void uncompressed() {
+    }
+
+    @Test
+    public void testChunked() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new ContentCompressor(options(gzip)));
+        channel.writeInbound(request("gzip"));
+        channel.readInbound();
+
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/event-stream");
+        HttpUtil.setTransferEncodingChunked(response, true);
+        channel.writeOutbound(response);
+        channel.writeOutbound(new DefaultHttpContent(Unpooled.copiedBuffer("data: 1\n\n", StandardCharsets.UTF_8)));
+        channel.writeOutbound(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        FullHttpResponse compressed = aggregate(channel);
+        assertEquals("gzip", compressed.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals("data: 1\n\n", read(new GZIPInputStream(new ByteBufInputStream(compressed.content(), true))));
+        channel.finishAndReleaseAll();
+    }
+
+    private static FullHttpResponse exchange(EmbeddedChannel channel, String acceptEncoding, String contentType, String body) {
+        channel.writeInbound(request(acceptEncoding));
+        FullHttpRequest request = channel.readInbound();
+        request.release();
+
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+        channel.writeOutbound(response);
+        return aggregate(channel);
+    }
+
+    /**
+     * A compressed response leaves the encoder as a head followed by its contents
+     */
+    private static FullHttpResponse aggregate(EmbeddedChannel channel) {
+        HttpResponse head = channel.readOutbound();
+        if (head instanceof FullHttpResponse) {
+            return (FullHttpResponse) head;
+        }
+        ByteBuf content = Unpooled.buffer();
+        Object  msg;
+        while (null != (msg = channel.readOutbound())) {
+            content.writeBytes(((HttpContent) msg).content());
+            ((HttpContent) msg).release();
+        }
+        return new DefaultFullHttpResponse(head.protocolVersion(), head.status(), content,
+                head.headers(), EmptyHttpHeaders.INSTANCE);
+    }
+
+    private static FullHttpRequest request(String acceptEncoding) {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/hello");
+        request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+        return request;
+    }
+
+    private static String read(InputStream in) throws Exception {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[]                buf = new byte[4096];
+            int                   n;
+            while ((n = input.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.blade.server.netty;
+
+import com.blade.Blade;
+import com.blade.mvc.WebContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+
+import static com.blade.mvc.Const.ENV_KEY_PERFORMANCE;
+
+/**
+ * Hello world JSON through MergeRequestHandler and HttpServerHandler on an EmbeddedChannel,
+ * prints the throughput and the allocated bytes per request of the dispatch pipeline.
+ * <p>
+ * java -cp ... com.blade.server.netty.DispatchBenchmark [iterations]
+ */
+public class DispatchBenchmark {
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        Blade blade = Blade.of().environment(ENV_KEY_PERFORMANCE, true);
+        blade.get("/hello", ctx -> ctx.json(Collections.singletonMap("message", "Hello, World!")));
+        WebContext.init(blade, "/");
+        blade.routeMatcher().initMiddleware(blade.middleware());
+        blade.routeMatcher().register();
+
+        HttpServerHandler handler = new HttpServerHandler(new HandlerExecutor(HandlerExecutor.Mode.INLINE, null));
+        EmbeddedChannel   channel = new EmbeddedChannel(new MergeRequestHandler(null, 0), handler);
+
+        // warm up
+        run(channel, iterations / 4);
+
+        long start     = System.nanoTime();
+        long allocated = allocatedBytesPerRequest(channel, iterations);
+        long elapsed   = System.nanoTime() - start;
+
+        System.out.printf("iterations: %d, throughput: %.0f ops/s, latency: %.0f ns/op, allocated: %d bytes/op%n",
+                iterations, iterations * 1e9 / elapsed, (double) elapsed / iterations, allocated);
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * Run GET /hello requests and measure the heap allocated by the current thread
+     *
+     * @param channel    channel with MergeRequestHandler and HttpServerHandler
+     * @param iterations request count
+     * @return return allocated bytes per request, -1 if the JVM can not measure it
+     */
+    static long allocatedBytesPerRequest(EmbeddedChannel channel, int iterations) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isThreadAllocatedMemorySupported() || !threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long threadId  = Thread.currentThread().getId();
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId);
+        run(channel, iterations);
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - allocated) / iterations;
+    }
+
+    static void run(EmbeddedChannel channel, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/hello"));
+            channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+            channel.runPendingTasks();
+            FullHttpResponse response = channel.readOutbound();
+            if (null == response || response.status().code() != 200) {
+                throw new IllegalStateException("Bad response: " + response);
+            }
+            ReferenceCountUtil.release(response);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.blade.server.netty;
+
+import com.blade.Blade;
+import com.blade.mvc.WebContext;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the platform thread pool with virtual threads
+ * under 10k concurrent slow (blocking) requests.
+ * <p>
+ * Run with JDK 21+ to include the virtual thread executor:
+ * java -cp ... com.blade.server.netty.ExecutorBenchmark [requests] [sleepMs] [platformThreads]
+ */
+public class ExecutorBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int sleepMs  = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int threads  = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        WebContext.init(Blade.of(), "/");
+
+        run("platform(" + threads + ")", HandlerExecutor.newPlatformExecutor(threads, requests), requests, sleepMs);
+
+        ExecutorService virtual = HandlerExecutor.newVirtualExecutor();
+        if (null != virtual) {
+            run("virtual", virtual, requests, sleepMs);
+        } else {
+            System.out.println("virtual threads are not supported by JDK " + System.getProperty("java.version"));
+        }
+    }
+
+    private static void run(String name, ExecutorService executorService, int requests, int sleepMs) throws Exception {
+        HandlerExecutor handlerExecutor = new HandlerExecutor(HandlerExecutor.Mode.ALL, executorService);
+
+        CountDownLatch latch = new CountDownLatch(requests);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            WebContext webContext = new WebContext(null, null, null);
+            handlerExecutor.execute(webContext, ctx -> {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(sleepMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.printf("%-16s requests: %d, sleep: %dms, elapsed: %dms, throughput: %.0f req/s%n",
+                name, requests, sleepMs, elapsed, requests * 1000.0 / elapsed);
+        handlerExecutor.shutdown();
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.blade.server.netty;
+
+import com.blade.Blade;
+import com.blade.mvc.WebContext;
+import com.blade.mvc.http.HttpMethod;
+import com.blade.mvc.http.Request;
+import com.blade.mvc.http.Response;
+import com.blade.mvc.route.Route;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class HandlerExecutorTest {
+
+    @Before
+    public void before() {
+        WebContext.init(Blade.of(), "/");
+    }
+
+    @Test
+    public void testOffload() {
+        Route route = new Route(HttpMethod.GET, "/", null, null);
+        assertFalse(new HandlerExecutor(HandlerExecutor.Mode.INLINE, null).isOffload(route));
+        assertTrue(new HandlerExecutor(HandlerExecutor.Mode.ALL, HandlerExecutor.newPlatformExecutor(1, 1)).isOffload(route));
+
+        HandlerExecutor blocking = new HandlerExecutor(HandlerExecutor.Mode.BLOCKING, HandlerExecutor.newPlatformExecutor(1, 1));
+        assertFalse(blocking.isOffload(route));
+        assertFalse(blocking.isOffload(null));
+        route.setBlocking(true);
+        assertTrue(blocking.isOffload(route));
+        blocking.shutdown();
+    }
+
+    @Test
+    public void testWebContextOnWorker() throws Exception {
+        HandlerExecutor executor   = new HandlerExecutor(HandlerExecutor.Mode.ALL, HandlerExecutor.newPlatformExecutor(1, 1));
+        WebContext      webContext = new WebContext(mock(Request.class), mock(Response.class), null);
+
+        AtomicReference<WebContext> bound = new AtomicReference<>();
+        CountDownLatch              first = new CountDownLatch(1);
+        assertTrue(executor.execute(webContext, ctx -> {
+            bound.set(WebContext.get());
+            first.countDown();
+        }));
+        assertTrue(first.await(1, TimeUnit.SECONDS));
+        assertSame(webContext, bound.get());
+
+        CountDownLatch next = new CountDownLatch(1);
+        assertTrue(executor.execute(webContext, ctx -> {
+            bound.set(WebContext.get());
+            next.countDown();
+        }));
+        assertTrue(next.await(1, TimeUnit.SECONDS));
+        assertSame(webContext, bound.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testRejectWhenBusy() {
+        HandlerExecutor executor   = new HandlerExecutor(HandlerExecutor.Mode.ALL, HandlerExecutor.newPlatformExecutor(1, 1));
+        WebContext      webContext = new WebContext(mock(Request.class), mock(Response.class), null);
+        CountDownLatch  latch      = new CountDownLatch(1);
+
+        assertTrue(executor.execute(webContext, ctx -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(executor.execute(webContext, ctx -> {}));
+        assertFalse(executor.execute(webContext, ctx -> {}));
+
+        FullHttpResponse response = HandlerExecutor.serviceUnavailable();
+        assertEquals(HttpResponseStatus.SERVICE_UNAVAILABLE, response.status());
+        response.release();
+
+        latch.countDown();
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.blade.server.netty;
+
+import com.blade.Blade;
+import com.blade.mvc.WebContext;
+import com.blade.mvc.http.HttpRequest;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedStream;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HttpPipeliningHandlerTest {
+
+    @BeforeClass
+    public static void init() {
+        // HttpRequest reads the session settings of the application
+        WebContext.init(Blade.of(), "/");
+    }
+
+    @Test
+    public void testOrder() {
+        List<HttpRequest> dispatched = new ArrayList<>();
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPipeliningHandler(16), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                dispatched.add((HttpRequest) msg);
+            }
+        });
+
+        channel.writeInbound(request("/slow"));
+        channel.writeInbound(request("/fast"));
+        channel.runPendingTasks();
+
+        // the second request waits until the first response is written
+        assertEquals(1, dispatched.size());
+        assertEquals("/slow", dispatched.get(0).nettyRequest().uri());
+
+        channel.writeAndFlush(response(HttpResponseStatus.OK));
+        channel.runPendingTasks();
+        assertEquals(2, dispatched.size());
+        assertEquals("/fast", dispatched.get(1).nettyRequest().uri());
+
+        channel.writeAndFlush(response(HttpResponseStatus.ACCEPTED));
+        FullHttpResponse first  = channel.readOutbound();
+        FullHttpResponse second = channel.readOutbound();
+        assertEquals(HttpResponseStatus.OK, first.status());
+        assertEquals(HttpResponseStatus.ACCEPTED, second.status());
+
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testChunkedResponse() {
+        List<HttpRequest> dispatched = new ArrayList<>();
+        EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler(), new HttpPipeliningHandler(16),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        dispatched.add((HttpRequest) msg);
+                    }
+                });
+
+        channel.writeInbound(request("/file"));
+        channel.writeInbound(request("/next"));
+        assertEquals(1, dispatched.size());
+
+        // ChunkedWriteHandler on the head side writes the LastHttpContent, this handler only sees the input
+        channel.write(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeAndFlush(new HttpChunkedInput(new ChunkedStream(new ByteArrayInputStream(new byte[20000]), 8192)));
+        channel.runPendingTasks();
+        assertEquals(2, dispatched.size());
+        assertEquals("/next", dispatched.get(1).nettyRequest().uri());
+
+        Object msg;
+        int    chunks = 0;
+        while (null != (msg = channel.readOutbound())) {
+            if (msg instanceof HttpContent) {
+                chunks++;
+                assertEquals(msg instanceof LastHttpContent, chunks == 4);
+            }
+            ReferenceCountUtil.release(msg);
+        }
+        assertEquals(4, chunks);
+
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testPauseRead() {
+        HttpPipeliningHandler handler = new HttpPipeliningHandler(2);
+        EmbeddedChannel channel = new EmbeddedChannel(handler, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            }
+        });
+
+        channel.writeInbound(request("/1"));
+        channel.writeInbound(request("/2"));
+        assertTrue(channel.config().isAutoRead());
+        channel.writeInbound(request("/3"));
+        assertFalse(channel.config().isAutoRead());
+        assertEquals(2, handler.pendingRequests());
+
+        channel.writeAndFlush(response(HttpResponseStatus.OK));
+        channel.runPendingTasks();
+        assertTrue(channel.config().isAutoRead());
+        assertEquals(1, handler.pendingRequests());
+
+        channel.finishAndReleaseAll();
+        assertEquals(0, handler.pendingRequests());
+    }
+
+    private static HttpRequest request(String uri) {
+        HttpRequest request = HttpRequest.newInstance();
+        request.setNettyRequest(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri));
+        return request;
+    }
+
+    private static FullHttpResponse response(HttpResponseStatus status) {
+        return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status);
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.blade.server.netty;
+
+import com.blade.Blade;
+import com.blade.mvc.WebContext;
+import com.blade.mvc.annotation.MaxContentLength;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import static com.blade.mvc.Const.ENV_KEY_PERFORMANCE;
+import static org.junit.Assert.*;
+
+public class MergeRequestHandlerTest {
+
+    public static class UploadController {
+
+        @MaxContentLength(16)
+        public void upload() {
+        }
+    }
+
+    private final CompletableFuture<Object> slow = new CompletableFuture<>();
+
+    private Blade blade;
+
+    @Before
+    public void before() {
+        blade = Blade.of().environment(ENV_KEY_PERFORMANCE, true);
+        blade.get("/slow", ctx -> ctx.async(slow));
+        blade.post("/upload", ctx -> ctx.text("uploaded"));
+        blade.routeMatcher().addRoute("/stream", ctx -> ctx.text("streamed"), com.blade.mvc.http.HttpMethod.POST)
+                .setStreamingBody(true);
+        blade.routeMatcher().route("/users/:id/avatar", UploadController.class, "upload", com.blade.mvc.http.HttpMethod.POST);
+        WebContext.init(blade, "/");
+        blade.routeMatcher().initMiddleware(blade.middleware());
+        blade.routeMatcher().register();
+    }
+
+    @Test
+    public void testRejectByContentLength() {
+        HttpServerHandler handler = new HttpServerHandler(new HandlerExecutor(HandlerExecutor.Mode.INLINE, null));
+        EmbeddedChannel   channel = new EmbeddedChannel(new MergeRequestHandler(null, 1024), handler);
+
+        channel.writeInbound(upload("/upload", 4096));
+
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE, response.status());
+        assertNull(channel.readInbound());
+        assertFalse(channel.isOpen());
+        response.release();
+    }
+
+    @Test
+    public void testRejectInOrder() {
+        HttpServerHandler handler = new HttpServerHandler(new HandlerExecutor(HandlerExecutor.Mode.INLINE, null));
+        EmbeddedChannel channel = new EmbeddedChannel(new MergeRequestHandler(null, 1024),
+                new HttpPipeliningHandler(16), handler);
+
+        channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/slow"));
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        channel.writeInbound(upload("/upload", 4096));
+        channel.runPendingTasks();
+
+        // the 413 waits for the response of the request before it
+        assertNull(channel.readOutbound());
+        assertTrue(channel.isOpen());
+
+        slow.complete("done");
+        channel.runPendingTasks();
+
+        FullHttpResponse first  = channel.readOutbound();
+        FullHttpResponse second = channel.readOutbound();
+        assertEquals(HttpResponseStatus.OK, first.status());
+        assertEquals(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE, second.status());
+        assertFalse(channel.isOpen());
+        first.release();
+        second.release();
+    }
+
+    @Test
+    public void testRejectStreamWhenBusy() {
+        ExecutorService busy = HandlerExecutor.newPlatformExecutor(1, 1);
+        busy.shutdown();
+        HttpServerHandler handler = new HttpServerHandler(new HandlerExecutor(HandlerExecutor.Mode.ALL, busy));
+        EmbeddedChannel   channel = new EmbeddedChannel(new MergeRequestHandler(blade.routeMatcher(), 0), handler);
+
+        ByteBuf         body    = Unpooled.copiedBuffer("part of the body", StandardCharsets.UTF_8);
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/stream", body);
+        channel.writeInbound(request);
+
+        // the stream nobody is going to read is closed, the chunks offered to it are released
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(HttpResponseStatus.SERVICE_UNAVAILABLE, response.status());
+        assertEquals("close", response.headers().get(HttpHeaderNames.CONNECTION));
+        assertFalse(channel.isOpen());
+        assertEquals(0, body.refCnt());
+        response.release();
+    }
+
+    @Test
+    public void testKeepRouteMatch() {
+        List<com.blade.mvc.http.HttpRequest> requests = new ArrayList<>();
+        EmbeddedChannel channel = new EmbeddedChannel(new MergeRequestHandler(blade.routeMatcher(), 0),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        requests.add((com.blade.mvc.http.HttpRequest) msg);
+                    }
+                });
+
+        channel.writeInbound(upload("/users/42/avatar", 8));
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        assertEquals(1, requests.size());
+        com.blade.mvc.http.HttpRequest request = requests.get(0);
+        assertEquals("/users/:id/avatar", request.routeMatch().getRoute().getPath());
+        assertEquals("42", request.routeMatch().pathParam("id"));
+        request.recycle();
+        channel.finishAndReleaseAll();
+    }
+
+    private static HttpRequest upload(String uri, int length) {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, uri);
+        request.headers().set(HttpHeaderNames.CONTENT_LENGTH, length);
+        return request;
+    }
+
+}
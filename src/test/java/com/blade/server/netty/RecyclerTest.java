@@ -0,0 +1,71 @@
+package com.blade.server.netty;
+
+import com.blade.Blade;
+import com.blade.mvc.RouteContext;
+import com.blade.mvc.WebContext;
+import com.blade.mvc.http.Request;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.blade.mvc.Const.ENV_KEY_PERFORMANCE;
+import static org.junit.Assert.*;
+
+public class RecyclerTest {
+
+    /**
+     * Bytes allocated by GET /hello with a JSON body, the request objects themselves are pooled
+     */
+    private static final long ALLOCATION_BUDGET = 12 * 1024;
+
+    private List<Request>      requests = new ArrayList<>();
+    private List<RouteContext> contexts = new ArrayList<>();
+    private EmbeddedChannel    channel;
+
+    @Before
+    public void before() {
+        Blade blade = Blade.of().environment(ENV_KEY_PERFORMANCE, true);
+        blade.get("/hello", ctx -> {
+            requests.add(ctx.request());
+            contexts.add(ctx);
+            ctx.json(Collections.singletonMap("message", "Hello, World!"));
+        });
+        WebContext.init(blade, "/");
+        blade.routeMatcher().initMiddleware(blade.middleware());
+        blade.routeMatcher().register();
+
+        HttpServerHandler handler = new HttpServerHandler(new HandlerExecutor(HandlerExecutor.Mode.INLINE, null));
+        channel = new EmbeddedChannel(new MergeRequestHandler(null, 0), handler);
+    }
+
+    @Test
+    public void testReuse() {
+        DispatchBenchmark.run(channel, 2);
+
+        assertEquals(2, requests.size());
+        assertSame(requests.get(0), requests.get(1));
+        assertSame(contexts.get(0), contexts.get(1));
+        assertNull(requests.get(0).uri());
+        assertFalse(contexts.get(0).isAbort());
+        assertNull(WebContext.get());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testAllocationPerRequest() {
+        DispatchBenchmark.run(channel, 10_000);
+        requests.clear();
+        contexts.clear();
+
+        long allocated = DispatchBenchmark.allocatedBytesPerRequest(channel, 10_000);
+        Assume.assumeTrue(allocated >= 0);
+        assertTrue("allocated " + allocated + " bytes per request", allocated < ALLOCATION_BUDGET);
+        channel.finishAndReleaseAll();
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.blade.server.netty;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class RemoteAddressResolverTest {
+
+    private final RemoteAddressResolver resolver = new RemoteAddressResolver(
+            new HashSet<>(Arrays.asList("10.0.0.1", "10.0.0.2")), true);
+
+    private static EmbeddedChannel channel(SocketAddress local, SocketAddress remote) {
+        return new EmbeddedChannel() {
+            @Override
+            protected SocketAddress localAddress0() {
+                return local;
+            }
+
+            @Override
+            protected SocketAddress remoteAddress0() {
+                return remote;
+            }
+        };
+    }
+
+    private static HttpHeaders forwardedFor(String... values) {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        for (String value : values) {
+            headers.add(HttpConst.X_FORWARDED_FOR, value);
+        }
+        return headers;
+    }
+
+    @Test
+    public void testDirectPeer() {
+        EmbeddedChannel channel = channel(null, new InetSocketAddress("192.168.1.5", 52000));
+        // the header of an untrusted peer is ignored
+        assertEquals("192.168.1.5:52000", resolver.resolve(channel, forwardedFor("1.2.3.4")));
+    }
+
+    @Test
+    public void testTrustedProxy() {
+        EmbeddedChannel channel = channel(null, new InetSocketAddress("10.0.0.1", 52000));
+        assertEquals("10.0.0.1:52000", resolver.resolve(channel, forwardedFor()));
+        assertEquals("1.2.3.4", resolver.resolve(channel, forwardedFor("1.2.3.4")));
+        // a spoofed left most entry is not taken, the trusted proxies are skipped from the right
+        assertEquals("1.2.3.4", resolver.resolve(channel, forwardedFor("6.6.6.6, 1.2.3.4, 10.0.0.2")));
+        assertEquals("1.2.3.4", resolver.resolve(channel, forwardedFor("6.6.6.6", "1.2.3.4,10.0.0.2")));
+    }
+
+    @Test
+    public void testUnixSocket() {
+        EmbeddedChannel channel = channel(new DomainSocketAddress("/tmp/blade.sock"), null);
+        assertEquals("unix:/tmp/blade.sock", resolver.resolve(channel, forwardedFor()));
+        assertEquals("1.2.3.4", resolver.resolve(channel, forwardedFor("1.2.3.4")));
+
+        RemoteAddressResolver untrusted = new RemoteAddressResolver(new HashSet<>(), false);
+        assertEquals("unix:/tmp/blade.sock", untrusted.resolve(channel, forwardedFor("1.2.3.4")));
+    }
+
+}
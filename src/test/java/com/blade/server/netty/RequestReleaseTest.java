@@ -0,0 +1,118 @@
+package com.blade.server.netty;
+
+import com.blade.Blade;
+import com.blade.mvc.WebContext;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ResourceLeakDetector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The request body buffers are released once the response is written
+ */
+public class RequestReleaseTest {
+
+    private ResourceLeakDetector.Level level;
+
+    @Before
+    public void before() {
+        level = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @After
+    public void after() {
+        ResourceLeakDetector.setLevel(level);
+    }
+
+    @Test
+    public void testReleaseBody() {
+        Blade blade = Blade.of();
+        blade.post("/echo", ctx -> ctx.text(ctx.bodyToString()));
+        WebContext.init(blade, "/");
+        blade.routeMatcher().initMiddleware(blade.middleware());
+        blade.routeMatcher().register();
+
+        HttpServerHandler handler = new HttpServerHandler(new HandlerExecutor(HandlerExecutor.Mode.INLINE, null));
+        EmbeddedChannel   channel = new EmbeddedChannel(new MergeRequestHandler(null, 0), handler);
+
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/echo");
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+
+        ByteBuf[] chunks = {chunk("{\"name\":"), chunk("\"blade\""), chunk("}")};
+        channel.writeInbound(request);
+        channel.writeInbound(new DefaultHttpContent(chunks[0]));
+        channel.writeInbound(new DefaultHttpContent(chunks[1]));
+        channel.writeInbound(new DefaultLastHttpContent(chunks[2]));
+
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals("{\"name\":\"blade\"}", response.content().toString(CharsetUtil.UTF_8));
+        response.release();
+
+        for (ByteBuf chunk : chunks) {
+            assertEquals(0, chunk.refCnt());
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testManyChunks() {
+        AtomicInteger components = new AtomicInteger();
+
+        Blade blade = Blade.of();
+        blade.post("/echo", ctx -> {
+            components.set(((CompositeByteBuf) ctx.request().body()).numComponents());
+            ctx.text(ctx.bodyToString());
+        });
+        WebContext.init(blade, "/");
+        blade.routeMatcher().initMiddleware(blade.middleware());
+        blade.routeMatcher().register();
+
+        HttpServerHandler handler = new HttpServerHandler(new HandlerExecutor(HandlerExecutor.Mode.INLINE, null));
+        EmbeddedChannel   channel = new EmbeddedChannel(new MergeRequestHandler(null, 0), handler);
+
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/echo");
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN);
+        channel.writeInbound(request);
+
+        // more chunks than the default composite buffer keeps apart
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            expected.append(i).append(',');
+            channel.writeInbound(new DefaultHttpContent(chunk(i + ",")));
+        }
+        channel.writeInbound(new DefaultLastHttpContent(chunk("end")));
+        expected.append("end");
+
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(expected.toString(), response.content().toString(CharsetUtil.UTF_8));
+        assertEquals(21, components.get());
+        response.release();
+        channel.finishAndReleaseAll();
+    }
+
+    private static ByteBuf chunk(String text) {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer();
+        buf.writeCharSequence(text, CharsetUtil.UTF_8);
+        return buf;
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.blade.server.netty;
+
+import com.blade.Environment;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static com.blade.mvc.Const.*;
+import static org.junit.Assert.*;
+
+public class ServerSslContextTest {
+
+    private SelfSignedCertificate certificate;
+    private File                  certFile;
+    private File                  keyFile;
+    private ServerSslContext      sslContext;
+
+    @Before
+    public void before() throws Exception {
+        certificate = new SelfSignedCertificate();
+        certFile = File.createTempFile("blade", ".crt");
+        keyFile = File.createTempFile("blade", ".key");
+        this.copy(certificate);
+
+        Environment environment = Environment.empty()
+                .set(ENV_KEY_SSL_CERT, certFile.getPath())
+                .set(ENE_KEY_SSL_PRIVATE_KEY, keyFile.getPath())
+                .set(ENV_KEY_SSL_PROVIDER, "jdk");
+        sslContext = ServerSslContext.create(environment);
+    }
+
+    @After
+    public void after() {
+        certificate.delete();
+        certFile.delete();
+        keyFile.delete();
+    }
+
+    private void copy(SelfSignedCertificate certificate) throws Exception {
+        Files.copy(certificate.certificate().toPath(), certFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(certificate.privateKey().toPath(), keyFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    public void testResumedHandshake() throws Exception {
+        EventLoopGroup group   = new DefaultEventLoopGroup(1);
+        LocalAddress   address = new LocalAddress("ssl-" + System.nanoTime());
+        try {
+            Channel server = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(sslContext.newHandler(ch), sslContext.newHandshakeCounter());
+                        }
+                    }).bind(address).sync().channel();
+
+            // the client caches the session by peer host and port
+            SslContext client = SslContextBuilder.forClient().protocols("TLSv1.2")
+                    .trustManager(InsecureTrustManagerFactory.INSTANCE).build();
+            for (int i = 0; i < 2; i++) {
+                Channel channel = new Bootstrap().group(group).channel(LocalChannel.class)
+                        .handler(new ChannelInitializer<Channel>() {
+                            @Override
+                            protected void initChannel(Channel ch) {
+                                ch.pipeline().addLast(client.newHandler(ch.alloc(), "localhost", 8443));
+                            }
+                        }).connect(address).sync().channel();
+                assertTrue(channel.pipeline().get(SslHandler.class).handshakeFuture().await().isSuccess());
+                channel.close().sync();
+            }
+            server.close().sync();
+        } finally {
+            group.shutdownGracefully().sync();
+        }
+
+        assertEquals(2, sslContext.handshakes());
+        assertEquals(1, sslContext.resumedHandshakes());
+        assertEquals(0, sslContext.failedHandshakes());
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        SslContext current = sslContext.sslContext();
+
+        // unchanged files are not reloaded
+        sslContext.reloadIfModified();
+        assertSame(current, sslContext.sslContext());
+
+        // a broken key keeps the current certificate
+        Files.write(keyFile.toPath(), "broken".getBytes());
+        keyFile.setLastModified(System.currentTimeMillis() + 2000);
+        sslContext.reloadIfModified();
+        assertSame(current, sslContext.sslContext());
+
+        SelfSignedCertificate renewed = new SelfSignedCertificate();
+        try {
+            this.copy(renewed);
+            keyFile.setLastModified(System.currentTimeMillis() + 4000);
+            sslContext.reloadIfModified();
+            assertNotSame(current, sslContext.sslContext());
+        } finally {
+            renewed.delete();
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.blade.server.netty;
+
+import com.blade.Blade;
+import com.blade.mvc.WebContext;
+import com.blade.mvc.http.SseEmitter;
+import com.blade.mvc.http.SseEvent;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.blade.mvc.Const.*;
+import static org.junit.Assert.*;
+
+public class SseChannelEmitterTest {
+
+    private final AtomicReference<SseEmitter> emitter = new AtomicReference<>();
+
+    private EmbeddedChannel channel(String overflowPolicy) {
+        Blade blade = Blade.of().environment(ENV_KEY_PERFORMANCE, true)
+                .environment(ENV_KEY_SSE_HEARTBEAT, 0)
+                .environment(ENV_KEY_SSE_MAX_PENDING, 2)
+                .environment(ENV_KEY_SSE_OVERFLOW, overflowPolicy);
+        blade.get("/events", ctx -> ctx.sse(emitter::set));
+        WebContext.init(blade, "/");
+        blade.routeMatcher().initMiddleware(blade.middleware());
+        blade.routeMatcher().register();
+
+        HttpServerHandler handler = new HttpServerHandler(new HandlerExecutor(HandlerExecutor.Mode.INLINE, null));
+        return new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                // the head shares the headers of the pooled response, copy them as the encoder would read them
+                if (msg instanceof HttpResponse) {
+                    HttpResponse response = (HttpResponse) msg;
+                    msg = new DefaultHttpResponse(response.protocolVersion(), response.status(), response.headers().copy());
+                }
+                ctx.write(msg, promise);
+            }
+        }, new MergeRequestHandler(null, 0), handler);
+    }
+
+    private HttpResponse open(EmbeddedChannel channel, String lastEventId) {
+        DefaultHttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/events");
+        if (null != lastEventId) {
+            request.headers().set(HttpConst.LAST_EVENT_ID, lastEventId);
+        }
+        channel.writeInbound(request);
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        channel.runPendingTasks();
+        return channel.readOutbound();
+    }
+
+    private String readEvents(EmbeddedChannel channel) {
+        channel.runPendingTasks();
+        ByteBuf     body = Unpooled.buffer();
+        HttpContent content;
+        while (null != (content = channel.readOutbound())) {
+            body.writeBytes(content.content());
+            content.release();
+        }
+        return body.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testEventStream() {
+        EmbeddedChannel channel  = this.channel("close");
+        HttpResponse    response = this.open(channel, "7");
+        assertEquals(200, response.status().code());
+        assertTrue(response.headers().get(HttpConst.CONTENT_TYPE).startsWith("text/event-stream"));
+        assertEquals("no-cache", response.headers().get(HttpConst.CACHE_CONTROL));
+        assertEquals("7", emitter.get().lastEventId());
+
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.get().onClose(() -> closed.set(true));
+        assertTrue(emitter.get().send(SseEvent.of("a\nb").id("8").event("price")));
+        assertTrue(emitter.get().comment("hi"));
+        assertTrue(emitter.get().send("c"));
+        emitter.get().close();
+
+        assertEquals("id: 8\nevent: price\ndata: a\ndata: b\n\n: hi\n\ndata: c\n\n", this.readEvents(channel));
+        assertTrue(closed.get());
+        assertFalse(emitter.get().isOpen());
+        assertFalse(emitter.get().send("d"));
+        // keep-alive: the connection serves the next request
+        assertTrue(channel.isOpen());
+        assertNull(channel.pipeline().get(SseChannelEmitter.class));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testCloseSlowConsumer() {
+        EmbeddedChannel channel = this.channel("close");
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1, 2));
+        this.open(channel, null);
+        assertNull(emitter.get().lastEventId());
+
+        // the first event fills the outbound buffer, the next ones wait
+        assertTrue(emitter.get().send("1"));
+        assertTrue(emitter.get().send("2"));
+        assertTrue(emitter.get().send("3"));
+        assertFalse(emitter.get().send("4"));
+        channel.runPendingTasks();
+        assertFalse(channel.isOpen());
+        assertFalse(emitter.get().isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testDropOnOverflow() {
+        EmbeddedChannel channel = this.channel("drop");
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1, 2));
+        this.open(channel, null);
+
+        assertTrue(emitter.get().send("1"));
+        assertTrue(emitter.get().send("2"));
+        assertTrue(emitter.get().send("3"));
+        assertFalse(emitter.get().send("4"));
+        assertTrue(channel.isOpen());
+
+        // each flush makes the channel writable again and lets the next event out
+        StringBuilder events = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            events.append(this.readEvents(channel));
+        }
+        assertEquals("data: 1\n\ndata: 2\n\ndata: 3\n\n", events.toString());
+        assertTrue(emitter.get().send("5"));
+        assertEquals("data: 5\n\n", this.readEvents(channel));
+        channel.finishAndReleaseAll();
+    }
+
+}
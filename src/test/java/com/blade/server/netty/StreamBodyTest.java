@@ -0,0 +1,129 @@
+package com.blade.server.netty;
+
+import com.blade.Blade;
+import com.blade.mvc.WebContext;
+import com.blade.mvc.http.StreamBody;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.blade.mvc.Const.ENV_KEY_PERFORMANCE;
+import static org.junit.Assert.*;
+
+public class StreamBodyTest {
+
+    private static final byte[] DATA = new byte[100 * 1024];
+
+    static {
+        new Random(1).nextBytes(DATA);
+    }
+
+    private EmbeddedChannel channel;
+    private int             chunks;
+
+    @Before
+    public void before() {
+        Blade blade = Blade.of().environment(ENV_KEY_PERFORMANCE, true);
+        blade.get("/input-stream", ctx -> ctx.body(StreamBody.of(new ByteArrayInputStream(DATA))));
+        blade.get("/unknown-length", ctx -> ctx.body(StreamBody.of(new FilterInputStream(new ByteArrayInputStream(DATA)) {
+            @Override
+            public int available() {
+                return 0;
+            }
+        })));
+        blade.get("/channel", ctx -> ctx.body(StreamBody.of(Channels.newChannel(new ByteArrayInputStream(DATA)))));
+        blade.get("/iterator", ctx -> ctx.body(StreamBody.of(Arrays.asList(
+                Unpooled.copiedBuffer("hello ", StandardCharsets.UTF_8),
+                Unpooled.copiedBuffer("world", StandardCharsets.UTF_8)).iterator())));
+        WebContext.init(blade, "/");
+        blade.routeMatcher().initMiddleware(blade.middleware());
+        blade.routeMatcher().register();
+
+        HttpServerHandler handler = new HttpServerHandler(new HandlerExecutor(HandlerExecutor.Mode.INLINE, null));
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                // the head shares the headers of the pooled response, copy them as the encoder would read them
+                if (msg instanceof HttpResponse) {
+                    HttpResponse response = (HttpResponse) msg;
+                    msg = new DefaultHttpResponse(response.protocolVersion(), response.status(), response.headers().copy());
+                }
+                ctx.write(msg, promise);
+            }
+        }, new MergeRequestHandler(null, 0), handler);
+    }
+
+    @Test
+    public void testInputStream() {
+        assertArrayEquals(DATA, this.get("/input-stream"));
+    }
+
+    @Test
+    public void testUnknownLength() {
+        assertArrayEquals(DATA, this.get("/unknown-length"));
+        // full sized chunks, plus the empty one that finds the end
+        assertTrue(chunks <= DATA.length / StreamBody.DEFAULT_CHUNK_SIZE + 2);
+    }
+
+    @Test
+    public void testChannel() {
+        assertArrayEquals(DATA, this.get("/channel"));
+    }
+
+    @Test
+    public void testIterator() {
+        assertEquals("hello world", new String(this.get("/iterator"), StandardCharsets.UTF_8));
+        // keep-alive: the next response goes through the same pipeline
+        assertEquals("hello world", new String(this.get("/iterator"), StandardCharsets.UTF_8));
+        channel.finishAndReleaseAll();
+    }
+
+    private byte[] get(String uri) {
+        channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri));
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        channel.runPendingTasks();
+
+        HttpResponse response = channel.readOutbound();
+        assertEquals(200, response.status().code());
+        assertTrue(HttpUtil.isTransferEncodingChunked(response));
+
+        ByteBuf body = Unpooled.buffer();
+        chunks = 0;
+        for (; ; ) {
+            HttpContent content = channel.readOutbound();
+            assertNotNull(content);
+            body.writeBytes(content.content());
+            content.release();
+            if (content instanceof LastHttpContent) {
+                break;
+            }
+            chunks++;
+        }
+        assertTrue(chunks >= 2);
+
+        byte[] bytes = new byte[body.readableBytes()];
+        body.readBytes(bytes);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.blade.server.netty;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keep-alive GET load against a running server, start the application once per
+ * server.netty.transport (io_uring, epoll, nio) on the same machine and compare the numbers.
+ * With a pipeline depth above 1 each connection sends that many requests at once before reading
+ * the responses, like wrk --pipeline, compare server.netty.flush-consolidation=0 with the default.
+ * <p>
+ * java -cp ... com.blade.server.netty.TransportBenchmark [port] [uri] [connections] [seconds] [pipeline]
+ */
+public class TransportBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int    port        = args.length > 0 ? Integer.parseInt(args[0]) : 9000;
+        String uri         = args.length > 1 ? args[1] : "/hello";
+        int    connections = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int    seconds     = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int    pipeline    = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+        StringBuilder batch = new StringBuilder();
+        for (int i = 0; i < pipeline; i++) {
+            batch.append("GET ").append(uri).append(" HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        }
+        byte[] request = batch.toString().getBytes(StandardCharsets.US_ASCII);
+
+        LongAdder      requests = new LongAdder();
+        CountDownLatch latch    = new CountDownLatch(connections);
+        long           deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (int i = 0; i < connections; i++) {
+            new Thread(() -> {
+                try (Socket socket = new Socket("127.0.0.1", port)) {
+                    socket.setTcpNoDelay(true);
+                    OutputStream out = socket.getOutputStream();
+                    InputStream  in  = socket.getInputStream();
+                    ResponseReader reader = new ResponseReader(in);
+                    while (System.nanoTime() < deadline) {
+                        out.write(request);
+                        for (int j = 0; j < pipeline; j++) {
+                            reader.readResponse();
+                        }
+                        requests.add(pipeline);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        System.out.printf("port: %d, connections: %d, pipeline: %d, requests: %d, throughput: %.0f req/s%n",
+                port, connections, pipeline, requests.sum(), requests.sum() / (double) seconds);
+    }
+
+    /**
+     * Reads responses with a Content-Length body,
+     * the bytes after one response belong to the next pipelined response.
+     */
+    private static class ResponseReader {
+
+        private final InputStream in;
+        private final byte[]      buf = new byte[64 * 1024];
+
+        private int start;
+        private int end;
+
+        ResponseReader(InputStream in) {
+            this.in = in;
+        }
+
+        void readResponse() throws Exception {
+            int headerEnd;
+            while ((headerEnd = indexOfHeaderEnd()) < 0) {
+                fill();
+            }
+            String head          = new String(buf, start, headerEnd - start, StandardCharsets.US_ASCII);
+            long   contentLength = 0;
+            int    pos           = head.toLowerCase().indexOf("content-length:");
+            if (pos >= 0) {
+                contentLength = Long.parseLong(head.substring(pos + 15, head.indexOf("\r\n", pos)).trim());
+            }
+            start = headerEnd;
+            while (contentLength > 0) {
+                if (start == end) {
+                    fill();
+                }
+                int n = (int) Math.min(contentLength, end - start);
+                start += n;
+                contentLength -= n;
+            }
+        }
+
+        private int indexOfHeaderEnd() {
+            for (int i = start; i + 3 < end; i++) {
+                if (buf[i] == '\r' && buf[i + 1] == '\n' && buf[i + 2] == '\r' && buf[i + 3] == '\n') {
+                    return i + 4;
+                }
+            }
+            return -1;
+        }
+
+        private void fill() throws Exception {
+            if (start == end) {
+                start = end = 0;
+            } else if (end == buf.length) {
+                System.arraycopy(buf, start, buf, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+            int n = in.read(buf, end, buf.length - end);
+            if (n < 0) {
+                throw new IllegalStateException("connection closed");
+            }
+            end += n;
+        }
+    }
+
+}